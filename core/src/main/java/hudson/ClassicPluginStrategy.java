@@ -41,10 +41,8 @@ import jenkins.util.SystemProperties;
 import org.apache.commons.io.output.NullOutputStream;
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Project;
-import org.apache.tools.ant.taskdefs.Expand;
 import org.apache.tools.ant.taskdefs.Zip;
 import org.apache.tools.ant.types.FileSet;
-import org.apache.tools.ant.types.PatternSet;
 import org.apache.tools.ant.types.Resource;
 import org.apache.tools.ant.types.ZipFileSet;
 import org.apache.tools.ant.types.resources.MappedResourceCollection;
@@ -54,6 +52,7 @@ import org.apache.tools.zip.ZipExtraField;
 import org.apache.tools.zip.ZipOutputStream;
 import org.jenkinsci.bytecode.Transformer;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.Closeable;
 import java.io.File;
@@ -61,16 +60,25 @@ import java.io.FileNotFoundException;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.logging.Level;
@@ -172,7 +180,7 @@ public class ClassicPluginStrategy implements PluginStrategy {
             } else {
                 File f = pluginManager.getWorkDir();
                 expandDir =  new File(f == null ? archive.getParentFile() : f, getBaseName(archive.getName()));
-                explode(archive, expandDir);
+                pluginManager.unpacked(archive, explode(archive, expandDir));
             }
 
             File manifestFile = new File(expandDir, PluginWrapper.MANIFEST_FILENAME);
@@ -465,29 +473,78 @@ public class ClassicPluginStrategy implements PluginStrategy {
     }
 
     /**
-     * Explodes the plugin into a directory, if necessary.
+     * Explodes a plugin archive, unless it was already exploded.
+     *
+     * <p>
+     * The exploded directory is kept if {@code .timestamp2} has the same timestamp as the archive, as always,
+     * or else if it records the same digest as the archive, which happens when the archive is copied over
+     * with the same content (such as when restoring a backup, or with bundled plugins).
+     *
+     * @return how the exploded directory was obtained, for {@link PluginManager.StartupTiming#getUnpacking}
      */
-    private static void explode(File archive, File destDir) throws IOException {
+    private static PluginManager.StartupTiming.Unpacking explode(File archive, File destDir) throws IOException {
         destDir.mkdirs();
 
         // timestamp check
         File explodeTime = new File(destDir,".timestamp2");
         if(explodeTime.exists() && explodeTime.lastModified()==archive.lastModified())
-            return; // no need to expand
+            return PluginManager.StartupTiming.Unpacking.UP_TO_DATE; // no need to expand
+
+        // content check
+        String digest = digestOf(archive);
+        if (explodeTime.exists() && new File(destDir, PluginWrapper.MANIFEST_FILENAME).isFile()
+                && (DIGEST_PREFIX + digest).equals(readMarker(explodeTime))) {
+            LOGGER.log(Level.FINE, "{0} has a new timestamp but the same content; not exploding it again", archive);
+            touch(explodeTime, archive.lastModified());
+            return PluginManager.StartupTiming.Unpacking.SAME_CONTENT;
+        }
 
         // delete the contents so that old files won't interfere with new files
         Util.deleteRecursive(destDir);
 
+        long start = System.nanoTime();
         try {
             Project prj = new Project();
-            unzipExceptClasses(archive, destDir, prj);
+            unzipExceptClasses(archive, destDir);
             createClassJarFromWebInfClasses(archive, destDir, prj);
         } catch (BuildException x) {
             throw new IOException("Failed to expand " + archive,x);
         }
 
+        Files.write(explodeTime.toPath(), (DIGEST_PREFIX + digest + "\n").getBytes(StandardCharsets.US_ASCII));
+        touch(explodeTime, archive.lastModified());
+        LOGGER.log(Level.FINE, "Exploded {0} in {1}ms", new Object[] {archive, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)});
+        return PluginManager.StartupTiming.Unpacking.EXPLODED;
+    }
+
+    private static final String DIGEST_PREFIX = "sha256:";
+
+    private static String digestOf(File archive) throws IOException {
+        try (InputStream in = Files.newInputStream(archive.toPath())) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buf = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                digest.update(buf, 0, n);
+            }
+            return Util.toHexString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static @CheckForNull String readMarker(File explodeTime) {
+        try {
+            return new String(Files.readAllBytes(explodeTime.toPath()), StandardCharsets.US_ASCII).trim();
+        } catch (IOException | InvalidPathException e) {
+            LOGGER.log(Level.FINE, "Failed to read " + explodeTime, e);
+            return null;
+        }
+    }
+
+    private static void touch(File f, long timestamp) throws IOException {
         try {
-            new FilePath(explodeTime).touch(archive.lastModified());
+            new FilePath(f).touch(timestamp);
         } catch (InterruptedException e) {
             throw new AssertionError(e); // impossible
         }
@@ -546,16 +603,45 @@ public class ClassicPluginStrategy implements PluginStrategy {
         }
     }
 
-    private static void unzipExceptClasses(File archive, File destDir, Project prj) {
-        Expand e = new Expand();
-        e.setProject(prj);
-        e.setTaskType("unzip");
-        e.setSrc(archive);
-        e.setDest(destDir);
-        PatternSet p = new PatternSet();
-        p.setExcludes("WEB-INF/classes/");
-        e.addPatternset(p);
-        e.execute();
+    /**
+     * Extracts everything but {@code WEB-INF/classes/}, writing the files in parallel.
+     */
+    private static void unzipExceptClasses(File archive, File destDir) throws IOException {
+        Path dest = destDir.toPath().toAbsolutePath().normalize();
+        try (JarFile zip = new JarFile(archive, false)) {
+            List<JarEntry> files = new ArrayList<>();
+            for (Enumeration<JarEntry> e = zip.entries(); e.hasMoreElements(); ) {
+                JarEntry entry = e.nextElement();
+                if (entry.getName().startsWith("WEB-INF/classes/")) {
+                    continue;
+                }
+                Path target = dest.resolve(entry.getName()).normalize();
+                if (!target.startsWith(dest)) {
+                    throw new IOException("Refusing to extract " + entry.getName() + " outside of " + destDir);
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                } else {
+                    files.add(entry);
+                }
+            }
+            files.parallelStream().forEach(entry -> {
+                Path target = dest.resolve(entry.getName()).normalize();
+                try {
+                    Files.createDirectories(target.getParent());
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    if (entry.getTime() != -1) {
+                        Files.setLastModifiedTime(target, FileTime.fromMillis(entry.getTime()));
+                    }
+                } catch (IOException x) {
+                    throw new UncheckedIOException(x);
+                }
+            });
+        } catch (UncheckedIOException x) {
+            throw new IOException("Failed to expand " + archive, x.getCause());
+        }
     }
 
     /**
@@ -39,6 +39,7 @@ import com.google.inject.Scopes;
 import com.google.inject.matcher.Matchers;
 import com.google.inject.name.Names;
 import com.google.inject.spi.ProvisionListener;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import hudson.init.InitMilestone;
 import hudson.model.Descriptor;
 import hudson.model.Hudson;
@@ -57,6 +58,7 @@ import javax.annotation.PostConstruct;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Field;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -264,7 +266,8 @@ public abstract class ExtensionFinder implements ExtensionPoint {
         public GuiceFinder() {
             refreshExtensionAnnotations();
 
-            SezpozModule extensions = new SezpozModule(loadSezpozIndices(Jenkins.get().getPluginManager().uberClassLoader));
+            ExtensionIndexCache cache = ExtensionIndexCache.load();
+            SezpozModule extensions = new SezpozModule(loadSezpozIndices(Jenkins.get().getPluginManager().uberClassLoader), cache);
 
             List<Module> modules = new ArrayList<>();
             modules.add(new AbstractModule() {
@@ -284,11 +287,14 @@ public abstract class ExtensionFinder implements ExtensionPoint {
             try {
                 container = Guice.createInjector(modules);
                 sezpozIndex = extensions.getLoadedIndex();
+                if (cache != null) {
+                    cache.save();
+                }
             } catch (Throwable e) {
                 LOGGER.log(Level.SEVERE, "Failed to create Guice container from all the plugins",e);
                 // failing to load all bindings are disastrous, so recover by creating minimum that works
                 // by just including the core
-                container = Guice.createInjector(new SezpozModule(loadSezpozIndices(Jenkins.class.getClassLoader())));
+                container = Guice.createInjector(new SezpozModule(loadSezpozIndices(Jenkins.class.getClassLoader()), null));
             }
 
             // expose Injector via lookup mechanism for interop with non-Guice clients
@@ -335,7 +341,7 @@ public abstract class ExtensionFinder implements ExtensionPoint {
                 delta.addAll(Sezpoz.listDelta(annotationType,sezpozIndex));
             }
 
-            SezpozModule deltaExtensions = new SezpozModule(delta);
+            SezpozModule deltaExtensions = new SezpozModule(delta, null);
 
             List<Module> modules = new ArrayList<>();
             modules.add(deltaExtensions);
@@ -460,10 +466,15 @@ public abstract class ExtensionFinder implements ExtensionPoint {
         private class SezpozModule extends AbstractModule implements ProvisionListener {
             private final List<IndexItem<?,Object>> index;
             private final List<IndexItem<?,Object>> loadedIndex;
+            /**
+             * Extensions known to resolve fine, and timings, if any.
+             */
+            private final @CheckForNull ExtensionIndexCache cache;
 
-            public SezpozModule(List<IndexItem<?,Object>> index) {
+            public SezpozModule(List<IndexItem<?,Object>> index, @CheckForNull ExtensionIndexCache cache) {
                 this.index = index;
                 this.loadedIndex = new ArrayList<>();
+                this.cache = cache;
             }
 
             /**
@@ -481,6 +492,19 @@ public abstract class ExtensionFinder implements ExtensionPoint {
             private void resolve(Class<?> c) {
                 resolve(c, new HashSet<>());
             }
+            /**
+             * Like {@link #resolve(Class)}, unless the extension was found to resolve fine by the previous start.
+             */
+            private void resolve(Class<?> c, IndexItem<?,Object> item) {
+                String key = item.annotation().annotationType().getName() + " " + item.className() + "#" + item.memberName();
+                if (cache != null && cache.isResolved(key)) {
+                    return;
+                }
+                resolve(c);
+                if (cache != null) {
+                    cache.resolved(key);
+                }
+            }
             private void resolve(Class<?> c, Set<Class<?>> encountered) {
                 if (!encountered.add(c)) {
                     return;
@@ -514,15 +538,18 @@ public abstract class ExtensionFinder implements ExtensionPoint {
 
                 for (final IndexItem<?,Object> item : index) {
                     boolean optional = isOptional(item.annotation());
+                    long start = System.nanoTime();
+                    Class<?> owner = null;
                     try {
                         AnnotatedElement e = item.element();
+                        owner = e instanceof Member ? ((Member) e).getDeclaringClass() : (Class<?>) e;
                         Annotation a = item.annotation();
                         if (!isActive(a,e))   continue;
 
                         Scope scope = optional ? QUIET_FAULT_TOLERANT_SCOPE : FAULT_TOLERANT_SCOPE;
                         if (e instanceof Class) {
                             Key key = Key.get((Class)e);
-                            resolve((Class)e);
+                            resolve((Class)e, item);
                             annotations.put(key,a);
                             bind(key).in(scope);
                         } else {
@@ -536,7 +563,7 @@ public abstract class ExtensionFinder implements ExtensionPoint {
                                 throw new AssertionError();
                             }
 
-                            resolve(extType);
+                            resolve(extType, item);
 
                             // make unique key, because Guice wants that.
                             Key key = Key.get(extType, Names.named(item.className() + "." + item.memberName()));
@@ -553,6 +580,10 @@ public abstract class ExtensionFinder implements ExtensionPoint {
                         // which results in a LinkageError
                         LOGGER.log(optional ? Level.FINE : Level.WARNING,
                                    "Failed to load "+item.className(), e);
+                    } finally {
+                        if (cache != null) {
+                            cache.took(owner, System.nanoTime() - start);
+                        }
                     }
                 }
             }
@@ -0,0 +1,266 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.util.AtomicFileWriter;
+import jenkins.model.Jenkins;
+import jenkins.util.AntClassLoader;
+import jenkins.util.SystemProperties;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Remembers, across restarts, which extensions {@link ExtensionFinder.GuiceFinder} found to be safe to bind,
+ * and records how long binding the extensions of each plugin took.
+ *
+ * <p>
+ * Before binding an extension, {@link ExtensionFinder.GuiceFinder} walks through the reflection data of its class
+ * hierarchy, so that classes that cannot be linked are skipped rather than failing the whole injector.
+ * That loads every class showing up in a signature, and takes most of the time spent discovering extensions.
+ * The outcome only depends on the classes involved, so the extensions that passed are written down
+ * along with a fingerprint of the core (its version and jar), the Java version and the installed plugins (their manifests and jars),
+ * and are not checked again on the next start as long as the fingerprint is the same.
+ */
+final class ExtensionIndexCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ExtensionIndexCache.class.getName());
+
+    private static final String FINGERPRINT_PREFIX = "# fingerprint ";
+
+    private final File file;
+    private final String fingerprint;
+    /**
+     * Extensions found safe during the previous start, if it had the same fingerprint.
+     */
+    private final Set<String> known;
+    /**
+     * Extensions found safe during this start.
+     */
+    private final Set<String> resolved = ConcurrentHashMap.newKeySet();
+    private final Map<ClassLoader, String> pluginNames = new IdentityHashMap<>();
+    private final Map<String, AtomicLong> timings = new ConcurrentHashMap<>();
+    private int skipped;
+
+    private ExtensionIndexCache(File file, String fingerprint, Set<String> known, PluginManager pm) {
+        this.file = file;
+        this.fingerprint = fingerprint;
+        this.known = known;
+        for (PluginWrapper p : pm.getPlugins()) {
+            pluginNames.put(p.classLoader, p.getShortName());
+        }
+    }
+
+    /**
+     * Reads what was remembered by the previous start.
+     *
+     * @return null if disabled
+     */
+    static @CheckForNull ExtensionIndexCache load() {
+        if (!ENABLED) {
+            return null;
+        }
+        Jenkins j = Jenkins.get();
+        File file = new File(j.getRootDir(), "caches/extension-index.txt");
+        String fingerprint = fingerprint(j.getPluginManager());
+        Set<String> known = new HashSet<>();
+        if (file.isFile()) {
+            try {
+                List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+                if (!lines.isEmpty() && lines.get(0).equals(FINGERPRINT_PREFIX + fingerprint)) {
+                    known.addAll(lines.subList(1, lines.size()));
+                } else {
+                    LOGGER.fine("Core or plugins changed since the extension index was written; checking all extensions");
+                }
+            } catch (IOException | RuntimeException x) {
+                LOGGER.log(Level.WARNING, "Failed to read " + file, x);
+            }
+        }
+        return new ExtensionIndexCache(file, fingerprint, known, j.getPluginManager());
+    }
+
+    /**
+     * Whether the given extension was found safe to bind by the previous start.
+     */
+    boolean isResolved(String key) {
+        if (known.contains(key)) {
+            resolved.add(key);
+            skipped++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records that the given extension was found safe to bind.
+     */
+    void resolved(String key) {
+        resolved.add(key);
+    }
+
+    /**
+     * Records how long binding an extension took.
+     *
+     * @param c the extension class, if it could be loaded
+     */
+    void took(@CheckForNull Class<?> c, long nanos) {
+        String plugin = c == null ? "(unknown)" : pluginNames.getOrDefault(c.getClassLoader(), "(core)");
+        timings.computeIfAbsent(plugin, k -> new AtomicLong()).addAndGet(nanos);
+    }
+
+    /**
+     * Writes down the extensions found safe if they changed, and logs how long each plugin took.
+     */
+    void save() {
+        report();
+        if (resolved.equals(known)) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            AtomicFileWriter w = new AtomicFileWriter(file.toPath(), StandardCharsets.UTF_8);
+            try {
+                w.write(FINGERPRINT_PREFIX + fingerprint + "\n");
+                for (String key : new TreeSet<>(resolved)) {
+                    w.write(key);
+                    w.write('\n');
+                }
+                w.commit();
+            } finally {
+                w.abort();
+            }
+        } catch (IOException x) {
+            LOGGER.log(Level.WARNING, "Failed to write " + file, x);
+        }
+    }
+
+    private void report() {
+        long total = 0;
+        for (AtomicLong t : timings.values()) {
+            total += t.get();
+        }
+        List<Map.Entry<String, AtomicLong>> slowest = new ArrayList<>(timings.entrySet());
+        slowest.sort(Comparator.comparingLong((Map.Entry<String, AtomicLong> e) -> e.getValue().get()).reversed());
+        if (LOGGER.isLoggable(Level.FINE)) {
+            for (Map.Entry<String, AtomicLong> e : slowest) {
+                LOGGER.log(Level.FINE, "Bound the extensions of {0} in {1}ms",
+                        new Object[] {e.getKey(), TimeUnit.NANOSECONDS.toMillis(e.getValue().get())});
+            }
+        }
+        StringBuilder b = new StringBuilder();
+        for (Map.Entry<String, AtomicLong> e : slowest.subList(0, Math.min(REPORTED_PLUGINS, slowest.size()))) {
+            b.append("\n  ").append(e.getKey()).append(": ").append(TimeUnit.NANOSECONDS.toMillis(e.getValue().get())).append("ms");
+        }
+        LOGGER.log(Level.INFO, "Bound {0} extensions in {1}ms, {2} of them already known to be safe; slowest plugins:{3}",
+                new Object[] {resolved.size(), TimeUnit.NANOSECONDS.toMillis(total), skipped, b});
+    }
+
+    /**
+     * Computes a digest of what the outcome of checking extensions depends on:
+     * the core and Java versions, and the manifests and jars of the plugins.
+     */
+    private static String fingerprint(PluginManager pm) {
+        StringBuilder b = new StringBuilder();
+        b.append(Jenkins.VERSION).append('\n');
+        // snapshots and patched builds of core keep their version
+        appendFile(b, coreLocation());
+        b.append(System.getProperty("java.specification.version")).append('\n');
+        List<PluginWrapper> plugins = new ArrayList<>(pm.getPlugins());
+        plugins.sort(Comparator.comparing(PluginWrapper::getShortName));
+        for (PluginWrapper p : plugins) {
+            b.append(p.getShortName()).append(' ').append(p.getVersion()).append(' ').append(p.isActive()).append('\n');
+            Map<String, Object> attributes = new TreeMap<>();
+            p.getManifest().getMainAttributes().forEach((k, v) -> attributes.put(k.toString(), v));
+            attributes.forEach((k, v) -> b.append(' ').append(k).append('=').append(v).append('\n'));
+            if (p.classLoader instanceof AntClassLoader) {
+                for (String path : ((AntClassLoader) p.classLoader).getClasspath().split(File.pathSeparator)) {
+                    b.append(' ');
+                    appendFile(b, new File(path));
+                }
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Util.toHexString(digest.digest(b.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException x) {
+            throw new AssertionError(x);
+        }
+    }
+
+    private static void appendFile(StringBuilder b, @CheckForNull File f) {
+        if (f == null) {
+            b.append("?\n");
+        } else {
+            b.append(f.getName()).append(' ').append(f.length()).append(' ').append(f.lastModified()).append('\n');
+        }
+    }
+
+    /**
+     * Gets the jar core was loaded from, or the class file of {@link Jenkins} when core runs from a directory, as during development.
+     */
+    private static @CheckForNull File coreLocation() {
+        try {
+            CodeSource cs = Jenkins.class.getProtectionDomain().getCodeSource();
+            if (cs == null) {
+                return null;
+            }
+            File f = new File(cs.getLocation().toURI());
+            return f.isDirectory() ? new File(f, Jenkins.class.getName().replace('.', '/') + ".class") : f;
+        } catch (URISyntaxException | IllegalArgumentException | SecurityException x) {
+            LOGGER.log(Level.FINE, "Cannot tell where core was loaded from", x);
+            return null;
+        }
+    }
+
+    /**
+     * Whether extensions found safe are remembered across restarts.
+     */
+    private static final boolean ENABLED = SystemProperties.getBoolean(ExtensionIndexCache.class.getName() + ".enabled", true);
+
+    /**
+     * Number of the slowest plugins to log.
+     */
+    private static final int REPORTED_PLUGINS = SystemProperties.getInteger(ExtensionIndexCache.class.getName() + ".reportedPlugins", 10);
+}
@@ -49,6 +49,7 @@ import hudson.util.CyclicGraphDetector.CycleDetectedException;
 import hudson.util.FormValidation;
 import hudson.util.PersistedList;
 import hudson.util.Retrier;
+import hudson.util.RobustReflectionConverter;
 import hudson.util.Service;
 import hudson.util.VersionNumber;
 import hudson.util.XStream2;
@@ -127,6 +128,7 @@ import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -135,6 +137,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.TreeMap;
@@ -143,6 +146,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.jar.JarEntry;
@@ -292,7 +296,17 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
      */
     protected final List<PluginWrapper> activePlugins = new CopyOnWriteArrayList<>();
 
-    protected final List<FailedPlugin> failedPlugins = new ArrayList<>();
+    protected final List<FailedPlugin> failedPlugins = new CopyOnWriteArrayList<>();
+
+    /**
+     * How long each plugin took to start, keyed by short name.
+     */
+    private final Map<String, StartupTiming> startupTimings = new ConcurrentHashMap<>();
+
+    /**
+     * How archives being inspected were unpacked, until their {@link StartupTiming} is known.
+     */
+    private final Map<File, StartupTiming.Unpacking> unpacking = new ConcurrentHashMap<>();
 
     /**
      * Plug-in root directory.
@@ -430,37 +444,66 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
 
                             final Map<String,File> inspectedShortNames = new HashMap<>();
 
-                            for( final File arc : archives ) {
-                                g.followedBy().notFatal().attains(PLUGINS_LISTED).add("Inspecting plugin " + arc, new Executable() {
+                            // plugins are inspected in parallel, then registered in the order they were listed
+                            final PluginWrapper[] inspected = new PluginWrapper[archives.size()];
+                            final List<Handle> inspections = new ArrayList<>();
+                            // foo.jpi and foo.hpi are exploded into the same directory, so they must not be inspected at the same time
+                            final Map<String, Handle> inspectionsByBaseName = new HashMap<>();
+                            for (int i = 0; i < archives.size(); i++) {
+                                final int index = i;
+                                final File arc = archives.get(i);
+                                String baseName = FilenameUtils.getBaseName(arc.getName());
+                                Handle previous = inspectionsByBaseName.get(baseName);
+                                if (previous != null) {
+                                    g.requires(previous);
+                                }
+                                Handle inspection = g.notFatal().attains(PLUGINS_LISTED).add("Inspecting plugin " + arc, new Executable() {
                                     public void run(Reactor session1) throws Exception {
                                         try {
+                                            long start = System.nanoTime();
                                             PluginWrapper p = strategy.createPluginWrapper(arc);
-                                            if (isDuplicate(p)) return;
-
-                                            p.isBundled = containsHpiJpi(bundledPlugins, arc.getName());
-                                            plugins.add(p);
+                                            StartupTiming timing = startupTiming(p);
+                                            timing.prepare = System.nanoTime() - start;
+                                            timing.unpacking = unpacking.get(arc);
+                                            inspected[index] = p;
                                         } catch (IOException e) {
                                             failedPlugins.add(new FailedPlugin(arc.getName(),e));
                                             throw e;
+                                        } finally {
+                                            unpacking.remove(arc);
                                         }
                                     }
+                                });
+                                inspections.add(inspection);
+                                inspectionsByBaseName.put(baseName, inspection);
+                            }
 
-                                    /**
-                                     * Inspects duplication. this happens when you run hpi:run on a bundled plugin,
-                                     * as well as putting numbered jpi files, like "cobertura-1.0.jpi" and "cobertura-1.1.jpi"
-                                     */
-                                    private boolean isDuplicate(PluginWrapper p) {
-                                        String shortName = p.getShortName();
-                                        if (inspectedShortNames.containsKey(shortName)) {
-                                            LOGGER.info("Ignoring "+arc+" because "+inspectedShortNames.get(shortName)+" is already loaded");
-                                            return true;
-                                        }
+                            g.requires(inspections.toArray(new Handle[0])).attains(PLUGINS_LISTED).add("Registering plugins", new Executable() {
+                                public void run(Reactor session1) throws Exception {
+                                    for (int i = 0; i < inspected.length; i++) {
+                                        PluginWrapper p = inspected[i];
+                                        if (p == null || isDuplicate(p, archives.get(i))) continue;
 
-                                        inspectedShortNames.put(shortName,arc);
-                                        return false;
+                                        p.isBundled = containsHpiJpi(bundledPlugins, archives.get(i).getName());
+                                        plugins.add(p);
                                     }
-                                });
-                            }
+                                }
+
+                                /**
+                                 * Inspects duplication. this happens when you run hpi:run on a bundled plugin,
+                                 * as well as putting numbered jpi files, like "cobertura-1.0.jpi" and "cobertura-1.1.jpi"
+                                 */
+                                private boolean isDuplicate(PluginWrapper p, File arc) {
+                                    String shortName = p.getShortName();
+                                    if (inspectedShortNames.containsKey(shortName)) {
+                                        LOGGER.info("Ignoring "+arc+" because "+inspectedShortNames.get(shortName)+" is already loaded");
+                                        return true;
+                                    }
+
+                                    inspectedShortNames.put(shortName,arc);
+                                    return false;
+                                }
+                            });
 
                             g.followedBy().attains(PLUGINS_LISTED).add("Checking cyclic dependencies", new Executable() {
                                 /**
@@ -542,13 +585,19 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
                     Jenkins.get().lookup.set(PluginInstanceStore.class, new PluginInstanceStore());
                     TaskGraphBuilder g = new TaskGraphBuilder();
 
-                    // schedule execution of loading plugins
+                    // schedule execution of loading plugins, after their dependencies,
+                    // and initializing plugins once all of them are loaded
+                    Map<String, Handle> loads = new HashMap<>();
+                    Map<String, Handle> inits = new HashMap<>();
                     for (final PluginWrapper p : activePlugins.toArray(new PluginWrapper[0])) {
-                        g.followedBy().notFatal().attains(PLUGINS_PREPARED).add(String.format("Loading plugin %s v%s (%s)", p.getLongName(), p.getVersion(), p.getShortName()), new Executable() {
+                        TaskGraphBuilder b = PARALLEL_START ? g.requires(dependencies(p, loads)) : g.followedBy();
+                        loads.put(p.getShortName(), b.notFatal().attains(PLUGINS_PREPARED).add(String.format("Loading plugin %s v%s (%s)", p.getLongName(), p.getVersion(), p.getShortName()), new Executable() {
                             public void run(Reactor session) throws Exception {
+                                long start = System.nanoTime();
                                 try {
                                     p.resolvePluginDependencies();
                                     strategy.load(p);
+                                    ((UberClassLoader) uberClassLoader).indexPackages(p);
                                 } catch (MissingDependencyException e) {
                                     failedPlugins.add(new FailedPlugin(p.getShortName(), e));
                                     activePlugins.remove(p);
@@ -559,18 +608,22 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
                                     activePlugins.remove(p);
                                     plugins.remove(p);
                                     throw e;
+                                } finally {
+                                    startupTiming(p).start = System.nanoTime() - start;
                                 }
                             }
-                        });
+                        }));
                     }
 
                     // schedule execution of initializing plugins
                     for (final PluginWrapper p : activePlugins.toArray(new PluginWrapper[0])) {
-                        g.followedBy().notFatal().attains(PLUGINS_STARTED).add("Initializing plugin " + p.getShortName(), new Executable() {
+                        TaskGraphBuilder b = PARALLEL_START ? g.requires(dependencies(p, inits)).requires(PLUGINS_PREPARED) : g.followedBy();
+                        inits.put(p.getShortName(), b.notFatal().attains(PLUGINS_STARTED).add("Initializing plugin " + p.getShortName(), new Executable() {
                             public void run(Reactor session) throws Exception {
                                 if (!activePlugins.contains(p)) {
                                     return;
                                 }
+                                long start = System.nanoTime();
                                 try {
                                     p.getPlugin().postInitialize();
                                 } catch (Exception e) {
@@ -578,12 +631,14 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
                                     activePlugins.remove(p);
                                     plugins.remove(p);
                                     throw e;
+                                } finally {
+                                    startupTiming(p).postInitialize = System.nanoTime() - start;
                                 }
                             }
-                        });
+                        }));
                     }
 
-                    g.followedBy().attains(PLUGINS_STARTED).add("Discovering plugin initialization tasks", new Executable() {
+                    g.requires(inits.values().toArray(new Handle[0])).attains(PLUGINS_STARTED).add("Discovering plugin initialization tasks", new Executable() {
                         public void run(Reactor reactor) throws Exception {
                             // rescan to find plugin-contributed @Initializer
                             reactor.addAll(initializerFinder.discoverTasks(reactor));
@@ -605,7 +660,7 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
         }});
     }
 
-    void considerDetachedPlugin(String shortName) {
+    synchronized void considerDetachedPlugin(String shortName) {
         if (new File(rootDir, shortName + ".jpi").isFile() ||
             new File(rootDir, shortName + ".hpi").isFile() ||
             new File(rootDir, shortName + ".jpl").isFile() ||
@@ -619,7 +674,9 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
             File arc = new File(rootDir, loaded + ".jpi");
             LOGGER.info(() -> "Loading a detached plugin as a dependency: " + arc);
             try {
-                plugins.add(strategy.createPluginWrapper(arc));
+                PluginWrapper p = strategy.createPluginWrapper(arc);
+                startupTiming(p).unpacking = unpacking.remove(arc);
+                plugins.add(p);
             } catch (IOException e) {
                 failedPlugins.add(new FailedPlugin(arc.getName(), e));
             }
@@ -627,6 +684,42 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
         }
     }
 
+    /**
+     * Gets the tasks of the given ones that are about dependencies of a plugin.
+     */
+    private static TaskGraphBuilder.Handle[] dependencies(PluginWrapper p, Map<String, TaskGraphBuilder.Handle> tasks) {
+        List<TaskGraphBuilder.Handle> r = new ArrayList<>();
+        for (Dependency d : Util.join(p.getDependencies(), p.getOptionalDependencies())) {
+            TaskGraphBuilder.Handle h = tasks.get(d.shortName);
+            if (h != null) {
+                r.add(h);
+            }
+        }
+        return r.toArray(new TaskGraphBuilder.Handle[0]);
+    }
+
+    /**
+     * Records how a plugin archive was unpacked, for {@link StartupTiming#getUnpacking}.
+     */
+    /*package*/ void unpacked(File archive, StartupTiming.Unpacking how) {
+        unpacking.put(archive, how);
+    }
+
+    private StartupTiming startupTiming(PluginWrapper p) {
+        return startupTimings.computeIfAbsent(p.getShortName(), StartupTiming::new);
+    }
+
+    /**
+     * How long each plugin took to start, slowest first.
+     * @since TODO
+     */
+    @Restricted(NoExternalUse.class)
+    public List<StartupTiming> getStartupTimings() {
+        List<StartupTiming> r = new ArrayList<>(startupTimings.values());
+        r.sort(Comparator.comparingLong(StartupTiming::getTotal).reversed());
+        return r;
+    }
+
     protected @NonNull Set<String> loadPluginsFromWar(@NonNull String fromPath) {
         return loadPluginsFromWar(fromPath, null);
     }
@@ -911,6 +1004,7 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
             }
             if (p == null) {
                 p = strategy.createPluginWrapper(arc);
+                unpacking.remove(arc);
             }
             if (p.supportsDynamicLoad()== YesNoMaybe.NO)
                 throw new RestartRequiredException(Messages._PluginManager_PluginDoesntSupportDynamicLoad_RestartRequired(sn));
@@ -921,9 +1015,8 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
             plugins.add(p);
             if (p.isActive())
                 activePlugins.add(p);
-            synchronized (((UberClassLoader) uberClassLoader).loaded) {
-                ((UberClassLoader) uberClassLoader).loaded.clear();
-            }
+            ((UberClassLoader) uberClassLoader).loaded.clear();
+            RobustReflectionConverter.invalidatePlans();
 
             // TODO antimodular; perhaps should have a PluginListener to complement ExtensionListListener?
             CustomClassFilter.Contributed.load();
@@ -2111,8 +2204,13 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
          * Keyed by the generated class name.
          */
         private ConcurrentMap<String, WeakReference<Class>> generatedClasses = new ConcurrentHashMap<>();
-        /** Cache of loaded, or known to be unloadable, classes. */
-        private final Map<String,Class<?>> loaded = new HashMap<>();
+        /** Cache of loaded, or known to be unloadable (empty), classes. */
+        private final Map<String, Optional<Class<?>>> loaded = new ConcurrentHashMap<>();
+        /**
+         * Packages each plugin defines classes in, as computed by {@link PluginPackages#of}.
+         * Plugins whose classes could not be listed map to {@link #ANY_PACKAGE}.
+         */
+        private final Map<PluginWrapper, Set<String>> packages = new ConcurrentHashMap<>();
 
         public UberClassLoader() {
             super(PluginManager.class.getClassLoader());
@@ -2122,6 +2220,31 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
             generatedClasses.put(className, new WeakReference<>(c));
         }
 
+        /**
+         * Lists the packages of a plugin ahead of time, rather than on the first class lookup.
+         */
+        /*package*/ void indexPackages(PluginWrapper p) {
+            packagesOf(p);
+        }
+
+        private Set<String> packagesOf(PluginWrapper p) {
+            return packages.computeIfAbsent(p, k -> {
+                Set<String> r = PluginPackages.of(k.classLoader);
+                return r != null ? r : ANY_PACKAGE;
+            });
+        }
+
+        /**
+         * Whether a plugin may define a class in the given package.
+         */
+        private boolean mayDefine(PluginWrapper p, String pkg) {
+            if (!PACKAGE_INDEX) {
+                return true;
+            }
+            Set<String> s = packagesOf(p);
+            return s == ANY_PACKAGE || s.contains(pkg);
+        }
+
         @Override
         protected Class<?> findClass(String name) throws ClassNotFoundException {
             WeakReference<Class> wc = generatedClasses.get(name);
@@ -2134,31 +2257,29 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
             if (name.startsWith("SimpleTemplateScript")) { // cf. groovy.text.SimpleTemplateEngine
                 throw new ClassNotFoundException("ignoring " + name);
             }
-            synchronized (loaded) {
-                if (loaded.containsKey(name)) {
-                    Class<?> c = loaded.get(name);
-                    if (c != null) {
-                        return c;
-                    } else {
-                        throw new ClassNotFoundException("cached miss for " + name);
-                    }
+            Optional<Class<?>> cached = loaded.get(name);
+            if (cached != null) {
+                if (cached.isPresent()) {
+                    return cached.get();
+                } else {
+                    throw new ClassNotFoundException("cached miss for " + name);
                 }
             }
             if (FAST_LOOKUP) {
+                String pkg = PluginPackages.packageOf(name);
                 for (PluginWrapper p : activePlugins) {
+                    if (!mayDefine(p, pkg)) {
+                        continue;
+                    }
                     try {
                         Class<?> c = ClassLoaderReflectionToolkit._findLoadedClass(p.classLoader, name);
                         if (c != null) {
-                            synchronized (loaded) {
-                                loaded.put(name, c);
-                            }
+                            loaded.put(name, Optional.of(c));
                             return c;
                         }
                         // calling findClass twice appears to cause LinkageError: duplicate class def
                         c = ClassLoaderReflectionToolkit._findClass(p.classLoader, name);
-                        synchronized (loaded) {
-                            loaded.put(name, c);
-                        }
+                        loaded.put(name, Optional.of(c));
                         return c;
                     } catch (ClassNotFoundException e) {
                         //not found. try next
@@ -2173,9 +2294,7 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
                     }
                 }
             }
-            synchronized (loaded) {
-                loaded.put(name, null);
-            }
+            loaded.put(name, Optional.empty());
             // not found in any of the classloader. delegate.
             ClassNotFoundException cnfe = new ClassNotFoundException(name);
             MissingClassTelemetry.reportException(name, cnfe);
@@ -2223,6 +2342,22 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
     }
     public static boolean FAST_LOOKUP = !SystemProperties.getBoolean(PluginManager.class.getName()+".noFastLookup");
 
+    /**
+     * Whether {@link UberClassLoader} only looks for a class in the plugins that have classes in its package.
+     */
+    @Restricted(NoExternalUse.class)
+    public static /* Script Console modifiable */ boolean PACKAGE_INDEX = SystemProperties.getBoolean(PluginManager.class.getName() + ".packageIndex", true);
+
+    private static final Set<String> ANY_PACKAGE = Collections.singleton("*");
+
+    /**
+     * Whether plugins are loaded and initialized in parallel, each one after its dependencies,
+     * rather than one after the other.
+     * Inspecting plugins (exploding them and creating their class loaders) is always done in parallel.
+     */
+    @Restricted(NoExternalUse.class)
+    public static boolean PARALLEL_START = SystemProperties.getBoolean(PluginManager.class.getName() + ".parallelStart");
+
     /** @deprecated in Jenkins 2.222 use {@link Jenkins#ADMINISTER} instead */
     @Deprecated
     public static final Permission UPLOAD_PLUGINS = new Permission(Jenkins.PERMISSIONS, "UploadPlugins", Messages._PluginManager_UploadPluginsPermission_Description(),Jenkins.ADMINISTER,PermissionScope.JENKINS);
@@ -2231,6 +2366,75 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
     @Deprecated
     public static final Permission CONFIGURE_UPDATECENTER = new Permission(Jenkins.PERMISSIONS, "ConfigureUpdateCenter", Messages._PluginManager_ConfigureUpdateCenterPermission_Description(),Jenkins.ADMINISTER,PermissionScope.JENKINS);
 
+    /**
+     * How long a plugin took to start.
+     * @since TODO
+     */
+    @Restricted(NoExternalUse.class)
+    public static final class StartupTiming {
+        private final String shortName;
+        volatile long prepare, start, postInitialize;
+        volatile Unpacking unpacking;
+
+        StartupTiming(String shortName) {
+            this.shortName = shortName;
+        }
+
+        public String getShortName() {
+            return shortName;
+        }
+
+        /**
+         * Milliseconds spent exploding the plugin, reading its manifest and creating its class loader.
+         */
+        public long getPrepare() {
+            return TimeUnit.NANOSECONDS.toMillis(prepare);
+        }
+
+        /**
+         * Whether the archive had to be exploded, or was found up to date or with the same content.
+         */
+        public @CheckForNull Unpacking getUnpacking() {
+            return unpacking;
+        }
+
+        /**
+         * How the archive of a plugin was unpacked.
+         */
+        public enum Unpacking {
+            /**
+             * The exploded directory was as recent as the archive.
+             */
+            UP_TO_DATE,
+            /**
+             * The archive is newer, but has the same content as the one the directory was exploded from.
+             */
+            SAME_CONTENT,
+            /**
+             * The archive was exploded.
+             */
+            EXPLODED
+        }
+
+        /**
+         * Milliseconds spent loading the plugin class and running {@link Plugin#start}.
+         */
+        public long getStart() {
+            return TimeUnit.NANOSECONDS.toMillis(start);
+        }
+
+        /**
+         * Milliseconds spent in {@link Plugin#postInitialize}.
+         */
+        public long getPostInitialize() {
+            return TimeUnit.NANOSECONDS.toMillis(postInitialize);
+        }
+
+        public long getTotal() {
+            return TimeUnit.NANOSECONDS.toMillis(prepare + start + postInitialize);
+        }
+    }
+
     /**
      * Remembers why a plugin failed to deploy.
      */
@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import jenkins.util.AntClassLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Lists the packages a plugin class loader defines classes in,
+ * so that {@link PluginManager.UberClassLoader} only asks the plugins that may have a class.
+ */
+final class PluginPackages {
+
+    private static final Logger LOGGER = Logger.getLogger(PluginPackages.class.getName());
+
+    private PluginPackages() {}
+
+    /**
+     * Lists the packages of the classes in the jars and directories of a plugin class loader.
+     *
+     * @return the package names, or null if the class loader does not tell where it loads classes from,
+     *         or some of it could not be read, in which case it may have any class
+     */
+    static @CheckForNull Set<String> of(ClassLoader loader) {
+        if (!(loader instanceof AntClassLoader)) {
+            return null;
+        }
+        Set<String> packages = new HashSet<>();
+        for (String path : ((AntClassLoader) loader).getClasspath().split(File.pathSeparator)) {
+            if (path.isEmpty()) {
+                continue;
+            }
+            File f = new File(path);
+            try {
+                if (f.isDirectory()) {
+                    Path root = f.toPath();
+                    try (Stream<Path> classes = Files.walk(root)) {
+                        classes.map(p -> root.relativize(p).toString().replace(File.separatorChar, '/')).forEach(n -> add(packages, n));
+                    }
+                } else if (f.isFile()) {
+                    try (JarFile jar = new JarFile(f)) {
+                        for (Enumeration<JarEntry> e = jar.entries(); e.hasMoreElements(); ) {
+                            add(packages, e.nextElement().getName());
+                        }
+                    }
+                }
+            } catch (IOException | RuntimeException x) {
+                LOGGER.log(Level.WARNING, "Failed to list the classes in " + f, x);
+                return null;
+            }
+        }
+        return packages;
+    }
+
+    private static void add(Set<String> packages, String entry) {
+        if (!entry.endsWith(".class") || entry.startsWith("META-INF/")) {
+            return;
+        }
+        int slash = entry.lastIndexOf('/');
+        packages.add(slash < 0 ? "" : entry.substring(0, slash).replace('/', '.'));
+    }
+
+    /**
+     * Gets the package of a class name, the same way as {@link #of}.
+     */
+    static String packageOf(String className) {
+        int dot = className.lastIndexOf('.');
+        return dot < 0 ? "" : className.substring(0, dot);
+    }
+}
@@ -39,6 +39,7 @@ import hudson.model.queue.WorkUnit;
 import hudson.security.ACLContext;
 import hudson.security.AccessControlled;
 import hudson.security.ACL;
+import hudson.security.ACLBatch;
 import hudson.util.AlternativeUiTextProvider;
 import hudson.util.AlternativeUiTextProvider.Message;
 import hudson.util.AtomicFileWriter;
@@ -598,7 +599,7 @@ public abstract class AbstractItem extends Actionable implements Item, HttpDelet
      * Returns the {@link ACL} for this object.
      */
     public ACL getACL() {
-        return Jenkins.get().getAuthorizationStrategy().getACL(this);
+        return ACLBatch.getACL(this, () -> Jenkins.get().getAuthorizationStrategy().getACL(this));
     }
 
     /**
@@ -74,6 +74,9 @@ public abstract class Actionable extends AbstractModelObject implements ModelObj
     @Deprecated
     @NonNull
     public List<Action> getActions() {
+        if (actions instanceof LazyActions) {
+            loadActions();
+        }
         //this double checked synchronization is only safe if the field 'actions' is volatile
         if (actions == null) {
             synchronized (this) {
@@ -94,7 +97,13 @@ public abstract class Actionable extends AbstractModelObject implements ModelObj
     @Exported(name="actions")
     @NonNull
     public final List<? extends Action> getAllActions() {
-        List<Action> _actions = getActions();
+        return withTransientActions(getActions());
+    }
+
+    /**
+     * Adds the actions of all {@link TransientActionFactory}s to persisted ones.
+     */
+    private List<? extends Action> withTransientActions(List<Action> _actions) {
         boolean adding = false;
         for (TransientActionFactory<?> taf : TransientActionFactory.factoriesFor(getClass(), Action.class)) {
             Collection<? extends Action> additions = createFor(taf);
@@ -134,7 +143,7 @@ public abstract class Actionable extends AbstractModelObject implements ModelObj
      */
     @NonNull
     public <T extends Action> List<T> getActions(Class<T> type) {
-        List<T> _actions = Util.filter(getActions(), type);
+        List<T> _actions = Util.filter(getPersistedActions(type), type);
         for (TransientActionFactory<?> taf : TransientActionFactory.factoriesFor(getClass(), type)) {
             _actions.addAll(Util.filter(createFor(taf), type));
         }
@@ -313,7 +322,7 @@ public abstract class Actionable extends AbstractModelObject implements ModelObj
     @Deprecated
     public Action getAction(int index) {
         if(actions==null)   return null;
-        return actions.get(index);
+        return getActions().get(index);
     }
 
     /**
@@ -325,7 +334,7 @@ public abstract class Actionable extends AbstractModelObject implements ModelObj
      */
     public <T extends Action> T getAction(Class<T> type) {
         // Shortcut: if the persisted list has one, return it.
-        for (Action a : getActions()) {
+        for (Action a : getPersistedActions(type)) {
             if (type.isInstance(a)) {
                 return type.cast(a);
             }
@@ -341,6 +350,88 @@ public abstract class Actionable extends AbstractModelObject implements ModelObj
         return null;
     }
 
+    /**
+     * Persisted actions among which to look for those of the given type.
+     * When actions were left serialized (see {@link LazyActions}), only those that may be of that type get deserialized.
+     */
+    private List<Action> getPersistedActions(Class<?> type) {
+        CopyOnWriteArrayList<Action> a = actions;
+        if (a instanceof LazyActions && ((LazyActions) a).isSelfContained() && ((LazyActions) a).getOwner() == this
+                && !OVERRIDES_GET_ACTIONS.get(getClass())) {
+            LazyActions lazy = (LazyActions) a;
+            List<Action> loaded;
+            synchronized (this) {
+                loaded = lazy.load(type);
+            }
+            for (Action l : loaded) {
+                onActionLoaded(l);
+            }
+            if (actions == lazy) {
+                return lazy.getLoaded();
+            }
+        }
+        return getActions();
+    }
+
+    /**
+     * Actions as {@link #getAllActions}, except that actions left serialized (see {@link LazyActions}) are left out.
+     */
+    /*package*/ List<? extends Action> getLoadedActions() {
+        CopyOnWriteArrayList<Action> a = actions;
+        if (a instanceof LazyActions) {
+            return withTransientActions(((LazyActions) a).getLoaded());
+        }
+        return getAllActions();
+    }
+
+    /**
+     * Deserializes the actions that were left serialized, if any.
+     */
+    private void loadActions() {
+        List<Action> loaded;
+        synchronized (this) {
+            CopyOnWriteArrayList<Action> a = actions;
+            if (!(a instanceof LazyActions)) {
+                return;
+            }
+            LazyActions lazy = (LazyActions) a;
+            if (lazy.isSelfContained() || lazy.getOwner() != this) {
+                loaded = lazy.loadAll();
+                actions = lazy.toLoadedList();
+            } else {
+                // the owner is a Run, that is this
+                ((Run<?, ?>) this).reloadActions(lazy.getSerialized());
+                if (actions == lazy) { // deserializing failed altogether
+                    actions = new CopyOnWriteArrayList<>();
+                }
+                loaded = new ArrayList<>(actions);
+            }
+        }
+        for (Action l : loaded) {
+            onActionLoaded(l);
+        }
+    }
+
+    /**
+     * Called when an action that was left serialized is deserialized.
+     */
+    /*package*/ void onActionLoaded(Action a) {
+    }
+
+    /**
+     * Whether a class overrides {@link #getActions()}, in which case the persisted actions cannot be looked at directly.
+     */
+    private static final ClassValue<Boolean> OVERRIDES_GET_ACTIONS = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("getActions").getDeclaringClass() != Actionable.class;
+            } catch (NoSuchMethodException e) {
+                return true;
+            }
+        }
+    };
+
     public Object getDynamic(String token, StaplerRequest req, StaplerResponse rsp) {
         for (Action a : getAllActions()) {
             if(a==null)
@@ -27,6 +27,7 @@ import hudson.ExtensionList;
 import jenkins.util.xml.FilteredFunctionContext;
 import jenkins.model.Jenkins;
 import jenkins.security.SecureRequester;
+import jenkins.util.SystemProperties;
 
 import org.dom4j.CharacterData;
 import org.dom4j.Document;
@@ -45,15 +46,30 @@ import org.kohsuke.stapler.export.TreePruner.ByDepth;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletResponse;
 import javax.xml.transform.stream.StreamResult;
+import java.io.FilterWriter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
 
@@ -100,6 +116,9 @@ public class Api extends AbstractModelObject {
 
         if(xpath==null && excludes==null) {
             // serve the whole thing
+            if (ApiResponseCache.isCacheable(bean, req) && ApiResponseCache.serve(req, rsp, bean, Flavor.XML)) {
+                return;
+            }
             rsp.serveExposedBean(req,bean,Flavor.XML);
             return;
         }
@@ -109,6 +128,8 @@ public class Api extends AbstractModelObject {
         // first write to String
         Model p = MODEL_BUILDER.get(bean.getClass());
         TreePruner pruner = (tree!=null) ? new NamedPathPruner(tree) : new ByDepth(1 - depth);
+        // leave out what the XPath cannot select or the exclusions would remove anyway, so that the DOM stays small
+        pruner = PathPruner.create(p, bean, pruner, xpath, excludes);
         p.writeTo(bean,pruner,Flavor.XML.createDataWriter(bean,sw));
 
         // apply XPath
@@ -220,7 +241,14 @@ public class Api extends AbstractModelObject {
     public void doJson(StaplerRequest req, StaplerResponse rsp) throws IOException, ServletException {
         if (req.getParameter("jsonp") == null || permit(req)) {
             setHeaders(rsp);
-            rsp.serveExposedBean(req,bean, req.getParameter("jsonp") == null ? Flavor.JSON : Flavor.JSONP);
+            if (ApiResponseCache.isCacheable(bean, req) && ApiResponseCache.serve(req, rsp, bean, Flavor.JSON)) {
+                return;
+            }
+            Flavor flavor = req.getParameter("jsonp") == null ? Flavor.JSON : Flavor.JSONP;
+            if (serveStreaming(req, rsp, flavor)) {
+                return;
+            }
+            rsp.serveExposedBean(req,bean, flavor);
         } else {
             rsp.sendError(HttpURLConnection.HTTP_FORBIDDEN, "jsonp forbidden; implement jenkins.security.SecureRequester");
         }
@@ -234,6 +262,59 @@ public class Api extends AbstractModelObject {
         rsp.serveExposedBean(req,bean, Flavor.PYTHON);
     }
 
+    /**
+     * Writes the bean straight to the response, flushing it after elements of the top-level properties
+     * (such as the jobs of {@link Jenkins}) every {@link #FLUSH_THRESHOLD} characters or so.
+     * Clients thus start receiving (chunked) data right away, and the output is never held in memory as a whole.
+     *
+     * @return false if the request has to be served by {@link StaplerResponse#serveExposedBean} instead,
+     *      in which case nothing has been written
+     */
+    private boolean serveStreaming(StaplerRequest req, StaplerResponse rsp, Flavor flavor) throws IOException {
+        if (!STREAMING || req.getParameter("pretty") != null || bean instanceof Object[]) {
+            return false;
+        }
+        TreePruner pruner;
+        try {
+            pruner = createPruner(req.getParameter("tree"), req.getParameter("depth"));
+        } catch (IllegalArgumentException e) {
+            return false;   // let Stapler report the error
+        }
+        String pad = flavor == Flavor.JSONP ? req.getParameter("jsonp") : null;
+
+        rsp.setContentType(flavor.contentType);
+        OutputStream out = rsp.getOutputStream();
+        String acceptEncoding = req.getHeader("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            rsp.setHeader("Content-Encoding", "gzip");
+            // unlike StaplerResponse.getCompressedWriter, sync flushing, so that each flush sends what was compressed so far
+            out = new GZIPOutputStream(out, 8192, true);
+        }
+        try (CountingWriter w = new CountingWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            if (pad != null) {
+                w.write(pad + '(');
+            }
+            Model p = MODEL_BUILDER.get(bean.getClass());
+            p.writeTo(bean, pruner, new FlushingDataWriter(flavor.createDataWriter(bean, w), w));
+            if (pad != null) {
+                w.write(')');
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the pruner for the {@code tree} and {@code depth} parameters the same way Stapler does.
+     *
+     * @throws IllegalArgumentException if either is malformed
+     */
+    /*package*/ static TreePruner createPruner(@CheckForNull String tree, @CheckForNull String depth) {
+        if (tree != null) {
+            return new NamedPathPruner(tree);
+        }
+        return new ByDepth(1 - (depth != null ? Integer.parseInt(depth) : 0));
+    }
+
     private boolean permit(StaplerRequest req) {
         for (SecureRequester r : ExtensionList.lookup(SecureRequester.class)) {
             if (r.permit(req, bean)) {
@@ -253,6 +334,313 @@ public class Api extends AbstractModelObject {
         rsp.setHeader("X-Frame-Options", "deny");
     }
 
+    /**
+     * {@link TreePruner} that prunes the exported tree according to simple {@code xpath} and {@code exclude} parameters
+     * while it is being written, on top of the {@code tree}/{@code depth} pruning.
+     *
+     * <p>
+     * Only location paths made of element names (such as {@code /hudson/job/name}, or {@code //action} for exclusions)
+     * are understood; other expressions are ignored here. Either way the actual XPath evaluation still happens
+     * on the resulting DOM, so this pruner only ever leaves out elements that the XPath would not select or would
+     * remove. Whenever the element name of a property cannot be told for sure, the property is kept.
+     */
+    /*package*/ static final class PathPruner extends TreePruner {
+        private static final Pattern SIMPLE_PATH = Pattern.compile("/?(\\w+|\\*)(/(\\w+|\\*))*");
+        private static final Pattern DESCENDANT = Pattern.compile("//\\w+");
+        private static final Pattern NAME = Pattern.compile("[A-Za-z_]\\w*");
+
+        private final TreePruner base;
+        /**
+         * Remaining element names the XPath needs to go through, or null if anything can be selected from here on.
+         */
+        private final @CheckForNull List<String> keep;
+        /**
+         * Remaining element names of each exclusion that matched so far.
+         */
+        private final List<List<String>> excludes;
+        /**
+         * Element names excluded wherever they appear.
+         */
+        private final Set<String> anywhere;
+
+        private PathPruner(TreePruner base, @CheckForNull List<String> keep, List<List<String>> excludes, Set<String> anywhere) {
+            this.base = base;
+            this.keep = keep;
+            this.excludes = excludes;
+            this.anywhere = anywhere;
+        }
+
+        /**
+         * Wraps the given pruner if any of the given expressions can be applied while exporting.
+         */
+        static TreePruner create(Model model, Object bean, TreePruner base, @CheckForNull String xpath, @CheckForNull String[] excludes) {
+            String root = null;
+            List<String> keep = null;
+            if (xpath != null && SIMPLE_PATH.matcher(xpath).matches()) {
+                root = rootName(model, bean);
+                keep = split(xpath);
+                if (!matches(keep.get(0), root)) {
+                    // the XPath cannot select anything, so export as little as possible
+                    return NOTHING;
+                }
+                keep = keep.subList(1, keep.size());
+                if (keep.isEmpty()) {
+                    keep = null;
+                }
+            }
+
+            List<List<String>> ex = new ArrayList<>();
+            Set<String> anywhere = new HashSet<>();
+            if (excludes != null) {
+                for (String exclude : excludes) {
+                    if (DESCENDANT.matcher(exclude).matches()) {
+                        anywhere.add(exclude.substring(2));
+                    } else if (SIMPLE_PATH.matcher(exclude).matches()) {
+                        if (root == null) {
+                            root = rootName(model, bean);
+                        }
+                        List<String> path = split(exclude);
+                        if (matches(path.get(0), root) && path.size() > 1) {
+                            ex.add(path.subList(1, path.size()));
+                        }
+                    }
+                }
+            }
+
+            if (keep == null && ex.isEmpty() && anywhere.isEmpty()) {
+                return base;
+            }
+            return new PathPruner(base, keep, ex, anywhere);
+        }
+
+        @Override
+        public TreePruner accept(Object node, Property prop) {
+            TreePruner child = base.accept(node, prop);
+            if (child == null) {
+                return null;
+            }
+            if (prop.merge) {
+                // properties of the value become properties of this element; too subtle to follow, so stop here
+                return child;
+            }
+            String name = elementName(prop);
+
+            List<String> childKeep = null;
+            if (keep != null) {
+                if (name != null && !matches(keep.get(0), name)) {
+                    return null;    // not on the way to what the XPath selects
+                }
+                childKeep = keep.size() > 1 ? keep.subList(1, keep.size()) : null;
+            }
+
+            if (name == null) {
+                // cannot tell which exclusions apply to the descendants; let the DOM take care of them
+                return childKeep == null ? child : new PathPruner(child, childKeep, Collections.emptyList(), Collections.emptySet());
+            }
+            if (anywhere.contains(name)) {
+                return null;
+            }
+            List<List<String>> childExcludes = new ArrayList<>();
+            for (List<String> e : excludes) {
+                if (matches(e.get(0), name)) {
+                    if (e.size() == 1) {
+                        return null;    // excluded
+                    }
+                    childExcludes.add(e.subList(1, e.size()));
+                }
+            }
+            if (childKeep == null && childExcludes.isEmpty() && anywhere.isEmpty()) {
+                return child;
+            }
+            return new PathPruner(child, childKeep, childExcludes, anywhere);
+        }
+
+        @Override
+        public Range getRange() {
+            return base.getRange();
+        }
+
+        private static boolean matches(String step, String name) {
+            return step.equals("*") || step.equals(name);
+        }
+
+        private static List<String> split(String path) {
+            return Arrays.asList((path.startsWith("/") ? path.substring(1) : path).split("/"));
+        }
+
+        /**
+         * Name of the root element the bean is written as, found by exporting nothing but the root.
+         */
+        private static String rootName(Model model, Object bean) {
+            try {
+                StringWriter w = new StringWriter();
+                model.writeTo(bean, NOTHING, Flavor.XML.createDataWriter(bean, w));
+                Matcher m = ROOT.matcher(w.toString());
+                return m.find() ? m.group(1) : "";
+            } catch (IOException e) {
+                return "";
+            }
+        }
+
+        /**
+         * Exports nothing but the root element.
+         */
+        private static final TreePruner NOTHING = new TreePruner() {
+            @Override
+            public TreePruner accept(Object node, Property prop) {
+                return null;
+            }
+        };
+
+        private static final Pattern ROOT = Pattern.compile("<([^\\s/>?!]+)[\\s/>]");
+
+        /**
+         * Name of the element(s) the given property is written as, or null if that cannot be told from its type.
+         * Collections and arrays are written as one element per item, named after the singular of the property name.
+         */
+        private static @CheckForNull String elementName(Property prop) {
+            if (!NAME.matcher(prop.name).matches()) {
+                return null;
+            }
+            Class<?> t = prop.getType();
+            if (t.isArray() || Collection.class.isAssignableFrom(t)) {
+                if (prop.name.endsWith("ies")) {
+                    return null;    // not sure how these get singularized
+                }
+                return prop.name.endsWith("s") ? prop.name.substring(0, prop.name.length() - 1) : prop.name;
+            }
+            if (t == Object.class || Iterable.class.isAssignableFrom(t) || Map.class.isAssignableFrom(t)) {
+                return null;
+            }
+            return prop.name;
+        }
+    }
+
+    /**
+     * {@link Writer} that keeps track of how much was written since it was last flushed.
+     */
+    private static final class CountingWriter extends FilterWriter {
+        private long count;
+
+        CountingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            super.write(c);
+            count++;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            super.write(cbuf, off, len);
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            super.write(str, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            super.flush();
+            count = 0;
+        }
+    }
+
+    /**
+     * {@link DataWriter} that flushes the output once a large enough top-level element has been written.
+     */
+    private static final class FlushingDataWriter implements DataWriter {
+        private final DataWriter out;
+        private final CountingWriter w;
+        /**
+         * Number of objects and arrays currently open; the root object is 1.
+         */
+        private int depth;
+
+        FlushingDataWriter(DataWriter out, CountingWriter w) {
+            this.out = out;
+            this.w = w;
+        }
+
+        @Override
+        public void name(String name) throws IOException {
+            out.name(name);
+        }
+
+        @Override
+        public void valuePrimitive(Object v) throws IOException {
+            out.valuePrimitive(v);
+            maybeFlush();
+        }
+
+        @Override
+        public void value(String v) throws IOException {
+            out.value(v);
+            maybeFlush();
+        }
+
+        @Override
+        public void valueNull() throws IOException {
+            out.valueNull();
+            maybeFlush();
+        }
+
+        @Override
+        public void startArray() throws IOException {
+            out.startArray();
+            depth++;
+        }
+
+        @Override
+        public void endArray() throws IOException {
+            out.endArray();
+            depth--;
+            maybeFlush();
+        }
+
+        @Override
+        public void type(Type expected, Class actual) throws IOException {
+            out.type(expected, actual);
+        }
+
+        @Override
+        public void startObject() throws IOException {
+            out.startObject();
+            depth++;
+        }
+
+        @Override
+        public void endObject() throws IOException {
+            out.endObject();
+            depth--;
+            maybeFlush();
+        }
+
+        private void maybeFlush() throws IOException {
+            // only between elements of the top-level properties, so that chunks are not cut at random places
+            if (depth <= 2 && w.count >= FLUSH_THRESHOLD) {
+                w.flush();
+            }
+        }
+    }
+
+    /**
+     * Whether JSON responses are written directly to the client, rather than by Stapler.
+     */
+    @Restricted(NoExternalUse.class)
+    public static /* Script Console modifiable */ boolean STREAMING = SystemProperties.getBoolean(Api.class.getName() + ".streaming", true);
+
+    /**
+     * Approximate number of characters after which streamed responses are flushed.
+     */
+    @Restricted(NoExternalUse.class)
+    public static /* Script Console modifiable */ int FLUSH_THRESHOLD = SystemProperties.getInteger(Api.class.getName() + ".flushThreshold", 8192);
+
     private static final Logger LOGGER = Logger.getLogger(Api.class.getName());
     private static final ModelBuilder MODEL_BUILDER = new ModelBuilder();
 
@@ -0,0 +1,391 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.model;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.Util;
+import hudson.XmlFile;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.model.queue.QueueListener;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.export.Flavor;
+import org.kohsuke.stapler.export.Model;
+import org.kohsuke.stapler.export.ModelBuilder;
+import org.kohsuke.stapler.export.TreePruner;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the rendered XML/JSON of {@link Api#doXml} and {@link Api#doJson} for the beans that get polled the most,
+ * namely {@link Jenkins} and {@link View}, and answers {@code If-None-Match} with 304.
+ *
+ * <p>
+ * Entries are keyed by the bean, the flavor, the {@code tree}/{@code depth} parameters, the name and authorities of the
+ * current user, since the output depends on what that user may see, as well as the root URL and the locale the response
+ * was rendered for, as both appear in exported values. They are dropped as soon as an item, a build,
+ * or the queue changes, or anything gets saved; since some exported values change without any such event,
+ * an entry also expires after {@link #TTL} milliseconds regardless.
+ *
+ * <p>
+ * The {@code ETag} is derived from the content, so clients can get a 304 even after the entry was rebuilt,
+ * as long as what they would see did not change.
+ *
+ * <p>
+ * The cache is off unless {@link #ENABLED} is set, and holds at most {@link #MAX_BYTES} of responses.
+ */
+@Restricted(NoExternalUse.class)
+public final class ApiResponseCache {
+
+    /**
+     * Incremented whenever something happened that may change any cached response.
+     */
+    private static final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Least recently used first.
+     */
+    private static final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Total size of the {@link Entry#content} of {@link #entries}.
+     */
+    private static long bytes;
+
+    private static final ModelBuilder MODEL_BUILDER = new ModelBuilder();
+
+    private ApiResponseCache() {}
+
+    /**
+     * Whether responses about the given bean can be served from the cache.
+     * The {@code pretty} option and JSONP are not handled here.
+     */
+    /*package*/ static boolean isCacheable(Object bean, StaplerRequest req) {
+        return ENABLED && (bean instanceof Jenkins || bean instanceof View)
+                && req.getParameter("pretty") == null && req.getParameter("jsonp") == null;
+    }
+
+    /**
+     * Serves the bean, either from the cache or by exporting it (and caching the result).
+     *
+     * @return false if the request could not be handled here (such as a malformed {@code tree}),
+     *      in which case nothing has been written and the caller should serve the bean as usual
+     */
+    /*package*/ static boolean serve(StaplerRequest req, StaplerResponse rsp, Object bean, Flavor flavor) throws IOException {
+        String tree = req.getParameter("tree");
+        String depth = req.getParameter("depth");
+        Key key = new Key(bean, flavor, tree, depth, Jenkins.getAuthentication2(), Jenkins.get().getRootUrl(), req.getLocale());
+
+        Entry e = get(key);
+        if (e == null) {
+            TreePruner pruner;
+            try {
+                pruner = Api.createPruner(tree, depth);
+            } catch (IllegalArgumentException x) {
+                return false;   // let Stapler report the error
+            }
+            long g = generation.get();
+            StringWriter w = new StringWriter();
+            Model p = MODEL_BUILDER.get(bean.getClass());
+            p.writeTo(bean, pruner, flavor.createDataWriter(bean, w));
+            e = new Entry(w.toString().getBytes(StandardCharsets.UTF_8), flavor.contentType, g);
+            put(key, e);
+        }
+
+        rsp.setHeader("ETag", e.etag);
+        if (matches(req.getHeader("If-None-Match"), e.etag)) {
+            rsp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+        rsp.setContentType(e.contentType);
+        try (OutputStream o = rsp.getCompressedOutputStream(req)) {
+            o.write(e.content);
+        }
+        return true;
+    }
+
+    /**
+     * Drops all the cached responses.
+     */
+    public static void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /*package*/ static void clear() {
+        synchronized (entries) {
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    /*package*/ static int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static @CheckForNull Entry get(Key key) {
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e == null) {
+                return null;
+            }
+            if (e.generation != generation.get() || System.currentTimeMillis() - e.created > TTL) {
+                entries.remove(key);
+                bytes -= e.content.length;
+                return null;
+            }
+            return e;
+        }
+    }
+
+    private static void put(Key key, Entry e) {
+        if (e.content.length > MAX_BYTES) {
+            return;
+        }
+        synchronized (entries) {
+            Entry old = entries.put(key, e);
+            if (old != null) {
+                bytes -= old.content.length;
+            }
+            bytes += e.content.length;
+            for (Iterator<Entry> it = entries.values().iterator(); bytes > MAX_BYTES && it.hasNext(); ) {
+                bytes -= it.next().content.length;
+                it.remove();
+            }
+        }
+    }
+
+    private static boolean matches(@CheckForNull String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Key {
+        /**
+         * Compared by identity.
+         */
+        private final Object bean;
+        private final Flavor flavor;
+        private final String tree, depth, user;
+        private final Set<String> authorities;
+        private final String rootUrl;
+        private final Locale locale;
+
+        Key(Object bean, Flavor flavor, String tree, String depth, Authentication user, String rootUrl, Locale locale) {
+            this.bean = bean;
+            this.flavor = flavor;
+            this.tree = tree;
+            this.depth = depth;
+            this.user = user.getName();
+            this.authorities = new HashSet<>();
+            for (GrantedAuthority a : user.getAuthorities()) {
+                this.authorities.add(a.getAuthority());
+            }
+            this.rootUrl = rootUrl;
+            this.locale = locale;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key that = (Key) o;
+            return bean == that.bean && flavor == that.flavor && Objects.equals(tree, that.tree)
+                    && Objects.equals(depth, that.depth) && Objects.equals(user, that.user)
+                    && authorities.equals(that.authorities) && Objects.equals(rootUrl, that.rootUrl) && Objects.equals(locale, that.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(bean), flavor, tree, depth, user, rootUrl, locale);
+        }
+    }
+
+    private static final class Entry {
+        final byte[] content;
+        final String contentType;
+        final String etag;
+        final long generation;
+        final long created = System.currentTimeMillis();
+
+        Entry(byte[] content, String contentType, long generation) {
+            this.content = content;
+            this.contentType = contentType;
+            this.generation = generation;
+            this.etag = etagOf(content);
+        }
+    }
+
+    private static @NonNull String etagOf(byte[] content) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            // weak, since the representation may still be compressed differently
+            return "W/\"" + Util.toHexString(md.digest(content)).substring(0, 32) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+        @Override
+        public void onCreated(Item item) {
+            invalidate();
+        }
+
+        @Override
+        public void onCopied(Item src, Item item) {
+            invalidate();
+        }
+
+        @Override
+        public void onLoaded() {
+            invalidate();
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            invalidate();
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            invalidate();
+        }
+
+        @Override
+        public void onUpdated(Item item) {
+            invalidate();
+        }
+    }
+
+    @Extension
+    public static final class RunListenerImpl extends RunListener<Run<?, ?>> {
+        @Override
+        public void onInitialize(Run<?, ?> r) {
+            invalidate();
+        }
+
+        @Override
+        public void onStarted(Run<?, ?> r, TaskListener listener) {
+            invalidate();
+        }
+
+        @Override
+        public void onCompleted(Run<?, ?> r, @NonNull TaskListener listener) {
+            invalidate();
+        }
+
+        @Override
+        public void onFinalized(Run<?, ?> r) {
+            invalidate();
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> r) {
+            invalidate();
+        }
+    }
+
+    @Extension
+    public static final class QueueListenerImpl extends QueueListener {
+        @Override
+        public void onEnterWaiting(Queue.WaitingItem wi) {
+            invalidate();
+        }
+
+        @Override
+        public void onEnterBlocked(Queue.BlockedItem bi) {
+            invalidate();
+        }
+
+        @Override
+        public void onEnterBuildable(Queue.BuildableItem bi) {
+            invalidate();
+        }
+
+        @Override
+        public void onLeft(Queue.LeftItem li) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Catches configuration changes of views, nodes, and {@link Jenkins} itself.
+     */
+    @Extension
+    public static final class SaveableListenerImpl extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Whether {@link Api} responses are cached at all.
+     */
+    public static /* Script Console modifiable */ boolean ENABLED = SystemProperties.getBoolean(ApiResponseCache.class.getName() + ".enabled");
+
+    /**
+     * Number of milliseconds a cached response is used at most, even if no change was noticed.
+     */
+    public static /* Script Console modifiable */ long TTL = SystemProperties.getLong(ApiResponseCache.class.getName() + ".ttl", 10 * 1000L);
+
+    /**
+     * Maximum number of bytes of cached responses. Larger responses are not cached.
+     */
+    public static /* Script Console modifiable */ long MAX_BYTES = SystemProperties.getLong(ApiResponseCache.class.getName() + ".maxBytes", 16 * 1024 * 1024L);
+}
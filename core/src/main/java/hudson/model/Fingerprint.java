@@ -39,6 +39,7 @@ import hudson.model.listeners.ItemListener;
 import hudson.security.ACL;
 import hudson.security.ACLContext;
 import hudson.util.HexBinaryConverter;
+import hudson.util.InterningStringConverter;
 import hudson.util.Iterators;
 import hudson.util.PersistedList;
 import hudson.util.RunList;
@@ -93,7 +94,7 @@ public class Fingerprint implements ModelObject, Saveable {
         final int number;
 
         public BuildPtr(String name, int number) {
-            this.name = name;
+            this.name = InterningStringConverter.intern(name);
             this.number = number;
         }
 
@@ -136,7 +137,7 @@ public class Fingerprint implements ModelObject, Saveable {
         
 
         void setName(String newName) {
-            name = newName;
+            name = InterningStringConverter.intern(newName);
         }
         
         /**
@@ -891,7 +892,7 @@ public class Fingerprint implements ModelObject, Saveable {
     Fingerprint(@CheckForNull BuildPtr original, @NonNull String fileName, @NonNull byte[] md5sum) {
         this.original = original;
         this.md5sum = md5sum;
-        this.fileName = fileName;
+        this.fileName = InterningStringConverter.intern(fileName);
         this.timestamp = new Date();
     }
 
@@ -1049,7 +1050,9 @@ public class Fingerprint implements ModelObject, Saveable {
             RangeSet r = usages.get(jobFullName);
             if(r==null) {
                 r = new RangeSet();
-                usages.put(jobFullName,r);
+                // the same job names come back in many fingerprints;
+                // interned weakly, so names no fingerprint uses any more are not kept
+                usages.put(InterningStringConverter.intern(jobFullName),r);
             }
             r.add(n);
         }
@@ -1320,7 +1323,7 @@ public class Fingerprint implements ModelObject, Saveable {
         if (usages != null) {
             RangeSet r = usages.get(oldName);
             if (r != null) {
-                usages.put(newName, r);
+                usages.put(InterningStringConverter.intern(newName), r);
                 usages.remove(oldName);
                 touched = true;
             }
@@ -30,6 +30,7 @@ import hudson.XmlFile;
 import hudson.model.listeners.ItemListener;
 import hudson.remoting.Callable;
 import hudson.security.ACL;
+import hudson.security.ACLBatch;
 import hudson.security.ACLContext;
 import hudson.security.AccessControlled;
 import hudson.triggers.Trigger;
@@ -51,6 +52,7 @@ import java.util.function.Predicate;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import jenkins.model.DirectlyModifiableTopLevelItemGroup;
+import jenkins.model.ItemPreloader;
 import jenkins.model.Jenkins;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
@@ -372,8 +374,10 @@ public class Items {
      *      The directory that contains the config file, not the config file itself.
      */
     public static Item load(ItemGroup parent, File dir) throws IOException {
-        Item item = (Item)getConfigFile(dir).read();
+        Item item = ItemPreloader.read(dir);
+        long start = System.nanoTime();
         item.onLoad(parent,dir.getName());
+        ItemPreloader.loaded(dir, System.nanoTime() - start);
         return item;
     }
 
@@ -422,21 +426,23 @@ public class Items {
      */
     public static <T extends Item> List<T> getAllItems(final ItemGroup root, Class<T> type, Predicate<T> pred) {
         List<T> r = new ArrayList<>();
-        getAllItems(root, type, r, pred);
+        try (ACLBatch batch = ACLBatch.open(Jenkins.getAuthentication2())) {
+            getAllItems(root, type, r, pred, batch);
+        }
         return r;
     }
-    private static <T extends Item> void getAllItems(final ItemGroup root, Class<T> type, List<T> r, Predicate<T> pred) {
+    private static <T extends Item> void getAllItems(final ItemGroup root, Class<T> type, List<T> r, Predicate<T> pred, ACLBatch batch) {
         List<Item> items = new ArrayList<>(((ItemGroup<?>) root).getItems(t -> t instanceof ItemGroup || (type.isInstance(t) && pred.test(type.cast(t)))));
         // because we add items depth first, we can use the quicker BY_NAME comparison
         items.sort(BY_NAME);
         for (Item i : items) {
             if (type.isInstance(i) && pred.test(type.cast(i))) {
-                if (i.hasPermission(Item.READ)) {
+                if (batch.hasPermission(i, Item.READ)) {
                     r.add(type.cast(i));
                 }
             }
             if (i instanceof ItemGroup) {
-                getAllItems((ItemGroup) i, type, r, pred);
+                getAllItems((ItemGroup) i, type, r, pred, batch);
             }
         }
     }
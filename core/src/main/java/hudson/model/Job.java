@@ -45,6 +45,7 @@ import hudson.search.SearchIndexBuilder;
 import hudson.search.SearchItem;
 import hudson.search.SearchItems;
 import hudson.security.ACL;
+import hudson.security.ACLBatch;
 import hudson.tasks.LogRotator;
 import hudson.util.AlternativeUiTextProvider;
 import hudson.util.ChartUtil;
@@ -1580,7 +1581,7 @@ public abstract class Job<JobT extends Job<JobT, RunT>, RunT extends Run<JobT, R
      */
     @Override
     public ACL getACL() {
-        return Jenkins.get().getAuthorizationStrategy().getACL(this);
+        return ACLBatch.getACL(this, () -> Jenkins.get().getAuthorizationStrategy().getACL(this));
     }
 
     public BuildTimelineWidget getTimeline() {
@@ -0,0 +1,398 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.model;
+
+import com.thoughtworks.xstream.XStreamException;
+import com.thoughtworks.xstream.converters.ConversionException;
+import com.thoughtworks.xstream.converters.DataHolder;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.core.util.HierarchicalStreams;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.diagnosis.OldDataMonitor;
+import hudson.util.RobustCollectionConverter;
+import hudson.util.XStream2;
+import jenkins.util.SystemProperties;
+import jenkins.util.xstream.XStreamDOM;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Actions of a {@link Run} as read from {@code build.xml}, kept serialized until they are asked for.
+ *
+ * <p>
+ * Most of the time a build is loaded, only a few of its actions are looked at, if any:
+ * rendering the build history needs its badges, and list views none at all.
+ * So the {@code <actions>} element of {@code build.xml} is kept as {@link XStreamDOM}s, one per action,
+ * and {@link Actionable} deserializes them when they are first asked for:
+ * only those that may be of the requested type for {@link Actionable#getAction(Class)} and {@link Actionable#getActions(Class)},
+ * all of them otherwise.
+ *
+ * <p>
+ * Actions referring to objects outside of themselves (such as an old action referring to the build)
+ * cannot be deserialized on their own. When there is any, all the actions are deserialized together
+ * into the build, as they would have been when it was loaded, the first time any of them is asked for.
+ *
+ * <p>
+ * Until then, this list is empty: it is only ever used as a value of {@link Actionable}'s field,
+ * which takes care of replacing it by the deserialized actions.
+ *
+ * <p>
+ * Actions that fail to deserialize are reported to {@link OldDataMonitor}, as {@link hudson.util.RobustReflectionConverter} would,
+ * and kept serialized, so that saving the build does not lose them.
+ *
+ * <p>
+ * Off unless {@link #ENABLED}.
+ *
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public final class LazyActions extends CopyOnWriteArrayList<Action> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = Logger.getLogger(LazyActions.class.getName());
+
+    /**
+     * Key of the {@link DataHolder} entry asking for actions to be deserialized right away.
+     */
+    static final String EAGER = LazyActions.class.getName() + ".eager";
+
+    private final transient XStream2 xs;
+    /**
+     * The build the actions were read for, to report errors against.
+     */
+    private final transient @CheckForNull Saveable owner;
+    /**
+     * Each action, either deserialized ({@link Action}), not yet ({@link XStreamDOM}) or failing to ({@link Unreadable}),
+     * in their original order.
+     */
+    private final transient List<Object> entries;
+    private final transient boolean selfContained;
+
+    private LazyActions(XStream2 xs, @CheckForNull Saveable owner, List<XStreamDOM> serialized) {
+        this.xs = xs;
+        this.owner = owner;
+        this.entries = new ArrayList<>(serialized);
+        boolean s = true;
+        for (XStreamDOM dom : serialized) {
+            s &= isSelfContained(dom, 0);
+        }
+        this.selfContained = s;
+    }
+
+    /**
+     * Whether no (relative XPath) reference in an element points outside of the action it is part of.
+     *
+     * @param depth how deep the element is in the action
+     */
+    private static boolean isSelfContained(XStreamDOM dom, int depth) {
+        String reference = dom.getAttribute("reference");
+        if (reference != null) {
+            if (reference.startsWith("/")) {
+                return false;
+            }
+            int up = 0;
+            for (String step : reference.split("/")) {
+                if (step.equals("..")) {
+                    up++;
+                }
+            }
+            if (up > depth) {
+                return false;
+            }
+        }
+        List<XStreamDOM> children = dom.getChildren();
+        if (children != null) {
+            for (XStreamDOM child : children) {
+                if (!isSelfContained(child, depth + 1)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether actions may be deserialized one by one.
+     * Otherwise they all need to be deserialized together, into the build they belong to.
+     */
+    boolean isSelfContained() {
+        return selfContained;
+    }
+
+    /**
+     * The build the actions were read for.
+     */
+    @CheckForNull Saveable getOwner() {
+        return owner;
+    }
+
+    /**
+     * Actions deserialized so far, in their original order.
+     */
+    synchronized List<Action> getLoaded() {
+        List<Action> r = new ArrayList<>(entries.size());
+        for (Object e : entries) {
+            if (e instanceof Action) {
+                r.add((Action) e);
+            }
+        }
+        return r;
+    }
+
+    /**
+     * All the actions, in their original order, serialized or not.
+     */
+    synchronized List<XStreamDOM> getSerialized() {
+        List<XStreamDOM> r = new ArrayList<>(entries.size());
+        for (Object e : entries) {
+            if (e instanceof XStreamDOM) {
+                r.add((XStreamDOM) e);
+            } else if (e instanceof Unreadable) {
+                r.add(((Unreadable) e).dom);
+            } else {
+                r.add(XStreamDOM.from(xs, e));
+            }
+        }
+        return r;
+    }
+
+    /**
+     * The deserialized actions, as the list to use once there is nothing left to deserialize.
+     * Actions that failed to deserialize are kept along, to be written back when the build is saved.
+     */
+    synchronized CopyOnWriteArrayList<Action> toLoadedList() {
+        List<XStreamDOM> unreadable = new ArrayList<>();
+        for (Object e : entries) {
+            if (e instanceof Unreadable) {
+                unreadable.add(((Unreadable) e).dom);
+            }
+        }
+        return unreadable.isEmpty() ? new CopyOnWriteArrayList<>(getLoaded()) : new WithUnreadable(getLoaded(), unreadable);
+    }
+
+    private synchronized List<Object> snapshot() {
+        return new ArrayList<>(entries);
+    }
+
+    /**
+     * Deserializes the actions that may be of the given type, one by one.
+     *
+     * @return the actions that just got deserialized
+     */
+    synchronized List<Action> load(Class<?> type) {
+        List<Action> loaded = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            Object e = entries.get(i);
+            if (e instanceof XStreamDOM && mayBe((XStreamDOM) e, type)) {
+                load(i, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Deserializes all the remaining actions, one by one.
+     *
+     * @return the actions that just got deserialized
+     */
+    synchronized List<Action> loadAll() {
+        List<Action> loaded = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i) instanceof XStreamDOM) {
+                load(i, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Deserializes the action at the given index, or marks it as {@link Unreadable} if it fails to.
+     */
+    private void load(int i, List<Action> loaded) {
+        XStreamDOM dom = (XStreamDOM) entries.get(i);
+        Action a = deserialize(dom);
+        if (a == null) {
+            entries.set(i, new Unreadable(dom));
+            return;
+        }
+        entries.set(i, a);
+        loaded.add(a);
+    }
+
+    /**
+     * Whether the action could turn out to be of the given type once deserialized.
+     */
+    private boolean mayBe(XStreamDOM dom, Class<?> type) {
+        Class<?> c;
+        try {
+            String resolvesTo = dom.getAttribute(xs.getMapper().aliasForAttribute("resolves-to"));
+            c = resolvesTo != null ? xs.getMapper().realClass(resolvesTo) : HierarchicalStreams.readClassType(dom.newReader(), xs.getMapper());
+        } catch (XStreamException | LinkageError e) {
+            // let deserialize report it
+            return true;
+        }
+        return type.isAssignableFrom(c) || hasReadResolve(c);
+    }
+
+    /**
+     * Whether deserializing an object of the given type might result in an object of another type.
+     */
+    private static boolean hasReadResolve(Class<?> c) {
+        for (; c != null && c != Object.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("readResolve");
+                return true;
+            } catch (NoSuchMethodException e) {
+                // look further up
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private @CheckForNull Action deserialize(XStreamDOM dom) {
+        DataHolder h = xs.newDataHolder();
+        List<Throwable> errors = new ArrayList<>();
+        Object o = null;
+        try {
+            o = xs.unmarshal(dom.newReader(), null, h);
+        } catch (XStreamException | LinkageError e) {
+            LOGGER.log(Level.FINE, "Failed to load", e);
+            errors.add(e);
+        }
+        Object readErrors = h.get("ReadError");
+        if (readErrors instanceof Collection) {
+            errors.addAll((Collection<Throwable>) readErrors);
+        }
+        if (o != null && !(o instanceof Action)) {
+            errors.add(new ConversionException(o + " is not an Action"));
+        }
+        if (!errors.isEmpty() && owner != null) {
+            try {
+                OldDataMonitor.report(owner, errors);
+            } catch (Throwable t) {
+                // as in RobustReflectionConverter, for example if OldDataMonitor is not there yet
+                LOGGER.log(Level.INFO, "There was a problem reporting unmarshalling field errors", t);
+            }
+        }
+        return o instanceof Action ? (Action) o : null;
+    }
+
+    /**
+     * An action that could not be deserialized, kept as it was read.
+     */
+    private static final class Unreadable {
+        final XStreamDOM dom;
+
+        Unreadable(XStreamDOM dom) {
+            this.dom = dom;
+        }
+    }
+
+    /**
+     * Actions of a build once deserialized, along with those that could not be, which get written back as they were read.
+     */
+    public static final class WithUnreadable extends CopyOnWriteArrayList<Action> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<XStreamDOM> unreadable;
+
+        WithUnreadable(Collection<Action> actions, List<XStreamDOM> unreadable) {
+            super(actions);
+            this.unreadable = unreadable;
+        }
+    }
+
+    /**
+     * Reads {@link Actionable}'s actions as {@link LazyActions} where possible.
+     * Registered as local converter by {@link Run}.
+     */
+    static final class ConverterImpl extends RobustCollectionConverter {
+        private final XStream2 xs;
+
+        ConverterImpl(XStream2 xs) {
+            super(xs);
+            this.xs = xs;
+        }
+
+        @Override
+        public void marshal(Object source, HierarchicalStreamWriter writer, MarshallingContext context) {
+            if (source instanceof LazyActions) {
+                // the ones not deserialized are written back as they were read
+                for (Object e : ((LazyActions) source).snapshot()) {
+                    if (e instanceof XStreamDOM) {
+                        ((XStreamDOM) e).writeTo(writer);
+                    } else if (e instanceof Unreadable) {
+                        ((Unreadable) e).dom.writeTo(writer);
+                    } else {
+                        writeItem(e, context, writer);
+                    }
+                }
+            } else if (source instanceof WithUnreadable) {
+                super.marshal(source, writer, context);
+                for (XStreamDOM dom : ((WithUnreadable) source).unreadable) {
+                    dom.writeTo(writer);
+                }
+            } else {
+                super.marshal(source, writer, context);
+            }
+        }
+
+        @Override
+        public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
+            Object owner = context.get("Saveable");
+            if (!ENABLED || !(owner instanceof Run) || context.get(EAGER) != null || reader.getAttribute("serialization") != null) {
+                return super.unmarshal(reader, context);
+            }
+            List<XStreamDOM> serialized = new ArrayList<>();
+            while (reader.hasMoreChildren()) {
+                reader.moveDown();
+                serialized.add(XStreamDOM.from(reader));
+                reader.moveUp();
+            }
+            if (serialized.isEmpty()) {
+                return new CopyOnWriteArrayList<Action>();
+            }
+            return new LazyActions(xs, (Run) owner, serialized);
+        }
+    }
+
+    /**
+     * Whether the actions of builds are kept serialized until they are asked for.
+     * Off by default, as {@link RunAction2#onLoad} then only gets called for an action when it is first asked for.
+     */
+    public static /* Script Console modifiable */ boolean ENABLED = SystemProperties.getBoolean(LazyActions.class.getName() + ".enabled");
+}
@@ -31,6 +31,7 @@ import hudson.model.Descriptor.FormException;
 import hudson.model.listeners.ItemListener;
 import hudson.search.SearchIndexBuilder;
 import hudson.security.ACL;
+import hudson.security.ACLBatch;
 import hudson.security.ACLContext;
 import hudson.util.CaseInsensitiveComparator;
 import hudson.util.DescribableList;
@@ -209,6 +210,13 @@ public class ListView extends View implements DirectlyModifiableView {
      * true to recurse in ItemGroups
      */
     private List<TopLevelItem> getItems(boolean recurse) {
+        // the listings below check the same items and folders again, so let them share the checks
+        try (ACLBatch batch = ACLBatch.open(Jenkins.getAuthentication2())) {
+            return collectItems(recurse);
+        }
+    }
+
+    private List<TopLevelItem> collectItems(boolean recurse) {
         SortedSet<String> names;
         List<TopLevelItem> items = new ArrayList<>();
 
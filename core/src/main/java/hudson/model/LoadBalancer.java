@@ -23,16 +23,20 @@
  */
 package hudson.model;
 
-import com.google.common.collect.Maps;
 import hudson.Extension;
 import hudson.ExtensionPoint;
 import hudson.model.Queue.Task;
 import hudson.model.queue.MappingWorksheet;
 import hudson.model.queue.MappingWorksheet.ExecutorChunk;
 import hudson.model.queue.MappingWorksheet.Mapping;
+import hudson.model.queue.MappingWorksheet.WorkChunk;
 import hudson.util.ConsistentHash;
+import jenkins.util.SystemProperties;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -77,36 +81,46 @@ public abstract class LoadBalancer implements ExtensionPoint {
      * Uses a consistent hash for scheduling.
      */
     public static final LoadBalancer CONSISTENT_HASH = new LoadBalancer() {
+        /**
+         * Hash rings kept from earlier calls, by the label and the size of the work chunk they were used for,
+         * as those (along with the task's permissions) decide which executor chunks are applicable.
+         * Each time a ring is used it is brought in sync with the current worksheet, which is typically a small change.
+         */
+        private final Map<List<Object>, HashRing> rings = new LinkedHashMap<List<Object>, HashRing>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, HashRing> eldest) {
+                return size() > RING_CACHE_SIZE;
+            }
+        };
+
         @Override
         public Mapping map(Task task, MappingWorksheet ws) {
-            // build consistent hash for each work chunk
-            List<ConsistentHash<ExecutorChunk>> hashes = new ArrayList<>(ws.works.size());
-            for (int i=0; i<ws.works.size(); i++) {
-                ConsistentHash<ExecutorChunk> hash = new ConsistentHash<>(ExecutorChunk::getName);
-
-                // Build a Map to pass in rather than repeatedly calling hash.add() because each call does lots of expensive work
-                List<ExecutorChunk> chunks = ws.works(i).applicableExecutorChunks();
-                Map<ExecutorChunk, Integer> toAdd = Maps.newHashMapWithExpectedSize(chunks.size());
-                for (ExecutorChunk ec : chunks) {
-                    toAdd.put(ec, ec.size()*100);
+            // the caller serializes the calls, but be defensive as the rings are shared
+            synchronized (rings) {
+                // find the consistent hash for each work chunk
+                List<HashRing> hashes = new ArrayList<>(ws.works.size());
+                // kept out of the rings, so that they do not hold on to this worksheet
+                List<Map<String, ExecutorChunk>> chunks = new ArrayList<>(ws.works.size());
+                for (int i=0; i<ws.works.size(); i++) {
+                    WorkChunk wc = ws.works(i);
+                    HashRing hash = rings.computeIfAbsent(Arrays.<Object>asList(wc.assignedLabel, wc.size()), k -> new HashRing());
+                    chunks.add(hash.update(wc.applicableExecutorChunks()));
+                    hashes.add(hash);
                 }
-                hash.addAll(toAdd);
 
-                hashes.add(hash);
-            }
-
-            // do a greedy assignment
-            Mapping m = ws.new Mapping();
-            assert m.size()==ws.works.size();   // just so that you the reader of the source code don't get confused with the for loop index
+                // do a greedy assignment
+                Mapping m = ws.new Mapping();
+                assert m.size()==ws.works.size();   // just so that you the reader of the source code don't get confused with the for loop index
 
-            if (assignGreedily(m,task,hashes,0)) {
-                assert m.isCompletelyValid();
-                return m;
-            } else
-                return null;
+                if (assignGreedily(m,task,hashes,chunks,0)) {
+                    assert m.isCompletelyValid();
+                    return m;
+                } else
+                    return null;
+            }
         }
 
-        private boolean assignGreedily(Mapping m, Task task, List<ConsistentHash<ExecutorChunk>> hashes, int i) {
+        private boolean assignGreedily(Mapping m, Task task, List<HashRing> hashes, List<Map<String, ExecutorChunk>> chunks, int i) {
             if (i==hashes.size())   return true;    // fully assigned
 
             String key;
@@ -119,11 +133,13 @@ public abstract class LoadBalancer implements ExtensionPoint {
             }
             key += i > 0 ? String.valueOf(i) : "";
 
-            for (ExecutorChunk ec : hashes.get(i).list(key)) {
+            HashRing hash = hashes.get(i);
+            for (String name : hash.list(key)) {
+                ExecutorChunk ec = chunks.get(i).get(name);
                 // let's attempt this assignment
                 m.assign(i,ec);
 
-                if (m.isPartiallyValid() && assignGreedily(m,task,hashes,i+1))
+                if (m.isPartiallyValid() && assignGreedily(m,task,hashes,chunks,i+1))
                     return true;    // successful greedily allocation
 
                 // otherwise 'ec' wasn't a good fit for us. try next.
@@ -135,6 +151,72 @@ public abstract class LoadBalancer implements ExtensionPoint {
         }
     };
 
+    /**
+     * {@link ConsistentHash} of the names of {@link ExecutorChunk}s, weighted by their sizes.
+     * Only names and sizes are kept between calls, not the chunks, which belong to one worksheet.
+     */
+    private static final class HashRing {
+        private final ConsistentHash<String> hash = new ConsistentHash<>();
+        /**
+         * Replicas of each node in {@link #hash}.
+         */
+        private final Map<String, Integer> replicas = new HashMap<>();
+        /**
+         * Makes the ring contain exactly the given chunks, each with 100 replicas per executor,
+         * touching only those nodes whose presence or size changed since the last update.
+         *
+         * @return the given chunks by their names
+         */
+        Map<String, ExecutorChunk> update(List<ExecutorChunk> applicable) {
+            Map<String, ExecutorChunk> chunks = new HashMap<>();
+            Map<String, Integer> changes = new HashMap<>();
+            for (ExecutorChunk ec : applicable) {
+                String name = ec.getName();
+                chunks.put(name, ec);
+                int r = ec.size()*100;
+                Integer old = replicas.get(name);
+                if (old == null || old != r) {
+                    changes.put(name, r);
+                }
+            }
+            for (String name : replicas.keySet()) {
+                if (!chunks.containsKey(name)) {
+                    changes.put(name, 0);
+                }
+            }
+            if (changes.isEmpty()) {
+                return chunks;
+            }
+
+            // each incremental change is linear in the size of the ring, while a rebuild is n*log(n)
+            int log = 32 - Integer.numberOfLeadingZeros(hash.countAllPoints());
+            if (changes.size() > log) {
+                hash.addAll(changes);
+            } else {
+                for (Map.Entry<String, Integer> e : changes.entrySet()) {
+                    hash.add(e.getKey(), e.getValue());
+                }
+            }
+            for (Map.Entry<String, Integer> e : changes.entrySet()) {
+                if (e.getValue() == 0) {
+                    replicas.remove(e.getKey());
+                } else {
+                    replicas.put(e.getKey(), e.getValue());
+                }
+            }
+            return chunks;
+        }
+
+        Iterable<String> list(String key) {
+            return hash.list(key);
+        }
+    }
+
+    /**
+     * Maximum number of hash rings {@link #CONSISTENT_HASH} keeps around between calls.
+     */
+    private static final int RING_CACHE_SIZE = SystemProperties.getInteger(LoadBalancer.class.getName() + ".ringCacheSize", 32);
+
     /**
      * Traditional implementation of this.
      *
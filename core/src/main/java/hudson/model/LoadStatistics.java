@@ -31,6 +31,7 @@ import hudson.model.queue.SubTask;
 import hudson.util.ColorPalette;
 import hudson.util.NoOverlapCategoryAxis;
 import jenkins.model.Jenkins;
+import jenkins.model.UnlabeledLoadStatistics;
 import org.jenkinsci.Symbol;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.JFreeChart;
@@ -51,9 +52,12 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.List;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
 
 /**
  * Utilization statistics for a node or a set of nodes.
@@ -138,19 +142,19 @@ public abstract class LoadStatistics {
 
     protected LoadStatistics(int initialOnlineExecutors, int initialBusyExecutors) {
         this.definedExecutors = new MultiStageTimeSeries(Messages._LoadStatistics_Legends_DefinedExecutors(),
-                ColorPalette.YELLOW, initialOnlineExecutors, DECAY);
+                ColorPalette.YELLOW, initialOnlineExecutors, DECAY, CLOCK);
         this.onlineExecutors = new MultiStageTimeSeries(
-                Messages._LoadStatistics_Legends_OnlineExecutors(), ColorPalette.BLUE, initialOnlineExecutors,DECAY);
+                Messages._LoadStatistics_Legends_OnlineExecutors(), ColorPalette.BLUE, initialOnlineExecutors,DECAY, CLOCK);
         this.connectingExecutors = new MultiStageTimeSeries(Messages._LoadStatistics_Legends_ConnectingExecutors(),
-                ColorPalette.YELLOW, 0, DECAY);
+                ColorPalette.YELLOW, 0, DECAY, CLOCK);
         this.busyExecutors = new MultiStageTimeSeries(
-                Messages._LoadStatistics_Legends_BusyExecutors(), ColorPalette.RED, initialBusyExecutors,DECAY);
+                Messages._LoadStatistics_Legends_BusyExecutors(), ColorPalette.RED, initialBusyExecutors,DECAY, CLOCK);
         this.idleExecutors = new MultiStageTimeSeries(Messages._LoadStatistics_Legends_IdleExecutors(),
-                ColorPalette.YELLOW, initialOnlineExecutors - initialBusyExecutors, DECAY);
+                ColorPalette.YELLOW, initialOnlineExecutors - initialBusyExecutors, DECAY, CLOCK);
         this.availableExecutors = new MultiStageTimeSeries(Messages._LoadStatistics_Legends_AvailableExecutors(),
-                ColorPalette.YELLOW, initialOnlineExecutors - initialBusyExecutors, DECAY);
+                ColorPalette.YELLOW, initialOnlineExecutors - initialBusyExecutors, DECAY, CLOCK);
         this.queueLength = new MultiStageTimeSeries(
-                Messages._LoadStatistics_Legends_QueueLength(),ColorPalette.GREY, 0, DECAY);
+                Messages._LoadStatistics_Legends_QueueLength(),ColorPalette.GREY, 0, DECAY, CLOCK);
         this.totalExecutors = onlineExecutors;
         modern = isModern(getClass());
     }
@@ -376,6 +380,7 @@ public abstract class LoadStatistics {
     public static final float DECAY = Float.parseFloat(SystemProperties.getString(LoadStatistics.class.getName()+".decay","0.9"));
     /**
      * Load statistics clock cycle in milliseconds. Specify a small value for quickly debugging this feature and node provisioning through cloud.
+     * This is also the resolution of the {@link MultiStageTimeSeries#getRaw raw} samples, so it can be lowered (down to a second) for finer-grained data.
      */
     public static int CLOCK = SystemProperties.getInteger(LoadStatistics.class.getName() + ".clock", (int)TimeUnit.SECONDS.toMillis(10));
 
@@ -392,15 +397,73 @@ public abstract class LoadStatistics {
             Jenkins j = Jenkins.get();
             List<Queue.BuildableItem> bis = j.getQueue().getBuildableItems();
 
+            // walk every computer's executors at most once per tick, no matter how many labels include it
+            Map<Node, LoadStatisticsSnapshot> perNode = new HashMap<>();
+
+            // bucket the queue by assigned label name, which is all Label.loadStatistics.matches looks at
+            Map<String, int[]> queueByLabel = new HashMap<>();
+            int unlabeledQueue = 0;
+            int totalQueue = 0;
+            for (Queue.BuildableItem bi : bis) {
+                for (SubTask st : bi.task.getSubTasks()) {
+                    totalQueue++;
+                    Label l = bi.getAssignedLabelFor(st);
+                    if (l == null) {
+                        unlabeledQueue++;
+                    } else {
+                        queueByLabel.computeIfAbsent(l.getName(), k -> new int[1])[0]++;
+                    }
+                }
+            }
+
             // update statistics on agents
             for( Label l : j.getLabels() ) {
-                l.loadStatistics.updateCounts(l.loadStatistics.computeSnapshot(bis));
+                int[] q = queueByLabel.get(l.getName());
+                l.loadStatistics.updateCounts(aggregate(l.loadStatistics, perNode, q == null ? 0 : q[0], bis));
             }
 
             // update statistics of the entire system
-            j.unlabeledLoad.updateCounts(j.unlabeledLoad.computeSnapshot(bis));
+            j.unlabeledLoad.updateCounts(aggregate(j.unlabeledLoad, perNode, unlabeledQueue, bis));
+
+            j.overallLoad.updateCounts(aggregate(j.overallLoad, perNode, totalQueue, bis));
+        }
+
+        /**
+         * Sums the per-node snapshots for the nodes of the given statistics, computing (and caching) the
+         * snapshot of any node not yet seen during this tick.
+         * Falls back to {@link LoadStatistics#computeSnapshot(Iterable)} for implementations that
+         * do not expose their nodes or whose queue matching we cannot precompute.
+         */
+        private static LoadStatisticsSnapshot aggregate(LoadStatistics ls, Map<Node, LoadStatisticsSnapshot> perNode,
+                                                        int queueLength, List<Queue.BuildableItem> bis) {
+            if (!ls.modern || !isPrecomputable(ls)) {
+                return ls.computeSnapshot(bis);
+            }
+            final LoadStatisticsSnapshot.Builder builder = LoadStatisticsSnapshot.builder();
+            final Iterable<Node> nodes = ls.getNodes();
+            if (nodes != null) {
+                for (Node node : nodes) {
+                    LoadStatisticsSnapshot s = perNode.get(node);
+                    if (s == null) {
+                        s = LoadStatisticsSnapshot.builder().with(node).build();
+                        perNode.put(node, s);
+                    }
+                    builder.add(s);
+                }
+            }
+            return builder.withQueueLength(queueLength).build();
+        }
 
-            j.overallLoad.updateCounts(j.overallLoad.computeSnapshot(bis));
+        /**
+         * Whether the queue length of the given statistics is known to be computed by the bucketing in
+         * {@link #doRun()}, i.e. it is one of the core implementations rather than a subclass that might override
+         * {@link LoadStatistics#computeSnapshot(Iterable)} or {@link LoadStatistics#matches(Queue.Item, SubTask)}.
+         */
+        private static boolean isPrecomputable(LoadStatistics ls) {
+            Class<?> c = ls.getClass();
+            return c.getEnclosingClass() == Label.class
+                    || c == OverallLoadStatistics.class
+                    || c == UnlabeledLoadStatistics.class;
         }
 
         private int count(List<Queue.BuildableItem> bis, Label l) {
@@ -610,6 +673,19 @@ public abstract class LoadStatistics {
                 );
             }
 
+            /**
+             * Adds the counts (other than the queue length) of a snapshot computed for a disjoint set of nodes.
+             */
+            /*package*/ Builder add(@NonNull LoadStatisticsSnapshot other) {
+                definedExecutors += other.definedExecutors;
+                onlineExecutors += other.onlineExecutors;
+                connectingExecutors += other.connectingExecutors;
+                busyExecutors += other.busyExecutors;
+                idleExecutors += other.idleExecutors;
+                availableExecutors += other.availableExecutors;
+                return this;
+            }
+
             public Builder withQueueLength(int queueLength) {
                 this.queueLength = queueLength;
                 return this;
@@ -26,6 +26,7 @@ package hudson.model;
 import java.util.concurrent.TimeUnit;
 import hudson.util.NoOverlapCategoryAxis;
 import hudson.util.ChartUtil;
+import jenkins.util.SystemProperties;
 
 import java.io.Serializable;
 import java.text.DateFormat;
@@ -89,17 +90,40 @@ public class MultiStageTimeSeries implements Serializable {
     @Exported
     public final TimeSeries hour;
 
+    /**
+     * Raw samples as supplied to {@link #update(float)}, without exponential decay,
+     * retaining the last {@link #RAW_SAMPLES} of them.
+     * Not final, as instances serialized before it was introduced need it set in {@link #readResolve}.
+     */
+    private RingBufferTimeSeries raw;
+
     private int counter;
 
+    /**
+     * Number of raw samples retained in {@link #raw}.
+     */
+    private static final int RAW_SAMPLES = Math.max(1, SystemProperties.getInteger(MultiStageTimeSeries.class.getName() + ".rawSamples", 360));
+
     private static final Font CHART_FONT = Font.getFont(MultiStageTimeSeries.class.getName() + ".chartFont",
             new Font(Font.SANS_SERIF, Font.PLAIN, 10));
 
     public MultiStageTimeSeries(Localizable title, Color color, float initialValue, float decay) {
+        this(title, color, initialValue, decay, TimeScale.SEC10.tick);
+    }
+
+    /**
+     * @param resolution
+     *      Number of milliseconds between two calls to {@link #update(float)}, as recorded in {@link #raw}.
+     * @since TODO
+     */
+    public MultiStageTimeSeries(Localizable title, Color color, float initialValue, float decay, long resolution) {
         this.title = title;
         this.color = color;
         this.sec10 = new TimeSeries(initialValue, decay, 6 * (int) TimeUnit.HOURS.toMinutes(6));
         this.min = new TimeSeries(initialValue, decay, (int) TimeUnit.DAYS.toMinutes(2));
         this.hour = new TimeSeries(initialValue, decay, (int) TimeUnit.DAYS.toHours(56));
+        this.raw = new RingBufferTimeSeries(resolution, RAW_SAMPLES);
+        this.raw.update(initialValue);
     }
 
     /**
@@ -111,10 +135,28 @@ public class MultiStageTimeSeries implements Serializable {
         this(Messages._MultiStageTimeSeries_EMPTY_STRING(), Color.WHITE, initialValue,decay);
     }
 
+    /**
+     * Raw samples as supplied to {@link #update(float)}, without exponential decay.
+     * @since TODO
+     */
+    @Exported
+    public RingBufferTimeSeries getRaw() {
+        return raw;
+    }
+
+    private Object readResolve() {
+        if (raw == null) {
+            raw = new RingBufferTimeSeries(TimeScale.SEC10.tick, RAW_SAMPLES);
+            raw.update(sec10.getLatest());
+        }
+        return this;
+    }
+
     /**
      * Call this method every 10 sec and supply a new data point.
      */
     public void update(float f) {
+        raw.update(f);
         counter = (counter+1)%360;   // 1hour/10sec = 60mins/10sec=3600secs/10sec = 360
         sec10.update(f);
         if(counter%6==0)    min.update(f);
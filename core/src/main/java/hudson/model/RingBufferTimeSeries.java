@@ -0,0 +1,240 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.model;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Raw (not averaged) samples of a scalar value, kept in a fixed-size ring buffer.
+ *
+ * <p>
+ * Unlike {@link TimeSeries}, which copies its whole history on every update,
+ * {@link #update(float)} only overwrites one slot of a preallocated {@code float[]},
+ * so it can be fed at a high rate (such as every second) without creating garbage.
+ * Readers get a consistent copy of the data, along with a percentile {@link Summary}.
+ *
+ * @see MultiStageTimeSeries#getRaw
+ * @since TODO
+ */
+@ExportedBean
+public final class RingBufferTimeSeries implements Serializable {
+    /**
+     * Number of milliseconds between two consecutive samples.
+     */
+    private final long resolution;
+
+    /**
+     * Samples in the order they were recorded, wrapping around at the end.
+     */
+    private final float[] buffer;
+
+    /**
+     * Index of the slot the next sample goes to.
+     */
+    private int head;
+
+    /**
+     * Number of valid samples in {@link #buffer}.
+     */
+    private int size;
+
+    /**
+     * @param resolution
+     *      Number of milliseconds between two calls to {@link #update(float)}.
+     * @param capacity
+     *      Maximum number of samples to retain.
+     */
+    public RingBufferTimeSeries(long resolution, int capacity) {
+        if (resolution <= 0) {
+            throw new IllegalArgumentException("resolution must be positive: " + resolution);
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.resolution = resolution;
+        this.buffer = new float[capacity];
+    }
+
+    /**
+     * Records a new sample, overwriting the oldest one if the buffer is full.
+     */
+    public synchronized void update(float value) {
+        buffer[head] = value;
+        head = (head + 1) % buffer.length;
+        if (size < buffer.length) {
+            size++;
+        }
+    }
+
+    /**
+     * Number of milliseconds between two samples.
+     */
+    @Exported
+    public long getResolution() {
+        return resolution;
+    }
+
+    /**
+     * Maximum number of samples retained.
+     */
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Number of samples currently retained.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gets the most recent sample, or 0 if nothing has been recorded yet.
+     */
+    @Exported
+    public synchronized float getLatest() {
+        if (size == 0) {
+            return 0;
+        }
+        return buffer[(head - 1 + buffer.length) % buffer.length];
+    }
+
+    /**
+     * Gets a copy of the retained samples. Newer ones first, just like {@link TimeSeries#getHistory()}.
+     */
+    @Exported
+    public synchronized float[] getHistory() {
+        float[] r = new float[size];
+        for (int i = 0; i < size; i++) {
+            r[i] = buffer[(head - 1 - i + buffer.length) % buffer.length];
+        }
+        return r;
+    }
+
+    /**
+     * Computes the summary of the retained samples.
+     */
+    @Exported
+    public Summary getSummary() {
+        return new Summary(getHistory());
+    }
+
+    /**
+     * Computes the given percentile of the retained samples.
+     *
+     * @param p
+     *      Between 0 and 100.
+     * @return
+     *      0 if there are no samples.
+     */
+    public float percentile(double p) {
+        float[] sorted = getHistory();
+        Arrays.sort(sorted);
+        return percentile(sorted, p);
+    }
+
+    /**
+     * Nearest-rank percentile of an already sorted array.
+     */
+    /*package*/ static float percentile(float[] sorted, double p) {
+        if (p < 0 || p > 100) {
+            throw new IllegalArgumentException("percentile out of range: " + p);
+        }
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p / 100 * sorted.length);
+        return sorted[Math.max(rank - 1, 0)];
+    }
+
+    @Override
+    public String toString() {
+        return Float.toString(getLatest());
+    }
+
+    /**
+     * Point-in-time statistics of a {@link RingBufferTimeSeries}.
+     */
+    @ExportedBean
+    public static final class Summary {
+        private final int count;
+        private final float min, max, mean, p50, p90, p99;
+
+        private Summary(float[] samples) {
+            count = samples.length;
+            Arrays.sort(samples);
+            double sum = 0;
+            for (float f : samples) {
+                sum += f;
+            }
+            min = count == 0 ? 0 : samples[0];
+            max = count == 0 ? 0 : samples[count - 1];
+            mean = count == 0 ? 0 : (float) (sum / count);
+            p50 = percentile(samples, 50);
+            p90 = percentile(samples, 90);
+            p99 = percentile(samples, 99);
+        }
+
+        @Exported
+        public int getCount() {
+            return count;
+        }
+
+        @Exported
+        public float getMin() {
+            return min;
+        }
+
+        @Exported
+        public float getMax() {
+            return max;
+        }
+
+        @Exported
+        public float getMean() {
+            return mean;
+        }
+
+        @Exported
+        public float getP50() {
+            return p50;
+        }
+
+        @Exported
+        public float getP90() {
+            return p90;
+        }
+
+        @Exported
+        public float getP99() {
+            return p99;
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+}
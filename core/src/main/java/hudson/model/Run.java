@@ -29,6 +29,8 @@ package hudson.model;
 
 import com.jcraft.jzlib.GZIPInputStream;
 import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.XStreamException;
+import com.thoughtworks.xstream.converters.DataHolder;
 import hudson.AbortException;
 import hudson.BulkChange;
 import hudson.EnvVars;
@@ -115,9 +117,11 @@ import jenkins.model.RunAction2;
 import jenkins.model.StandardArtifactManager;
 import jenkins.model.lazy.BuildReference;
 import jenkins.model.lazy.LazyBuildMixIn;
+import jenkins.model.lazy.RunHeader;
 import jenkins.security.MasterToSlaveCallable;
 import jenkins.util.VirtualFile;
 import jenkins.util.io.OnMaster;
+import jenkins.util.xstream.XStreamDOM;
 import net.sf.json.JSONObject;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.jelly.XMLOutput;
@@ -313,6 +317,11 @@ public abstract class Run <JobT extends Job<JobT,RunT>,RunT extends Run<JobT,Run
      */
     private transient boolean isPendingDelete;
 
+    /**
+     * Whether {@link #onLoad} was called.
+     */
+    private transient volatile boolean loaded;
+
     /**
      * Creates a new {@link Run}.
      * @param job Owner job
@@ -376,24 +385,53 @@ public abstract class Run <JobT extends Job<JobT,RunT>,RunT extends Run<JobT,Run
     /**
      * Called after the build is loaded and the object is added to the build list.
      */
-    @SuppressWarnings("deprecation")
     protected void onLoad() {
-        for (Action a : getAllActions()) {
-            if (a instanceof RunAction2) {
-                try {
-                    ((RunAction2) a).onLoad(this);
-                } catch (RuntimeException x) {
-                    LOGGER.log(WARNING, "failed to load " + a + " from " + getDataFile(), x);
-                    removeAction(a); // if possible; might be in an inconsistent state
-                }
-            } else if (a instanceof RunAction) {
-                ((RunAction) a).onLoad();
-            }
+        // actions still serialized (see LazyActions) are handed onLoad when they get deserialized
+        loaded = true;
+        for (Action a : getLoadedActions()) {
+            onLoad(a);
         }
         if (artifactManager != null) {
             artifactManager.onLoad(this);
         }
     }
+
+    @SuppressWarnings("deprecation")
+    private void onLoad(Action a) {
+        if (a instanceof RunAction2) {
+            try {
+                ((RunAction2) a).onLoad(this);
+            } catch (RuntimeException x) {
+                LOGGER.log(WARNING, "failed to load " + a + " from " + getDataFile(), x);
+                removeAction(a); // if possible; might be in an inconsistent state
+            }
+        } else if (a instanceof RunAction) {
+            ((RunAction) a).onLoad();
+        }
+    }
+
+    @Override
+    /*package*/ void onActionLoaded(Action a) {
+        if (loaded) {
+            onLoad(a);
+        }
+    }
+
+    /**
+     * Deserializes actions that could not be deserialized on their own back into this build,
+     * as they would have been when it was loaded.
+     */
+    /*package*/ void reloadActions(List<XStreamDOM> serialized) {
+        XStreamDOM actions = new XStreamDOM("actions", Collections.emptyMap(), serialized);
+        XStreamDOM root = new XStreamDOM(XSTREAM2.getMapper().serializedClass(getClass()), Collections.emptyMap(), Collections.singletonList(actions));
+        DataHolder h = XSTREAM2.newDataHolder();
+        h.put(LazyActions.EAGER, true);
+        try {
+            XSTREAM2.unmarshal(root.newReader(), this, h);
+        } catch (XStreamException | LinkageError x) {
+            LOGGER.log(WARNING, "failed to load actions from " + getDataFile(), x);
+        }
+    }
     
     /**
      * Return all transient actions associated with this build.
@@ -1150,7 +1188,8 @@ public abstract class Run <JobT extends Job<JobT,RunT>,RunT extends Run<JobT,Run
      */ 
     public @NonNull List<Artifact> getArtifactsUpTo(int artifactsNumber) {
         SerializableArtifactList sal;
-        VirtualFile root = getArtifactManager().root();
+        ArtifactManager manager = getArtifactManager();
+        VirtualFile root = manager instanceof StandardArtifactManager ? ((StandardArtifactManager) manager).listingRoot() : manager.root();
         try {
             sal = root.run(new AddArtifacts(root, artifactsNumber));
         } catch (IOException x) {
@@ -2066,6 +2105,7 @@ public abstract class Run <JobT extends Job<JobT,RunT>,RunT extends Run<JobT,Run
             LOGGER.log(WARNING, "{0}: No build result is set, so marking as failure. This should not happen.", this);
         }
 
+        RunHeader.write(this);
         RunListener.fireFinalized(this);
     }
 
@@ -2075,6 +2115,7 @@ public abstract class Run <JobT extends Job<JobT,RunT>,RunT extends Run<JobT,Run
     public synchronized void save() throws IOException {
         if(BulkChange.contains(this))   return;
         getDataFile().write(this);
+        RunHeader.write(this);
         SaveableListener.fireOnChange(this, getDataFile());
     }
 
@@ -2540,6 +2581,7 @@ public abstract class Run <JobT extends Job<JobT,RunT>,RunT extends Run<JobT,Run
     static {
         XSTREAM.alias("build",FreeStyleBuild.class);
         XSTREAM.registerConverter(Result.conv);
+        XSTREAM2.registerLocalConverter(Actionable.class, "actions", new LazyActions.ConverterImpl(XSTREAM2));
     }
 
     private static final Logger LOGGER = Logger.getLogger(Run.class.getName());
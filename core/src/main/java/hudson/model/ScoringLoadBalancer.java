@@ -0,0 +1,444 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.model;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.Queue.Task;
+import hudson.model.listeners.RunListener;
+import hudson.model.queue.MappingWorksheet;
+import hudson.model.queue.MappingWorksheet.ExecutorChunk;
+import hudson.model.queue.MappingWorksheet.Mapping;
+import hudson.model.queue.MappingWorksheet.WorkChunk;
+import hudson.slaves.ComputerListener;
+import hudson.slaves.OfflineCause;
+import jenkins.util.SystemProperties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link LoadBalancer} that sends work to the least loaded nodes,
+ * instead of spreading it by hash as {@link LoadBalancer#CONSISTENT_HASH} does.
+ *
+ * <p>
+ * Every node is given a score out of the fraction of its executors that are busy
+ * and the estimated time until the builds currently running there complete.
+ * Lower scores are tried first. The node the task was last built on gets a bonus
+ * if it still has a workspace of the task that is not in use (see {@link hudson.slaves.WorkspaceList}).
+ * Among nodes with the same score, each task starts from a different node, picked by its affinity key,
+ * so that equally loaded nodes still get a stable, spread out assignment.
+ *
+ * <p>
+ * Nodes are kept ordered by score across calls, and a node is only scored again when work was just assigned to it,
+ * when the worksheet offers a different number of its executors than were idle when it was last scored
+ * (whatever they run, builds or other executables such as Pipeline {@code node} blocks),
+ * when builds start or finish there, or when it goes on or offline.
+ * So a {@link #map(Task, MappingWorksheet)} call costs a logarithmic step per node
+ * rescored since the last call and per candidate actually tried, plus looking up the candidates listed by the worksheet,
+ * rather than scoring every candidate, or building and sorting replica points for every executor.
+ * The estimated remaining time of running builds is therefore as of when the node was last scored.
+ *
+ * <p>
+ * This is not installed by default; use {@link Queue#setLoadBalancer(LoadBalancer)}
+ * (for example from an {@code init.groovy.d} script) to switch to it.
+ *
+ * @since TODO
+ */
+public class ScoringLoadBalancer extends LoadBalancer {
+
+    /**
+     * Live instances, to tell about nodes that changed.
+     */
+    private static final Set<ScoringLoadBalancer> INSTANCES = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    /**
+     * Nodes in the order of their scores.
+     */
+    private final TreeSet<Scored> index = new TreeSet<>();
+    private final Map<Computer, Scored> scores = new HashMap<>();
+    /**
+     * Nodes to score again before the next assignment.
+     */
+    private final Set<Computer> dirty = ConcurrentHashMap.newKeySet();
+    private volatile boolean allDirty;
+    private long sequence;
+
+    public ScoringLoadBalancer() {
+        INSTANCES.add(this);
+    }
+
+    @Override
+    public synchronized Mapping map(Task task, MappingWorksheet ws) {
+        refresh();
+        String key = affinityKey(task);
+
+        List<Candidates> candidates = new ArrayList<>(ws.works.size());
+        for (int i=0; i<ws.works.size(); i++) {
+            WorkChunk wc = ws.works(i);
+            Map<Computer, ExecutorChunk> applicable = new HashMap<>();
+            for (ExecutorChunk ec : wc.applicableExecutorChunks()) {
+                applicable.put(ec.computer, ec);
+                Scored s = scores.get(ec.computer);
+                if (s == null || s.idle != ec.capacity()) {
+                    // executors started or finished running something since
+                    update(ec.computer);
+                }
+            }
+            ExecutorChunk preferred = null;
+            if (wc.lastBuiltOn != null && applicable.get(wc.lastBuiltOn.computer) == wc.lastBuiltOn && hasReusableWorkspace(wc.lastBuiltOn, task)) {
+                preferred = wc.lastBuiltOn;
+            }
+            String k = key + (i > 0 ? String.valueOf(i) : "");
+            candidates.add(new Candidates(applicable, preferred, k.hashCode()));
+        }
+
+        // do a greedy assignment
+        Mapping m = ws.new Mapping();
+        assert m.size()==ws.works.size();
+
+        if (assignGreedily(m,candidates,0)) {
+            assert m.isCompletelyValid();
+            // the next tasks of the same queue maintenance should see these executors as busy
+            for (int i=0; i<m.size(); i++) {
+                dirty.add(m.assigned(i).computer);
+            }
+            return m;
+        } else
+            return null;
+    }
+
+    private boolean assignGreedily(Mapping m, List<Candidates> candidates, int i) {
+        if (i==candidates.size())   return true;    // fully assigned
+
+        Candidates c = candidates.get(i);
+        ExecutorChunk ec;
+        for (int n=0; (ec=c.get(n))!=null; n++) {
+            // let's attempt this assignment
+            m.assign(i,ec);
+
+            if (m.isPartiallyValid() && assignGreedily(m,candidates,i+1))
+                return true;    // successful greedily allocation
+
+            // otherwise 'ec' wasn't a good fit for us. try next.
+        }
+
+        // every attempt failed
+        m.assign(i,null);
+        return false;
+    }
+
+    /**
+     * Scores again the nodes that changed since the last call.
+     */
+    private void refresh() {
+        if (allDirty) {
+            allDirty = false;
+            dirty.addAll(scores.keySet());
+        }
+        for (Iterator<Computer> it = dirty.iterator(); it.hasNext(); ) {
+            Computer c = it.next();
+            it.remove();
+            if (c.getNode() == null) {
+                Scored old = scores.remove(c);
+                if (old != null) {
+                    index.remove(old);
+                }
+            } else {
+                update(c);
+            }
+        }
+    }
+
+    private void update(Computer c) {
+        Scored old = scores.remove(c);
+        if (old != null) {
+            index.remove(old);
+        }
+        int idle = 0;
+        for (Executor e : c.getExecutors()) {
+            if (e.isIdle()) {
+                idle++;
+            }
+        }
+        Scored s = new Scored(c, load(c), idle, c.getName().hashCode(), sequence++);
+        scores.put(c, s);
+        index.add(s);
+    }
+
+    /**
+     * Computes how loaded the given node is. Lower is better.
+     *
+     * @return
+     *      {@link #BUSY_WEIGHT} times the fraction of busy executors,
+     *      plus {@link #PENDING_WEIGHT} times a value between 0 and 1 that grows with the
+     *      estimated remaining time of the builds running on the node.
+     */
+    protected double load(Computer c) {
+        List<Executor> executors = c.getExecutors();
+        int busy = 0;
+        long remaining = 0;
+        for (Executor e : executors) {
+            if (!e.isIdle()) {
+                busy++;
+                remaining += Math.max(e.getEstimatedRemainingTimeMillis(), 0);
+            }
+        }
+        double busyFraction = executors.isEmpty() ? 1 : (double) busy / executors.size();
+        double pending = remaining / (double) (remaining + PENDING_HALF_MILLIS);
+
+        return BUSY_WEIGHT * busyFraction + PENDING_WEIGHT * pending;
+    }
+
+    /**
+     * Whether the node still has the workspace of the given task, and nobody else is using it.
+     * Only called for the node the task was last built on.
+     */
+    protected boolean hasReusableWorkspace(ExecutorChunk ec, Task task) {
+        if (!(task instanceof TopLevelItem)) {
+            return true;    // nothing to check; having built there is good enough
+        }
+        if (task instanceof AbstractProject && ((AbstractProject<?, ?>) task).getCustomWorkspace() != null) {
+            // custom workspaces are not leased, and may be used concurrently
+            return true;
+        }
+        FilePath ws = ec.node.getWorkspaceFor((TopLevelItem) task);
+        return ws != null && !ec.computer.getWorkspaceList().isInUse(ws);
+    }
+
+    private static String affinityKey(Task task) {
+        try {
+            return task.getAffinityKey();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.FINE, null, e);
+            // Default implementation of Queue.Task.getAffinityKey, we assume it doesn't fail.
+            return task.getFullDisplayName();
+        }
+    }
+
+    /**
+     * Tells all instances that the given node is to be scored again.
+     */
+    static void changed(Computer c) {
+        synchronized (INSTANCES) {
+            for (ScoringLoadBalancer lb : INSTANCES) {
+                lb.dirty.add(c);
+            }
+        }
+    }
+
+    /**
+     * Tells all instances that all nodes are to be scored again.
+     */
+    static void changedAll() {
+        synchronized (INSTANCES) {
+            for (ScoringLoadBalancer lb : INSTANCES) {
+                lb.allDirty = true;
+            }
+        }
+    }
+
+    @Extension
+    public static final class RunListenerImpl extends RunListener<Run<?, ?>> {
+        @Override
+        public void onStarted(Run<?, ?> r, TaskListener listener) {
+            changed(r);
+        }
+
+        @Override
+        public void onFinalized(Run<?, ?> r) {
+            changed(r);
+        }
+
+        private static void changed(Run<?, ?> r) {
+            Executor e = r.getExecutor();
+            if (e != null) {
+                ScoringLoadBalancer.changed(e.getOwner());
+            }
+        }
+    }
+
+    @Extension
+    public static final class ComputerListenerImpl extends ComputerListener {
+        @Override
+        public void onOnline(Computer c, TaskListener listener) {
+            changed(c);
+        }
+
+        @Override
+        public void onOffline(Computer c, OfflineCause cause) {
+            changed(c);
+        }
+
+        @Override
+        public void onConfigurationChange() {
+            changedAll();
+        }
+    }
+
+    /**
+     * A node along with its score.
+     */
+    private static final class Scored implements Comparable<Scored> {
+        final Computer computer;
+        final double score;
+        /**
+         * Number of idle executors when scored.
+         */
+        final int idle;
+        final int tieBreaker;
+        final long sequence;
+
+        Scored(Computer computer, double score, int idle, int tieBreaker, long sequence) {
+            this.computer = computer;
+            this.score = score;
+            this.idle = idle;
+            this.tieBreaker = tieBreaker;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Scored that) {
+            int r = Double.compare(this.score, that.score);
+            if (r != 0) return r;
+            r = Integer.compare(this.tieBreaker, that.tieBreaker);
+            if (r != 0) return r;
+            return Long.compare(this.sequence, that.sequence);
+        }
+    }
+
+    /**
+     * Candidates of one work chunk in the order of their scores, walked from the index as they are asked for.
+     * Those taken are remembered so that backtracking can go over them again.
+     */
+    private final class Candidates {
+        private final Map<Computer, ExecutorChunk> applicable;
+        private ExecutorChunk preferred;
+        private final double preferredScore;
+        private final ExecutorChunk skipped;
+        private final int start;
+        private final List<ExecutorChunk> taken = new ArrayList<>();
+
+        /**
+         * Score of the nodes currently walked, and whether the walk wrapped around to the first of them.
+         */
+        private Scored group;
+        private boolean wrapped;
+        private Iterator<Scored> it;
+        private Scored pending;
+
+        Candidates(Map<Computer, ExecutorChunk> applicable, ExecutorChunk preferred, int start) {
+            this.applicable = applicable;
+            this.preferred = preferred;
+            this.skipped = preferred;
+            this.preferredScore = preferred == null ? 0 : scores.get(preferred.computer).score - LOCALITY_WEIGHT;
+            this.start = start;
+        }
+
+        /**
+         * @return the n-th best candidate, or null if there are no more.
+         */
+        ExecutorChunk get(int n) {
+            while (taken.size() <= n) {
+                ExecutorChunk ec = next();
+                if (ec == null) return null;
+                taken.add(ec);
+            }
+            return taken.get(n);
+        }
+
+        private ExecutorChunk next() {
+            while (true) {
+                Scored s = pending != null ? pending : nextScored();
+                pending = null;
+                if (preferred != null && (s == null || preferredScore <= s.score)) {
+                    pending = s;
+                    ExecutorChunk p = preferred;
+                    preferred = null;
+                    return p;
+                }
+                if (s == null) return null;
+                ExecutorChunk ec = applicable.get(s.computer);
+                if (ec != null && ec != skipped) return ec;
+            }
+        }
+
+        /**
+         * Walks the index by groups of equal scores, starting each group at {@link #start} and wrapping around.
+         */
+        private Scored nextScored() {
+            while (true) {
+                if (it != null && it.hasNext()) {
+                    return it.next();
+                }
+                if (group != null && !wrapped) {
+                    wrapped = true;
+                    it = index.subSet(bound(group.score, Integer.MIN_VALUE, Long.MIN_VALUE), true, bound(group.score, start, Long.MIN_VALUE), false).iterator();
+                    continue;
+                }
+                Scored next = group == null ? (index.isEmpty() ? null : index.first()) : index.higher(bound(group.score, Integer.MAX_VALUE, Long.MAX_VALUE));
+                if (next == null) return null;
+                group = next;
+                wrapped = false;
+                it = index.subSet(bound(group.score, start, Long.MIN_VALUE), true, bound(group.score, Integer.MAX_VALUE, Long.MAX_VALUE), true).iterator();
+            }
+        }
+
+        private Scored bound(double score, int tieBreaker, long sequence) {
+            return new Scored(null, score, tieBreaker, sequence);
+        }
+    }
+
+    /**
+     * Weight of the fraction of executors of a node that are busy.
+     */
+    public static /* Script Console modifiable */ double BUSY_WEIGHT = Double.parseDouble(SystemProperties.getString(ScoringLoadBalancer.class.getName() + ".busyWeight", "1.0"));
+
+    /**
+     * Weight of the estimated remaining time of the builds running on a node.
+     */
+    public static /* Script Console modifiable */ double PENDING_WEIGHT = Double.parseDouble(SystemProperties.getString(ScoringLoadBalancer.class.getName() + ".pendingWeight", "0.5"));
+
+    /**
+     * Amount of remaining build time (in milliseconds) for which the pending part of the score reaches half of {@link #PENDING_WEIGHT}.
+     */
+    public static /* Script Console modifiable */ long PENDING_HALF_MILLIS = SystemProperties.getLong(ScoringLoadBalancer.class.getName() + ".pendingHalfMillis", 10 * 60 * 1000L);
+
+    /**
+     * Bonus given to the node that holds a reusable workspace of the task.
+     */
+    public static /* Script Console modifiable */ double LOCALITY_WEIGHT = Double.parseDouble(SystemProperties.getString(ScoringLoadBalancer.class.getName() + ".localityWeight", "0.75"));
+
+    private static final Logger LOGGER = Logger.getLogger(ScoringLoadBalancer.class.getName());
+}
@@ -0,0 +1,313 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.search;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Items;
+import hudson.model.Saveable;
+import hudson.model.TopLevelItem;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.security.ACL;
+import hudson.security.ACLBatch;
+import hudson.util.EditDistance;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * In-memory index of the names, display names and full names of all the {@link TopLevelItem}s,
+ * used to answer search box suggestions without going through every item (and checking its permissions)
+ * on every keystroke.
+ *
+ * <p>
+ * The index holds the lower-cased names and the words they are made of, sorted,
+ * so that prefix queries are answered by binary search, and substring and fuzzy queries
+ * by a scan over plain strings. It is dropped by {@link ItemListener} events and rebuilt on the next query.
+ * Permissions are not looked at here; callers check them on the ranked results, as far as they need.
+ *
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public final class ItemSearchIndex {
+
+    private static final ItemSearchIndex INSTANCE = new ItemSearchIndex();
+
+    /**
+     * Current snapshot, or null if it needs to be rebuilt.
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * Number of times the index was invalidated, so that a snapshot built concurrently with a change is not kept.
+     */
+    private int modCount;
+
+    public static ItemSearchIndex get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Drops the index, to be rebuilt the next time it is needed.
+     */
+    public synchronized void invalidate() {
+        modCount++;
+        snapshot = null;
+    }
+
+    /**
+     * Finds the items with a name, a display name, a full name, or a word thereof starting with the query.
+     */
+    public List<TopLevelItem> prefix(@NonNull String query) {
+        Set<TopLevelItem> r = new LinkedHashSet<>();
+        snapshot().prefix(normalize(query), r);
+        return new ArrayList<>(r);
+    }
+
+    /**
+     * Finds the items with a name, a display name or a full name containing the query.
+     */
+    public List<TopLevelItem> substring(@NonNull String query) {
+        Set<TopLevelItem> r = new LinkedHashSet<>();
+        snapshot().substring(normalize(query), r);
+        return new ArrayList<>(r);
+    }
+
+    /**
+     * Finds the items with a name, a display name, a full name, or a word thereof within the given edit distance of the query.
+     */
+    public List<TopLevelItem> fuzzy(@NonNull String query, int maxDistance) {
+        Set<TopLevelItem> r = new LinkedHashSet<>();
+        snapshot().fuzzy(normalize(query), maxDistance, r);
+        return new ArrayList<>(r);
+    }
+
+    /**
+     * Finds the items matching the query in any way, best matches first:
+     * prefix matches, then substring matches, then fuzzy matches within {@link #FUZZY_DISTANCE}.
+     */
+    public List<TopLevelItem> suggest(@NonNull String query) {
+        String q = normalize(query);
+        Snapshot s = snapshot();
+        Set<TopLevelItem> r = new LinkedHashSet<>();
+        s.prefix(q, r);
+        s.substring(q, r);
+        if (FUZZY_DISTANCE > 0 && q.length() > FUZZY_DISTANCE) {
+            s.fuzzy(q, FUZZY_DISTANCE, r);
+        }
+        return new ArrayList<>(r);
+    }
+
+    /**
+     * Whether the current user can see the given item, which means having {@link Item#READ} on it and on all the items containing it,
+     * as {@link Items#allItems} requires.
+     */
+    public static boolean isReadable(@NonNull Item item) {
+        // folders are shared by many items, so only check them once for all the candidates
+        try (ACLBatch batch = ACLBatch.open(Jenkins.getAuthentication2())) {
+            Item i = item;
+            while (i != null) {
+                if (!batch.hasPermission(i, Item.READ)) {
+                    return false;
+                }
+                ItemGroup<?> parent = i.getParent();
+                i = parent instanceof Item ? (Item) parent : null;
+            }
+            return true;
+        }
+    }
+
+    private Snapshot snapshot() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            int before;
+            synchronized (this) {
+                before = modCount;
+            }
+            s = new Snapshot(Items.allItems2(ACL.SYSTEM2, Jenkins.get(), TopLevelItem.class));
+            synchronized (this) {
+                if (modCount == before) {
+                    snapshot = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    private static String normalize(String s) {
+        return s.trim().toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Immutable state of the index.
+     */
+    private static final class Snapshot {
+        /**
+         * Lower-cased names, display names and full names along with their items, sorted by name.
+         */
+        private final Posting[] names;
+        /**
+         * {@link #names} as well as the words in them, sorted by word.
+         */
+        private final Posting[] words;
+
+        Snapshot(Iterable<TopLevelItem> items) {
+            List<Posting> names = new ArrayList<>();
+            List<Posting> words = new ArrayList<>();
+            for (TopLevelItem item : items) {
+                Set<String> terms = new LinkedHashSet<>();
+                terms.add(normalize(item.getName()));
+                terms.add(normalize(item.getDisplayName()));
+                terms.add(normalize(item.getFullName()));
+                Set<String> w = new LinkedHashSet<>(terms);
+                for (String term : terms) {
+                    names.add(new Posting(term, item));
+                    for (String word : term.split("[^\\p{L}\\p{N}]+")) {
+                        if (!word.isEmpty()) {
+                            w.add(word);
+                        }
+                    }
+                }
+                for (String word : w) {
+                    words.add(new Posting(word, item));
+                }
+            }
+            this.names = names.toArray(new Posting[0]);
+            this.words = words.toArray(new Posting[0]);
+            Arrays.sort(this.names);
+            Arrays.sort(this.words);
+        }
+
+        void prefix(String q, Set<TopLevelItem> r) {
+            int i = Arrays.binarySearch(words, new Posting(q, null));
+            if (i < 0) {
+                i = -i - 1;
+            } else {
+                // binarySearch finds any of the equal ones
+                while (i > 0 && words[i - 1].term.equals(q)) {
+                    i--;
+                }
+            }
+            for (; i < words.length && words[i].term.startsWith(q); i++) {
+                r.add(words[i].item);
+            }
+        }
+
+        void substring(String q, Set<TopLevelItem> r) {
+            for (Posting p : names) {
+                if (p.term.contains(q)) {
+                    r.add(p.item);
+                }
+            }
+        }
+
+        void fuzzy(String q, int maxDistance, Set<TopLevelItem> r) {
+            for (Posting p : words) {
+                if (Math.abs(p.term.length() - q.length()) <= maxDistance
+                        && EditDistance.editDistance(p.term, q) <= maxDistance) {
+                    r.add(p.item);
+                }
+            }
+        }
+    }
+
+    private static final class Posting implements Comparable<Posting> {
+        final String term;
+        final TopLevelItem item;
+
+        Posting(String term, TopLevelItem item) {
+            this.term = term;
+            this.item = item;
+        }
+
+        @Override
+        public int compareTo(Posting that) {
+            return this.term.compareTo(that.term);
+        }
+    }
+
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+        @Override
+        public void onCreated(Item item) {
+            INSTANCE.invalidate();
+        }
+
+        @Override
+        public void onCopied(Item src, Item item) {
+            INSTANCE.invalidate();
+        }
+
+        @Override
+        public void onLoaded() {
+            INSTANCE.invalidate();
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            INSTANCE.invalidate();
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            INSTANCE.invalidate();
+        }
+
+        @Override
+        public void onUpdated(Item item) {
+            // the display name may have changed
+            INSTANCE.invalidate();
+        }
+    }
+
+    /**
+     * Catches display names set from code, such as {@link hudson.model.AbstractItem#setDisplayName}, which only saves the item.
+     */
+    @Extension
+    public static final class SaveableListenerImpl extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Item) {
+                INSTANCE.invalidate();
+            }
+        }
+    }
+
+    /**
+     * Maximum edit distance of fuzzy suggestions; 0 to disable them.
+     */
+    public static /* Script Console modifiable */ int FUZZY_DISTANCE = SystemProperties.getInteger(ItemSearchIndex.class.getName() + ".fuzzyDistance", 1);
+}
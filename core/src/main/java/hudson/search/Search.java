@@ -26,6 +26,7 @@ package hudson.search;
 
 import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
 import hudson.Util;
+import hudson.security.ACLBatch;
 import hudson.util.EditDistance;
 
 import java.io.IOException;
@@ -140,13 +141,16 @@ public class Search implements StaplerProxy {
         SearchResultImpl r = new SearchResultImpl();
         int max = req.hasParameter("max") ? Integer.parseInt(req.getParameter("max")) : 100;
         SearchableModelObject smo = findClosestSearchableModelObject(req);
-        for (SuggestedItem i : suggest(makeSuggestIndex(req), query, smo)) {
-            if(r.size()>=max) {
-                r.hasMoreResults = true;
-                break;
+        // the indices check the permissions of many items, often in the same folders
+        try (ACLBatch batch = ACLBatch.open(Jenkins.getAuthentication2())) {
+            for (SuggestedItem i : suggest(makeSuggestIndex(req), query, smo)) {
+                if(r.size()>=max) {
+                    r.hasMoreResults = true;
+                    break;
+                }
+                if(paths.add(i.getPath()))
+                    r.add(i);
             }
-            if(paths.add(i.getPath()))
-                r.add(i);
         }
         return r;
     }
@@ -0,0 +1,212 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.security;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Util;
+import org.acegisecurity.acls.sid.GrantedAuthoritySid;
+import org.acegisecurity.acls.sid.PrincipalSid;
+import org.acegisecurity.acls.sid.Sid;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Evaluates a permission on many objects for one {@link Authentication},
+ * remembering in the meantime what would otherwise be computed again for every object:
+ * <ul>
+ * <li>the {@link ACL} of each item, so that the ACL of a folder is built once for all its children
+ *     when the authorization strategy derives theirs from it;
+ * <li>the decision of each distinct {@link ACL} for each permission, so that strategies handing out
+ *     the same ACL for many objects evaluate it once;
+ * <li>the {@link Sid}s of the authentication, that is its name and the groups it belongs to.
+ * </ul>
+ *
+ * <p>
+ * A batch is bound to the current thread from {@link #open} until {@link #close}, and is meant to span a single
+ * listing, not more: nothing it remembers is ever invalidated. Opening a batch for the same authentication
+ * while one is already open joins it. What the batch remembers is only used by checks made through
+ * {@link #hasPermission(AccessControlled, Permission)}, not by whatever else runs on the thread while it is open.
+ *
+ * <p>
+ * Objects overriding {@link AccessControlled#hasPermission(Permission)} or {@link AccessControlled#hasPermission2}
+ * are asked directly, as their answer may not come from their {@link ACL}.
+ *
+ * @see ACL#filter2(Authentication, Permission, Iterable)
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public final class ACLBatch implements AutoCloseable {
+
+    private static final ThreadLocal<ACLBatch> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Whether a type of {@link AccessControlled} decides on permissions by itself rather than (only) through its {@link ACL}.
+     * The default implementations of both methods go straight to the {@link ACL}, so overriding either counts.
+     */
+    private static final ClassValue<Boolean> OVERRIDES_HAS_PERMISSION = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return Util.isOverridden(AccessControlled.class, type, "hasPermission", Permission.class)
+                    || Util.isOverridden(AccessControlled.class, type, "hasPermission2", Authentication.class, Permission.class);
+        }
+    };
+
+    private final Authentication authentication;
+    /**
+     * The batch that was open before this one, to be restored on {@link #close}.
+     */
+    private final @CheckForNull ACLBatch outer;
+    /**
+     * Number of times this batch was opened and not closed yet.
+     */
+    private int depth = 1;
+    /**
+     * Number of checks of this batch in progress, during which {@link #getACL} and {@link #sidsOf} may use what the batch remembers.
+     */
+    private int checking;
+
+    private final Map<AccessControlled, ACL> acls = new IdentityHashMap<>();
+    private final Map<ACL, Map<Permission, Boolean>> decisions = new IdentityHashMap<>();
+    private List<Sid> sids;
+
+    private ACLBatch(Authentication authentication, @CheckForNull ACLBatch outer) {
+        this.authentication = authentication;
+        this.outer = outer;
+    }
+
+    /**
+     * Opens a batch for the given authentication, or joins the one already open for it on this thread.
+     */
+    public static @NonNull ACLBatch open(@NonNull Authentication a) {
+        ACLBatch current = CURRENT.get();
+        if (current != null && current.authentication.equals(a)) {
+            current.depth++;
+            return current;
+        }
+        ACLBatch batch = new ACLBatch(a, current);
+        CURRENT.set(batch);
+        return batch;
+    }
+
+    @Override
+    public void close() {
+        if (--depth > 0) {
+            return;
+        }
+        if (outer == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(outer);
+        }
+    }
+
+    /**
+     * Whether the authentication of this batch has the given permission on the given object,
+     * like {@link ACL#hasPermission(Permission)} would tell if it was the current one.
+     */
+    public boolean hasPermission(@NonNull AccessControlled o, @NonNull Permission p) {
+        if (authentication.equals(ACL.SYSTEM2)) {
+            return true;
+        }
+        if (OVERRIDES_HAS_PERMISSION.get(o.getClass())) {
+            try (ACLContext ctx = ACL.as2(authentication)) {
+                return o.hasPermission(p);
+            }
+        }
+        checking++;
+        try {
+            ACL acl = o.getACL();
+            Map<Permission, Boolean> m = decisions.get(acl);
+            if (m == null) {
+                m = new HashMap<>();
+                decisions.put(acl, m);
+            }
+            Boolean b = m.get(p);
+            if (b == null) {
+                // no computeIfAbsent: the ACL may well check other objects in this batch
+                b = ACLDecisionCache.hasPermission(acl, authentication, p);
+                m.put(p, b);
+            }
+            return b;
+        } finally {
+            checking--;
+        }
+    }
+
+    /**
+     * Gets the {@link ACL} of an object, only computing it once per batch.
+     * To be called by implementations of {@link AccessControlled#getACL} whose result only depends on the object.
+     */
+    public static @NonNull ACL getACL(@NonNull AccessControlled o, @NonNull Supplier<ACL> computation) {
+        ACLBatch batch = CURRENT.get();
+        if (batch == null || batch.checking == 0) {
+            return computation.get();
+        }
+        ACL acl = batch.acls.get(o);
+        if (acl == null) {
+            acl = computation.get();
+            batch.acls.put(o, acl);
+        }
+        return acl;
+    }
+
+    /**
+     * Gets the {@link Sid}s an authentication is checked as by {@link SidACL}, in the order they are to be checked.
+     */
+    /*package*/ static @NonNull List<Sid> sidsOf(@NonNull Authentication a) {
+        ACLBatch batch = CURRENT.get();
+        if (batch == null || batch.checking == 0 || !batch.authentication.equals(a)) {
+            return computeSids(a);
+        }
+        if (batch.sids == null) {
+            batch.sids = computeSids(a);
+        }
+        return batch.sids;
+    }
+
+    private static List<Sid> computeSids(Authentication a) {
+        List<Sid> sids = new ArrayList<>();
+        // ACL entries for this principal take precedence
+        sids.add(new PrincipalSid(a));
+        // then the groups this principal belongs to
+        for (GrantedAuthority ga : a.getAuthorities()) {
+            sids.add(new GrantedAuthoritySid(ga));
+        }
+        // permissions granted to 'everyone' and 'anonymous' users are granted to everyone
+        sids.addAll(Arrays.asList(ACL.AUTOMATIC_SIDS));
+        return Collections.unmodifiableList(sids);
+    }
+}
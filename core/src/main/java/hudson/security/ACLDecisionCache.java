@@ -0,0 +1,283 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.security;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import jenkins.model.Jenkins;
+import jenkins.security.SecurityListener;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.Stapler;
+import org.kohsuke.stapler.StaplerRequest;
+import org.springframework.security.core.Authentication;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the decisions of {@link ACL#hasPermission(Permission)} and {@link ACL#checkPermission(Permission)},
+ * which a single page asks for over and over again (to render side panel links, buttons, and so on).
+ *
+ * <p>
+ * Decisions are keyed by the authentication, the {@link ACL} instance and the permission, and are kept
+ * for the rest of the HTTP request they were made in. Optionally, they can also be kept across requests
+ * for {@link #TTL} milliseconds, which trades some staleness for speed: an {@link ACL} modified in place
+ * without its owner being saved is only noticed once the decision expires.
+ * Replacing the {@link AuthorizationStrategy} or the {@link SecurityRealm}, or saving {@link Jenkins} or an {@link Item}
+ * (whose configuration is where authorization strategies keep their settings) drops all the decisions,
+ * and users logging in or out drop theirs.
+ *
+ * <p>
+ * Since {@link ACL}s are told apart by identity, this only helps where the same {@link ACL} instance is asked again,
+ * such as the root ACL of most authorization strategies. So that {@link ACL}s created for every check do not
+ * crowd out the others, a decision is only kept across requests once it was asked for twice within
+ * the last {@link #MAX_ENTRIES} new decisions.
+ *
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public final class ACLDecisionCache {
+
+    private static final String REQUEST_ATTRIBUTE = ACLDecisionCache.class.getName();
+
+    /**
+     * Incremented whenever all the decisions made so far have to be forgotten.
+     */
+    private static final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Decisions kept across requests, if {@link #TTL} is positive.
+     */
+    private static final Map<Key, Decision> shared = new ConcurrentHashMap<>();
+
+    /**
+     * Decisions asked for once, which are only added to {@link #shared} if asked for again.
+     */
+    private static final Set<Key> seen = ConcurrentHashMap.newKeySet();
+
+    private ACLDecisionCache() {}
+
+    /**
+     * Equivalent to {@code acl.hasPermission2(a, p)}, but remembered.
+     */
+    /*package*/ static boolean hasPermission(@NonNull ACL acl, @NonNull Authentication a, @NonNull Permission p) {
+        if (!ENABLED) {
+            return acl.hasPermission2(a, p);
+        }
+        Key key = new Key(a, acl, p);
+        long g = generation.get();
+
+        Map<Key, Boolean> perRequest = perRequest(g);
+        if (perRequest != null) {
+            Boolean b = perRequest.get(key);
+            if (b != null) {
+                return b;
+            }
+        }
+
+        long ttl = TTL;
+        if (ttl > 0) {
+            Decision d = shared.get(key);
+            if (d != null && d.generation == g && System.currentTimeMillis() < d.expires) {
+                if (perRequest != null) {
+                    perRequest.put(key, d.value);
+                }
+                return d.value;
+            }
+        }
+
+        boolean b = acl.hasPermission2(a, p);
+
+        if (perRequest != null) {
+            perRequest.put(key, b);
+        }
+        if (ttl > 0 && admit(key)) {
+            shared.put(key, new Decision(b, g, System.currentTimeMillis() + ttl));
+        }
+        return b;
+    }
+
+    /**
+     * Whether a decision is worth keeping across requests.
+     */
+    private static boolean admit(Key key) {
+        if (!seen.remove(key)) {
+            if (seen.size() >= MAX_ENTRIES) {
+                seen.clear();
+            }
+            seen.add(key);
+            return false;
+        }
+        if (shared.size() >= MAX_ENTRIES) {
+            long now = System.currentTimeMillis();
+            long g = generation.get();
+            shared.values().removeIf(d -> d.generation != g || now >= d.expires);
+        }
+        // when still full, keep the decisions in use rather than dropping them all
+        return shared.size() < MAX_ENTRIES;
+    }
+
+    /**
+     * Gets the decisions made during the current HTTP request, if any.
+     */
+    private static @CheckForNull Map<Key, Boolean> perRequest(long g) {
+        StaplerRequest req = Stapler.getCurrentRequest();
+        if (req == null) {
+            return null;
+        }
+        RequestDecisions d = (RequestDecisions) req.getAttribute(REQUEST_ATTRIBUTE);
+        if (d == null || d.generation != g) {
+            d = new RequestDecisions(g);
+            req.setAttribute(REQUEST_ATTRIBUTE, d);
+        }
+        return d.decisions;
+    }
+
+    /**
+     * Forgets all the decisions, including those of requests in progress.
+     */
+    public static void invalidate() {
+        generation.incrementAndGet();
+        shared.clear();
+        seen.clear();
+    }
+
+    /**
+     * Forgets the decisions kept across requests about the given user.
+     */
+    private static void invalidate(@NonNull String username) {
+        shared.keySet().removeIf(k -> username.equals(k.authentication.getName()));
+    }
+
+    private static final class Key {
+        private final Authentication authentication;
+        /**
+         * Compared by identity.
+         */
+        private final ACL acl;
+        private final Permission permission;
+        private final int hash;
+
+        Key(Authentication authentication, ACL acl, Permission permission) {
+            this.authentication = authentication;
+            this.acl = acl;
+            this.permission = permission;
+            this.hash = 31 * (31 * authentication.hashCode() + System.identityHashCode(acl)) + permission.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key that = (Key) o;
+            return acl == that.acl && permission == that.permission && authentication.equals(that.authentication);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Decision {
+        final boolean value;
+        final long generation;
+        final long expires;
+
+        Decision(boolean value, long generation, long expires) {
+            this.value = value;
+            this.generation = generation;
+            this.expires = expires;
+        }
+    }
+
+    private static final class RequestDecisions {
+        final long generation;
+        final Map<Key, Boolean> decisions = new ConcurrentHashMap<>();
+
+        RequestDecisions(long generation) {
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * Drops the decisions about users whose groups may have changed.
+     * A fresh authentication with different groups is a different key anyway, so {@code authenticated2} is not watched,
+     * which keeps API clients authenticating on each request from flushing their own decisions.
+     */
+    @Extension
+    public static final class SecurityListenerImpl extends SecurityListener {
+        @Override
+        protected void loggedIn(@NonNull String username) {
+            invalidate(username);
+        }
+
+        @Override
+        protected void loggedOut(@NonNull String username) {
+            invalidate(username);
+        }
+
+        @Override
+        protected void userCreated(@NonNull String username) {
+            invalidate(username);
+        }
+    }
+
+    /**
+     * Drops all the decisions when the configuration of {@link Jenkins} or of an {@link Item} is saved,
+     * as the {@link ACL}s built from them may have changed in place.
+     */
+    @Extension
+    public static final class SaveableListenerImpl extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Jenkins || o instanceof Item) {
+                invalidate();
+            }
+        }
+    }
+
+    /**
+     * Whether decisions are remembered at all.
+     */
+    public static /* Script Console modifiable */ boolean ENABLED = SystemProperties.getBoolean(ACLDecisionCache.class.getName() + ".enabled", true);
+
+    /**
+     * Number of milliseconds decisions are also kept across requests, or 0 to only keep them for the request they were made in.
+     */
+    public static /* Script Console modifiable */ long TTL = SystemProperties.getLong(ACLDecisionCache.class.getName() + ".ttl", 0L);
+
+    /**
+     * Maximum number of decisions kept across requests, and of decisions asked for once remembered to tell which to keep.
+     */
+    public static /* Script Console modifiable */ int MAX_ENTRIES = SystemProperties.getInteger(ACLDecisionCache.class.getName() + ".maxEntries", 10000);
+}
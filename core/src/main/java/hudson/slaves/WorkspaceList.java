@@ -31,8 +31,8 @@ import hudson.model.DirectoryBrowserSupport;
 import java.io.Closeable;
 
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -42,15 +42,27 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 /**
  * Used by {@link Computer} to keep track of workspaces that are actively in use.
  *
+ * <p>
+ * Workspaces are locked by path on a set of internal locks, not on this object:
+ * synchronizing on a {@link WorkspaceList} does not prevent workspaces from being
+ * allocated or released, and waiting on it is never notified.
+ *
  * @author Kohsuke Kawaguchi
  * @since 1.319
  * @see Computer#getWorkspaceList()
  */
 public final class WorkspaceList {
     private static final class AllocationAt extends Exception {
+        private final boolean recorded;
+
+        AllocationAt(boolean recorded) {
+            super(null, null, false, recorded);
+            this.recorded = recorded;
+        }
+
         @Override
         public String toString() {
-            return "Allocation Point";
+            return recorded ? "Allocation Point" : "Allocation Point (not recorded, see " + WorkspaceList.class.getName() + ".diagnostics)";
         }
     }
     /**
@@ -68,9 +80,10 @@ public final class WorkspaceList {
         public final long time = System.currentTimeMillis();
 
         /**
-         * From where?
+         * From where? The stack trace is only filled in when {@link #DIAGNOSTICS} is enabled or {@link WorkspaceList} logs at {@code FINE},
+         * as capturing it on every allocation is not free. Otherwise it is empty.
          */
-        public final Exception source = new AllocationAt();
+        public final @NonNull Exception source = new AllocationAt(DIAGNOSTICS || LOGGER.isLoggable(Level.FINE));
 
         /**
          * True makes the caller of {@link WorkspaceList#allocate(FilePath)} wait
@@ -156,9 +169,26 @@ public final class WorkspaceList {
         }
     }
 
-    private final Map<String, Entry> inUse = new HashMap<>();
+    /**
+     * Workspaces in use, by their remote paths.
+     * Only modified while holding the {@link #lockFor(String) lock} of the path.
+     */
+    private final Map<String, Entry> inUse = new ConcurrentHashMap<>();
+
+    /**
+     * Striped locks guarding {@link #inUse}, so that allocations of unrelated workspaces do not contend,
+     * and releasing a workspace only wakes up the threads waiting on paths of the same stripe.
+     */
+    private final Object[] locks = new Object[STRIPES];
 
     public WorkspaceList() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    private Object lockFor(@NonNull String remote) {
+        return locks[(remote.hashCode() & 0x7fffffff) % locks.length];
     }
 
     /**
@@ -168,7 +198,7 @@ public final class WorkspaceList {
      * This method doesn't block prolonged amount of time. Whenever a desired workspace
      * is in use, the unique variation is added.
      */
-    public synchronized Lease allocate(@NonNull FilePath base) throws InterruptedException {
+    public Lease allocate(@NonNull FilePath base) throws InterruptedException {
         return allocate(base,new Object());
     }
 
@@ -179,43 +209,65 @@ public final class WorkspaceList {
      *      Threads that share the same context can re-acquire the same lock (which will just increment the lock count.)
      *      This allows related executors to share the same workspace.
      */
-    public synchronized Lease allocate(@NonNull FilePath base, Object context) throws InterruptedException {
+    public Lease allocate(@NonNull FilePath base, Object context) throws InterruptedException {
         for (int i=1; ; i++) {
             FilePath candidate = i==1 ? base : base.withSuffix(COMBINATOR+i);
             Entry e = inUse.get(candidate.getRemote());
             if(e!=null && !e.quick && e.context!=context)
                 continue;
-            return acquire(candidate,false,context);
+            synchronized (lockFor(candidate.getRemote())) {
+                // check again now that nobody else can take it
+                e = inUse.get(candidate.getRemote());
+                if(e!=null && !e.quick && e.context!=context)
+                    continue;
+                return acquire(candidate,false,context);
+            }
         }
     }
 
     /**
      * Just record that this workspace is being used, without paying any attention to the synchronization support.
      */
-    public synchronized Lease record(@NonNull FilePath p) {
+    public Lease record(@NonNull FilePath p) {
         if (LOGGER.isLoggable(Level.FINE)) {
             LOGGER.log(Level.FINE, "recorded " + p, new Throwable("from " + this));
         }
-        Entry old = inUse.put(p.getRemote(), new Entry(p, false));
-        if (old!=null)
-            throw new AssertionError("Tried to record a workspace already owned: "+old);
+        synchronized (lockFor(p.getRemote())) {
+            Entry old = inUse.put(p.getRemote(), new Entry(p, false));
+            if (old!=null)
+                throw new AssertionError("Tried to record a workspace already owned: "+old);
+        }
         return lease(p);
     }
 
+    /**
+     * Checks whether the given workspace is currently allocated, acquired or recorded.
+     * Only a hint, as the answer may be stale by the time the caller looks at it.
+     * @since TODO
+     */
+    public boolean isInUse(@NonNull FilePath p) {
+        return inUse.containsKey(p.getRemote());
+    }
+
     /**
      * Releases an allocated or acquired workspace.
      */
-    private synchronized void _release(@NonNull FilePath p) {
-        Entry old = inUse.get(p.getRemote());
-        if (old==null)
-            throw new AssertionError("Releasing unallocated workspace "+p);
-        if (LOGGER.isLoggable(Level.FINE)) {
-            LOGGER.log(Level.FINE, "releasing " + p + " with lock count " + old.lockCount, new Throwable("from " + this));
+    private void _release(@NonNull FilePath p) {
+        Object lock = lockFor(p.getRemote());
+        synchronized (lock) {
+            Entry old = inUse.get(p.getRemote());
+            if (old==null)
+                throw new AssertionError("Releasing unallocated workspace "+p);
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "releasing " + p + " with lock count " + old.lockCount, new Throwable("from " + this));
+            }
+            old.lockCount--;
+            if (old.lockCount==0) {
+                inUse.remove(p.getRemote());
+                // only those waiting on a path of this stripe could be interested
+                lock.notifyAll();
+            }
         }
-        old.lockCount--;
-        if (old.lockCount==0)
-            inUse.remove(p.getRemote());
-        notifyAll();
     }
 
     /**
@@ -224,7 +276,7 @@ public final class WorkspaceList {
      * @return
      *      The same {@link FilePath} as given to this method.
      */
-    public synchronized Lease acquire(@NonNull FilePath p) throws InterruptedException {
+    public Lease acquire(@NonNull FilePath p) throws InterruptedException {
         return acquire(p,false);
     }
 
@@ -235,7 +287,7 @@ public final class WorkspaceList {
      *      If true, indicates that the acquired workspace will be returned quickly.
      *      This makes other calls to {@link #allocate(FilePath)} to wait for the release of this workspace.
      */
-    public synchronized Lease acquire(@NonNull FilePath p, boolean quick) throws InterruptedException {
+    public Lease acquire(@NonNull FilePath p, boolean quick) throws InterruptedException {
         return acquire(p,quick,new Object());
     }
     
@@ -246,28 +298,35 @@ public final class WorkspaceList {
      *      Threads that share the same context can re-acquire the same lock (which will just increment the lock count.)
      *      This allows related executors to share the same workspace.
      */
-    public synchronized Lease acquire(@NonNull FilePath p, boolean quick, Object context) throws InterruptedException {
+    public Lease acquire(@NonNull FilePath p, boolean quick, Object context) throws InterruptedException {
         Entry e;
 
-        Thread t = Thread.currentThread();
-        String oldName = t.getName();
-        t.setName("Waiting to acquire "+p+" : "+t.getName());
-        try {
-            while (true) {
-                e = inUse.get(p.getRemote());
-                if (e==null || e.context==context)
-                    break;
-                wait();
+        Object lock = lockFor(p.getRemote());
+        synchronized (lock) {
+            e = inUse.get(p.getRemote());
+            if (e!=null && e.context!=context) {
+                // only rename the thread if we actually need to wait
+                Thread t = Thread.currentThread();
+                String oldName = t.getName();
+                t.setName("Waiting to acquire "+p+" : "+t.getName());
+                try {
+                    while (true) {
+                        lock.wait();
+                        e = inUse.get(p.getRemote());
+                        if (e==null || e.context==context)
+                            break;
+                    }
+                } finally {
+                    t.setName(oldName);
+                }
             }
-        } finally {
-            t.setName(oldName);
-        }
-        if (LOGGER.isLoggable(Level.FINE)) {
-            LOGGER.log(Level.FINE, "acquired " + p + (e == null ? "" : " with lock count " + e.lockCount), new Throwable("from " + this));
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "acquired " + p + (e == null ? "" : " with lock count " + e.lockCount), new Throwable("from " + this));
+            }
+
+            if (e!=null)    e.lockCount++;
+            else            inUse.put(p.getRemote(), new Entry(p,quick,context));
         }
-        
-        if (e!=null)    e.lockCount++;
-        else            inUse.put(p.getRemote(), new Entry(p,quick,context));
         return lease(p);
     }
 
@@ -310,6 +369,16 @@ public final class WorkspaceList {
 
     private static final Logger LOGGER = Logger.getLogger(WorkspaceList.class.getName());
 
+    /**
+     * Whether to record where each workspace was allocated from, see {@link Entry#source}.
+     */
+    private static final boolean DIAGNOSTICS = SystemProperties.getBoolean(WorkspaceList.class.getName() + ".diagnostics");
+
+    /**
+     * Number of stripes {@link #inUse} is locked with.
+     */
+    private static final int STRIPES = Math.max(1, SystemProperties.getInteger(WorkspaceList.class.getName() + ".stripes", 32));
+
     /**
      * The token that combines the project name and unique number to create unique workspace directory.
      * @since 2.244
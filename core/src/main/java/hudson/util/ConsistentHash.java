@@ -127,6 +127,41 @@ public class ConsistentHash<T> {
             }
         }
 
+        /**
+         * Creates a table out of the given one, where the points of the given node get replaced
+         * by the specified ones. Since both sides are sorted already, this is a linear merge
+         * rather than sorting everything all over again.
+         */
+        private Table(Table base, T node, Point[] points) {
+            Point[] added = points == null ? new Point[0] : points.clone();
+            Arrays.sort(added);
+
+            int kept = 0;
+            for (Object o : base.owner) {
+                if (!node.equals(o)) {
+                    kept++;
+                }
+            }
+            numPoints = kept + added.length;
+
+            hash = new int[numPoints];
+            owner = new Object[numPoints];
+
+            int i = 0, j = 0;
+            for (int k = 0; k < numPoints; k++) {
+                while (i < base.hash.length && node.equals(base.owner[i])) {
+                    i++;
+                }
+                if (i < base.hash.length && (j == added.length || base.hash[i] <= added[j].hash)) {
+                    hash[k] = base.hash[i];
+                    owner[k] = base.owner[i++];
+                } else {
+                    hash[k] = added[j].hash;
+                    owner[k] = added[j++].item;
+                }
+            }
+        }
+
         T lookup(int queryPoint) {
             int i = index(queryPoint);
             if (i < 0) {
@@ -273,10 +308,15 @@ public class ConsistentHash<T> {
 
     /**
      * Adds a new node with the given number of replica.
+     *
+     * <p>
+     * This only digests the points of this node that were not there already,
+     * and merges them into the existing table in linear time. To change many nodes at once,
+     * {@link #addAll(Map)} is cheaper.
      */
     public synchronized void add(T node, int replica) {
         addInternal(node, replica);
-        refreshTable();
+        table = new Table(table, node, items.get(node));
     }
 
     private synchronized void addInternal(T node, int replica) {
@@ -284,9 +324,17 @@ public class ConsistentHash<T> {
             items.remove(node);
         } else {
             Point[] points = new Point[replica];
-            String seed = hash.hash(node);
-            for (int i = 0; i < replica; i++) {
-                points[i] = new Point(digest(seed + ':' + i), node);
+            // the i-th point only depends on the node and i, so keep the ones we already digested
+            Point[] old = items.get(node);
+            int reused = old == null ? 0 : Math.min(old.length, replica);
+            for (int i = 0; i < reused; i++) {
+                points[i] = new Point(old[i].hash, node);
+            }
+            if (reused < replica) {
+                String seed = hash.hash(node);
+                for (int i = reused; i < replica; i++) {
+                    points[i] = new Point(digest(seed + ':' + i), node);
+                }
             }
             items.put(node, points);
         }
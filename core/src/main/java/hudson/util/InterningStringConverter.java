@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.util;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.thoughtworks.xstream.converters.basic.AbstractSingleValueConverter;
+import com.thoughtworks.xstream.converters.basic.StringConverter;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Reads short strings so that equal ones share the same instance, across all the files read by {@link XStream2}.
+ *
+ * <p>
+ * The same short strings (label expressions, parameter names, cause descriptions, SCM URLs, and so on)
+ * come back in the configuration of many jobs and in the {@code build.xml} of many builds.
+ * The {@link StringConverter} of XStream only deduplicates them within one {@link XStream2} instance,
+ * behind a single lock which threads loading jobs in parallel contend for.
+ *
+ * <p>
+ * This uses a weak interner shared by all instances instead, for strings at most {@link #MAX_LENGTH} characters long.
+ * It only holds on to a string for as long as something else loaded refers to it,
+ * so it never keeps strings of unloaded jobs and builds alive.
+ * Longer strings (such as descriptions or scripts) are unlikely to be repeated and are left alone.
+ * When {@link #MAX_LENGTH} is 0, strings are read by the stock {@link StringConverter}.
+ *
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public class InterningStringConverter extends AbstractSingleValueConverter {
+
+    private static final Interner<String> STRINGS = Interners.newWeakInterner();
+
+    /**
+     * What reads strings when interning is off.
+     */
+    private final StringConverter stock = new StringConverter();
+
+    @Override
+    public boolean canConvert(Class type) {
+        return type == String.class;
+    }
+
+    @Override
+    public Object fromString(String str) {
+        if (MAX_LENGTH <= 0) {
+            return stock.fromString(str);
+        }
+        return intern(str);
+    }
+
+    /**
+     * Returns the canonical instance of the given string, if it is short enough to be interned.
+     */
+    public static String intern(String str) {
+        if (str == null || str.length() > MAX_LENGTH) {
+            return str;
+        }
+        if (str.isEmpty()) {
+            return "";
+        }
+        return STRINGS.intern(str);
+    }
+
+    /**
+     * Length of the longest strings to intern. 0 turns interning off.
+     */
+    public static /* Script Console modifiable */ int MAX_LENGTH = SystemProperties.getInteger(InterningStringConverter.class.getName() + ".maxLength", 128);
+}
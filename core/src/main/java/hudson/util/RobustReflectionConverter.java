@@ -49,15 +49,21 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import static java.util.logging.Level.FINE;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import net.jcip.annotations.GuardedBy;
+import jenkins.util.SystemProperties;
 import jenkins.util.xstream.CriticalXStreamException;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 
 /**
  * Custom {@link ReflectionConverter} that handle errors more gracefully.
@@ -87,6 +93,15 @@ public class RobustReflectionConverter implements Converter {
     @GuardedBy("criticalFieldsLock")
     private final Map<String, Set<String>> criticalFields = new HashMap<>();
 
+    /**
+     * What was found out about the fields of each class when unmarshalling, keyed by class and then by field name,
+     * so that fields, critical fields and local converters are only looked up once rather than for each element.
+     * Discarded when critical fields are added, local converters registered, or plugins loaded.
+     */
+    private final Map<Class<?>, Map<String, FieldPlan>> plans = new ConcurrentHashMap<>();
+    /** The value of {@link #plansGeneration} {@link #plans} were computed for. */
+    private volatile int plansComputedFor;
+
     public RobustReflectionConverter(Mapper mapper, ReflectionProvider reflectionProvider) {
         this(mapper, reflectionProvider, new XStream2().new PluginClassOwnership());
     }
@@ -113,6 +128,35 @@ public class RobustReflectionConverter implements Converter {
             // Unlock
             criticalFieldsLock.writeLock().unlock();
         }
+        plans.clear();
+    }
+
+    /**
+     * Forgets what was found out about the fields of classes, for example because local converters were registered.
+     */
+    void clearPlans() {
+        plans.clear();
+    }
+
+    /**
+     * Makes all converters forget what was found out about the fields of classes,
+     * as plugins that just got loaded may have changed how some of them are mapped.
+     */
+    @Restricted(NoExternalUse.class)
+    public static void invalidatePlans() {
+        plansGeneration.incrementAndGet();
+    }
+
+    private FieldPlan plan(Class<?> type, String fieldName) {
+        if (!CACHE_PLANS) {
+            return new FieldPlan(type, fieldName);
+        }
+        int generation = plansGeneration.get();
+        if (plansComputedFor != generation) {
+            plans.clear();
+            plansComputedFor = generation;
+        }
+        return plans.computeIfAbsent(type, k -> new ConcurrentHashMap<>()).computeIfAbsent(fieldName, n -> new FieldPlan(type, n));
     }
     
     private boolean hasCriticalField(Class<?> clazz, String field) {
@@ -285,9 +329,8 @@ public class RobustReflectionConverter implements Converter {
             String attrAlias = (String) it.next();
             String attrName = mapper.attributeForAlias(attrAlias);
             Class classDefiningField = determineWhichClassDefinesField(reader);
-            boolean fieldExistsInClass = fieldDefinedInClass(result, attrName);
-            if (fieldExistsInClass) {
-                Field field = reflectionProvider.getField(result.getClass(), attrName);
+            Field field = plan(result.getClass(), attrName).field;
+            if (field != null) {
                 SingleValueConverter converter = mapper.getConverterFromAttribute(field.getDeclaringClass(),attrName,field.getType());
                 Class type = field.getType();
                 if (converter == null) {
@@ -314,25 +357,19 @@ public class RobustReflectionConverter implements Converter {
             boolean critical = false;
             try {
                 String fieldName = mapper.realMember(result.getClass(), reader.getNodeName());
-                for (Class<?> concrete = result.getClass(); concrete != null; concrete = concrete.getSuperclass()) {
-                    // Not quite right since a subclass could shadow a field, but probably suffices:
-                    if (hasCriticalField(concrete, fieldName)) {
-                        critical = true;
-                        break;
-                    }
-                }
+                FieldPlan plan = plan(result.getClass(), fieldName);
+                critical = plan.critical;
                 boolean implicitCollectionHasSameName = mapper.getImplicitCollectionDefForFieldName(result.getClass(), reader.getNodeName()) != null;
 
                 Class classDefiningField = determineWhichClassDefinesField(reader);
-                boolean fieldExistsInClass = !implicitCollectionHasSameName && fieldDefinedInClass(result,fieldName);
+                boolean fieldExistsInClass = !implicitCollectionHasSameName && plan.field != null;
 
-                Class type = determineType(reader, fieldExistsInClass, result, fieldName, classDefiningField);
+                Class type = determineType(reader, fieldExistsInClass, result, fieldName, classDefiningField, plan.field);
                 final Object value;
                 if (fieldExistsInClass) {
-                    Field field = reflectionProvider.getField(result.getClass(),fieldName);
-                    value = unmarshalField(context, result, type, field);
+                    value = unmarshalField(context, result, type, plan.field);
                     // TODO the reflection provider should have returned the proper field in first place ....
-                    Class definedType = reflectionProvider.getFieldType(result, fieldName, classDefiningField);
+                    Class definedType = fieldType(result, fieldName, classDefiningField, plan.field);
                     if (!definedType.isPrimitive()) {
                         type = definedType;
                     }
@@ -400,17 +437,21 @@ public class RobustReflectionConverter implements Converter {
         list.add(e);
     }
 
-    private boolean fieldDefinedInClass(Object result, String attrName) {
-        // during unmarshalling, unmarshal into transient fields like XStream 1.1.3
-        //boolean fieldExistsInClass = reflectionProvider.fieldDefinedInClass(attrName, result.getClass());
-        return reflectionProvider.getFieldOrNull(result.getClass(),attrName)!=null;
-    }
-
     protected Object unmarshalField(final UnmarshallingContext context, final Object result, Class type, Field field) {
-        Converter converter = mapper.getLocalConverter(field.getDeclaringClass(), field.getName());
+        Converter converter = plan(field.getDeclaringClass(), field.getName()).converter;
         return context.convertAnother(result, type, converter);
     }
 
+    /**
+     * Type of the field, using the field already found if it is the one asked for.
+     */
+    private Class fieldType(Object result, String fieldName, Class definedIn, @CheckForNull Field field) {
+        if (field != null && definedIn == null) {
+            return field.getType();
+        }
+        return reflectionProvider.getFieldType(result, fieldName, definedIn);
+    }
+
     private Map writeValueToImplicitCollection(UnmarshallingContext context, Object value, Map implicitCollections, Object result, String itemFieldName) {
         String fieldName = mapper.getFieldNameForItemTypeAndName(context.getRequiredType(), value.getClass(), itemFieldName);
         if (fieldName != null) {
@@ -472,9 +513,9 @@ public class RobustReflectionConverter implements Converter {
 
     }
 
-    private Class determineType(HierarchicalStreamReader reader, boolean validField, Object result, String fieldName, Class definedInCls) {
+    private Class determineType(HierarchicalStreamReader reader, boolean validField, Object result, String fieldName, Class definedInCls, @CheckForNull Field field) {
         String classAttribute = reader.getAttribute(mapper.aliasForAttribute("class"));
-        Class fieldType = reflectionProvider.getFieldType(result, fieldName, definedInCls);
+        Class fieldType = fieldType(result, fieldName, definedInCls, field);
         if (classAttribute != null) {
             Class specifiedType = mapper.realClass(classAttribute);
             if(fieldType.isAssignableFrom(specifiedType))
@@ -499,6 +540,39 @@ public class RobustReflectionConverter implements Converter {
         return this;
     }
 
+    /**
+     * What there is to know about a field of a class, independently of the object being unmarshalled.
+     */
+    private final class FieldPlan {
+        /**
+         * The field, or null if the class has none by this name.
+         * During unmarshalling, transient fields are unmarshalled into too, like XStream 1.1.3 did.
+         */
+        final @CheckForNull Field field;
+        /**
+         * Whether a class in the hierarchy declared a critical field of this name.
+         */
+        final boolean critical;
+        /**
+         * The converter registered for this field specifically, if any.
+         */
+        final @CheckForNull Converter converter;
+
+        FieldPlan(Class<?> type, String fieldName) {
+            field = reflectionProvider.getFieldOrNull(type, fieldName);
+            boolean c = false;
+            for (Class<?> concrete = type; concrete != null; concrete = concrete.getSuperclass()) {
+                // Not quite right since a subclass could shadow a field, but probably suffices:
+                if (hasCriticalField(concrete, fieldName)) {
+                    c = true;
+                    break;
+                }
+            }
+            critical = c;
+            converter = field == null ? null : mapper.getLocalConverter(field.getDeclaringClass(), field.getName());
+        }
+    }
+
     public static class DuplicateFieldException extends ConversionException {
         public DuplicateFieldException(String msg) {
             super(msg);
@@ -507,4 +581,12 @@ public class RobustReflectionConverter implements Converter {
     }
 
     private static final Logger LOGGER = Logger.getLogger(RobustReflectionConverter.class.getName());
+
+    private static final AtomicInteger plansGeneration = new AtomicInteger();
+
+    /**
+     * Whether what is found out about the fields of a class is kept for the next objects of the same class.
+     */
+    @Restricted(NoExternalUse.class)
+    public static /* Script Console modifiable */ boolean CACHE_PLANS = SystemProperties.getBoolean(RobustReflectionConverter.class.getName() + ".cachePlans", true);
 }
@@ -34,6 +34,7 @@ import hudson.model.Run;
 import hudson.model.TopLevelItem;
 import hudson.model.View;
 import hudson.util.Iterators.CountingPredicate;
+import jenkins.model.lazy.BuildTimeline;
 
 import java.util.*;
 
@@ -46,6 +47,11 @@ public class RunList<R extends Run> extends AbstractList<R> {
 
     private Iterable<R> base;
 
+    /**
+     * If not null, {@link #base} is made of these entries, so they can be filtered instead of the runs themselves.
+     */
+    private Iterable<BuildTimeline.Entry> timeline;
+
     private R first;
     private Integer size;
 
@@ -62,18 +68,11 @@ public class RunList<R extends Run> extends AbstractList<R> {
         for (TopLevelItem item : view.getItems())
             jobs.addAll(item.getAllJobs());
 
-        List<Iterable<R>> runLists = new ArrayList<>();
-        for (Job job : jobs) {
-            runLists.add(job.getBuilds());
-        }
-        this.base = combine(runLists);
+        setTimeline(BuildTimeline.get().of(jobs));
     }
 
     public RunList(Collection<? extends Job> jobs) {
-        List<Iterable<R>> runLists = new ArrayList<>();
-        for (Job j : jobs)
-            runLists.add(j.getBuilds());
-        this.base = combine(runLists);
+        setTimeline(BuildTimeline.get().of(jobs));
     }
 
     /**
@@ -86,26 +85,26 @@ public class RunList<R extends Run> extends AbstractList<R> {
      * @since 2.37
      */
     public static <J extends Job<J,R>, R extends Run<J,R>> RunList<R> fromJobs(Iterable<? extends J> jobs) {
-        List<Iterable<R>> runLists = new ArrayList<>();
-        for (Job j : jobs)
-            runLists.add(j.getBuilds());
-        return new RunList<>(combine(runLists));
-    }
-
-    private static <R extends Run> Iterable<R> combine(Iterable<Iterable<R>> runLists) {
-        return Iterables.mergeSorted(runLists, new Comparator<R>() {
-            public int compare(R o1, R o2) {
-                long lhs = o1.getTimeInMillis();
-                long rhs = o2.getTimeInMillis();
-                return Long.compare(rhs, lhs);
-            }
-        });
+        List<Job> list = new ArrayList<>();
+        Iterables.addAll(list, jobs);
+        return new RunList<>(list);
     }
 
     private RunList(Iterable<R> c) {
         base = c;
     }
 
+    /**
+     * Makes this list consist of the runs of the given entries.
+     * Runs are only loaded as they are iterated over.
+     */
+    private void setTimeline(Iterable<BuildTimeline.Entry> timeline) {
+        size = null;
+        first = null;
+        this.timeline = timeline;
+        this.base = Iterables.filter(Iterables.transform(timeline, e -> (R) e.getRun()), Objects::nonNull);
+    }
+
     @Override
     public Iterator<R> iterator() {
         return base.iterator();
@@ -209,6 +208,7 @@ public class RunList<R extends Run> extends AbstractList<R> {
     public RunList<R> filter(Predicate<R> predicate) {
         size = null;
         first = null;
+        timeline = null;
         base = Iterables.filter(base,predicate);
         return this;
     }
@@ -221,6 +221,7 @@ public class RunList<R extends Run> extends AbstractList<R> {
     private RunList<R> limit(final CountingPredicate<R> predicate) {
         size = null;
         first = null;
+        timeline = null;
         final Iterable<R> nested = base;
         base = new Iterable<R>() {
             public Iterator<R> iterator() {
@@ -255,6 +256,17 @@ public class RunList<R extends Run> extends AbstractList<R> {
      * <em>Warning:</em> this method mutates the original list and then returns it.
      */
     public RunList<R> failureOnly() {
+        if (timeline != null) {
+            setTimeline(Iterables.filter(timeline, e -> {
+                if (e.getResult() != null) {
+                    return e.getResult() != Result.SUCCESS;
+                }
+                // was still running when last seen
+                Run r = e.getRun();
+                return r != null && r.getResult() != Result.SUCCESS;
+            }));
+            return this;
+        }
         return filter(new Predicate<R>() {
             public boolean apply(R r) {
                 return r.getResult()!=Result.SUCCESS;
@@ -319,6 +331,19 @@ public class RunList<R extends Run> extends AbstractList<R> {
      * <em>Warning:</em> this method mutates the original list and then returns it.
      */
     public RunList<R> byTimestamp(final long start, final long end) {
+        if (timeline != null) {
+            final Iterable<BuildTimeline.Entry> nested = timeline;
+            setTimeline(Iterables.filter(new Iterable<BuildTimeline.Entry>() {
+                public Iterator<BuildTimeline.Entry> iterator() {
+                    return hudson.util.Iterators.limit(nested.iterator(), new CountingPredicate<BuildTimeline.Entry>() {
+                        public boolean apply(int index, BuildTimeline.Entry e) {
+                            return start<=e.getTimeInMillis();
+                        }
+                    });
+                }
+            }, e -> e.getTimeInMillis()<end));
+            return this;
+        }
         return
         limit(new CountingPredicate<R>() {
             public boolean apply(int index, R r) {
@@ -57,6 +57,7 @@ import hudson.util.xstream.ImmutableSortedSetConverter;
 import jenkins.util.xstream.SafeURLConverter;
 import jenkins.model.Jenkins;
 import hudson.model.Label;
+import hudson.model.LazyActions;
 import hudson.model.Result;
 import hudson.model.Saveable;
 import hudson.util.xstream.ImmutableListConverter;
@@ -75,6 +76,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -229,6 +231,15 @@ public class XStream2 extends XStream {
         reflectionConverter.addCriticalField(clazz, field);
     }
 
+    @Override
+    public void registerLocalConverter(Class definedIn, String fieldName, Converter converter) {
+        super.registerLocalConverter(definedIn, fieldName, converter);
+        // local converters are looked up once per field by RobustReflectionConverter
+        if (reflectionConverter != null) {
+            reflectionConverter.clearPlans();
+        }
+    }
+
     static String trimVersion(String version) {
         // TODO seems like there should be some trick with VersionNumber to do this
         return version.replaceFirst(" .+$", "");
@@ -252,6 +263,8 @@ public class XStream2 extends XStream {
         registerConverter(new Label.ConverterImpl(),10);
         // SECURITY-637 against URL deserialization
         registerConverter(new SafeURLConverter(),10); 
+        // share the many copies of the same strings found across jobs and builds
+        registerConverter(new InterningStringConverter(),10);
 
         // this should come after all the XStream's default simpler converters,
         // but before reflection-based one kicks in.
@@ -279,6 +292,8 @@ public class XStream2 extends XStream {
                     return super.serializedClass(ImmutableMap.class);
                 else if (type != null && ImmutableList.class.isAssignableFrom(type))
                     return super.serializedClass(ImmutableList.class);
+                else if (type == LazyActions.class || type == LazyActions.WithUnreadable.class) // written just like the list it stands for
+                    return super.serializedClass(CopyOnWriteArrayList.class);
                 else
                     return super.serializedClass(type);
             }
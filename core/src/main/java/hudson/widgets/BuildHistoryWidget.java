@@ -73,7 +73,7 @@ public class BuildHistoryWidget<T> extends HistoryWidget<Task,T> {
     public HistoryPageFilter getHistoryPageFilter() {
         final HistoryPageFilter<T> historyPageFilter = newPageFilter();
 
-        historyPageFilter.add(baseList, getQueuedItems());
+        historyPageFilter.add(getPageItems(), getQueuedItems());
         historyPageFilter.widget = this;
 
         return updateFirstTransientBuildKey(historyPageFilter);
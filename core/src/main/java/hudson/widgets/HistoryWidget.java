@@ -25,9 +25,12 @@ package hudson.widgets;
 
 import hudson.Functions;
 import jenkins.util.SystemProperties;
+import hudson.model.Job;
 import hudson.model.ModelObject;
 import hudson.model.Run;
 
+import jenkins.model.lazy.BuildTimeline;
+import jenkins.model.lazy.LazyBuildMixIn;
 import jenkins.widgets.HistoryPageEntry;
 import jenkins.widgets.HistoryPageFilter;
 import org.kohsuke.stapler.Header;
@@ -178,11 +181,25 @@ public class HistoryWidget<O extends ModelObject,T> extends Widget {
     public HistoryPageFilter getHistoryPageFilter() {
         HistoryPageFilter<T> historyPageFilter = newPageFilter();
 
-        historyPageFilter.add(baseList);
+        historyPageFilter.add(getPageItems());
         historyPageFilter.widget = this;
         return updateFirstTransientBuildKey(historyPageFilter);
     }
 
+    /**
+     * Gets what to page through. If {@link #baseList} is the whole build record of a lazy loading job,
+     * that is the {@link BuildTimeline} of the job, so that searching and skipping pages does not load
+     * the builds that end up not being shown.
+     */
+    @SuppressWarnings("unchecked")
+    /*package*/ Iterable<T> getPageItems() {
+        if (owner instanceof LazyBuildMixIn.LazyLoadingJob
+                && baseList == ((LazyBuildMixIn.LazyLoadingJob) owner).getLazyBuildMixIn()._getRuns()) {
+            return (Iterable) BuildTimeline.get().of(Collections.singleton((Job) owner));
+        }
+        return baseList;
+    }
+
     protected HistoryPageFilter<T> newPageFilter() {
         HistoryPageFilter<T> historyPageFilter = new HistoryPageFilter<>(THRESHOLD);
 
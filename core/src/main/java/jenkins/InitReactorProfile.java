@@ -0,0 +1,354 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.init.InitMilestone;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.jvnet.hudson.reactor.Milestone;
+import org.jvnet.hudson.reactor.ReactorListener;
+import org.jvnet.hudson.reactor.Task;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records when each task of an {@link InitReactorRunner} run started and completed, and on which thread,
+ * to tell what the startup time was spent on.
+ *
+ * <p>
+ * Once the run is over, the critical path is computed: starting from the task that completed last,
+ * it goes back from each task to the task it required that completed last,
+ * that is, the one it had to wait for. Speeding up any other task would not have made the run any shorter.
+ *
+ * @see jenkins.management.StartupProfileLink
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public final class InitReactorProfile implements ReactorListener {
+
+    /**
+     * Profile of the last time Jenkins was started or reloaded.
+     */
+    private static volatile InitReactorProfile last;
+
+    private final long startMillis = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private long endNanos;
+
+    /**
+     * Records of the tasks running or run. Tasks are only kept until {@link #complete}.
+     */
+    private final Map<Task, TaskRecord> tasks = new IdentityHashMap<>();
+    /**
+     * Records of the named tasks, in the order they started.
+     */
+    private final List<TaskRecord> records = new ArrayList<>();
+    private final Map<String, Long> milestones = new LinkedHashMap<>();
+    private List<TaskRecord> criticalPath = Collections.emptyList();
+
+    /**
+     * The last {@link InitMilestone} attained.
+     */
+    private volatile InitMilestone level;
+
+    public static @CheckForNull InitReactorProfile getLast() {
+        return last;
+    }
+
+    public static void setLast(InitReactorProfile profile) {
+        last = profile;
+    }
+
+    @Override
+    public void onTaskStarted(Task t) {
+        TaskRecord r = new TaskRecord(InitReactorRunner.getDisplayName(t), Thread.currentThread().getName(), now(), level);
+        synchronized (this) {
+            tasks.put(t, r);
+            if (r.name != null) { // not one of the tasks ordering the milestones
+                records.add(r);
+            }
+        }
+    }
+
+    @Override
+    public void onTaskCompleted(Task t) {
+        end(t, false);
+    }
+
+    @Override
+    public void onTaskFailed(Task t, Throwable err, boolean fatal) {
+        end(t, true);
+    }
+
+    @Override
+    public void onAttained(Milestone milestone) {
+        if (milestone instanceof InitMilestone) {
+            level = (InitMilestone) milestone;
+        }
+        synchronized (this) {
+            milestones.put(milestone.toString(), now());
+        }
+    }
+
+    private synchronized void end(Task t, boolean failed) {
+        TaskRecord r = tasks.get(t);
+        if (r != null) {
+            r.end = now();
+            r.failed = failed;
+        }
+    }
+
+    private long now() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Computes the critical path once the run is over, and lets go of the tasks.
+     */
+    /*package*/ synchronized void complete() {
+        endNanos = now();
+
+        // who attained what
+        Map<Object, List<Task>> attainers = new HashMap<>();
+        for (Task t : tasks.keySet()) {
+            for (Milestone m : t.attains()) {
+                attainers.computeIfAbsent(m, k -> new ArrayList<>()).add(t);
+            }
+            // task graph handles are milestones in their own right
+            if (t instanceof Milestone) {
+                attainers.computeIfAbsent(t, k -> new ArrayList<>()).add(t);
+            }
+        }
+
+        Task t = null;
+        for (Map.Entry<Task, TaskRecord> e : tasks.entrySet()) {
+            if (t == null || e.getValue().end > tasks.get(t).end) {
+                t = e.getKey();
+            }
+        }
+        List<TaskRecord> path = new ArrayList<>();
+        Map<Task, Boolean> seen = new IdentityHashMap<>();
+        while (t != null && seen.put(t, true) == null) {
+            TaskRecord r = tasks.get(t);
+            if (r.name != null) {
+                r.critical = true;
+                path.add(r);
+            }
+            Task gate = null;
+            for (Milestone m : t.requires()) {
+                for (Task p : attainers.getOrDefault(m, Collections.emptyList())) {
+                    TaskRecord pr = tasks.get(p);
+                    if (pr.end <= r.start && (gate == null || pr.end > tasks.get(gate).end)) {
+                        gate = p;
+                    }
+                }
+            }
+            t = gate;
+        }
+        Collections.reverse(path);
+        criticalPath = path;
+        tasks.clear();
+    }
+
+    /**
+     * Tasks, in the order they started.
+     */
+    public synchronized List<TaskRecord> getTasks() {
+        return new ArrayList<>(records);
+    }
+
+    /**
+     * Tasks that took the longest, longest first.
+     */
+    public List<TaskRecord> getSlowestTasks(int n) {
+        List<TaskRecord> r = getTasks();
+        r.sort(Comparator.comparingLong(TaskRecord::getDuration).reversed());
+        return r.subList(0, Math.min(n, r.size()));
+    }
+
+    public synchronized List<TaskRecord> getCriticalPath() {
+        return criticalPath;
+    }
+
+    public long getStartTime() {
+        return startMillis;
+    }
+
+    /**
+     * Duration of the whole run, in milliseconds.
+     */
+    public synchronized long getDuration() {
+        return TimeUnit.NANOSECONDS.toMillis(endNanos);
+    }
+
+    /**
+     * The timeline of the run, with times in milliseconds since it started.
+     */
+    public synchronized JSONObject toJSON() {
+        JSONArray ts = new JSONArray();
+        for (TaskRecord r : records) {
+            JSONObject o = new JSONObject();
+            o.put("name", r.name);
+            o.put("thread", r.thread);
+            o.put("milestone", r.milestone == null ? null : r.milestone.name());
+            o.put("start", TimeUnit.NANOSECONDS.toMillis(r.start));
+            o.put("duration", r.getDuration());
+            o.put("failed", r.failed);
+            o.put("critical", r.critical);
+            ts.add(o);
+        }
+        JSONArray ms = new JSONArray();
+        milestones.forEach((name, time) -> {
+            JSONObject o = new JSONObject();
+            o.put("name", name);
+            o.put("time", TimeUnit.NANOSECONDS.toMillis(time));
+            ms.add(o);
+        });
+        JSONArray cp = new JSONArray();
+        for (TaskRecord r : criticalPath) {
+            cp.add(r.name);
+        }
+        JSONObject o = new JSONObject();
+        o.put("startTime", startMillis);
+        o.put("duration", getDuration());
+        o.put("tasks", ts);
+        o.put("milestones", ms);
+        o.put("criticalPath", cp);
+        return o;
+    }
+
+    /**
+     * The timeline of the run in the Trace Event Format understood by {@code chrome://tracing}, Perfetto, and so on.
+     */
+    public synchronized JSONObject toChromeTrace() {
+        JSONArray events = new JSONArray();
+        Map<String, Integer> threads = new LinkedHashMap<>();
+        for (TaskRecord r : records) {
+            Integer tid = threads.get(r.thread);
+            if (tid == null) {
+                tid = threads.size() + 1;
+                threads.put(r.thread, tid);
+                JSONObject m = new JSONObject();
+                m.put("name", "thread_name");
+                m.put("ph", "M");
+                m.put("pid", 1);
+                m.put("tid", tid);
+                m.put("args", new JSONObject().element("name", r.thread));
+                events.add(m);
+            }
+            JSONObject e = new JSONObject();
+            e.put("name", r.name);
+            e.put("cat", r.critical ? "critical" : r.milestone == null ? "init" : r.milestone.name());
+            e.put("ph", "X");
+            e.put("pid", 1);
+            e.put("tid", tid);
+            e.put("ts", TimeUnit.NANOSECONDS.toMicros(r.start));
+            e.put("dur", TimeUnit.NANOSECONDS.toMicros(r.end - r.start));
+            if (r.failed) {
+                e.put("args", new JSONObject().element("failed", true));
+            }
+            events.add(e);
+        }
+        milestones.forEach((name, time) -> {
+            JSONObject e = new JSONObject();
+            e.put("name", name);
+            e.put("ph", "i");
+            e.put("s", "g");
+            e.put("pid", 1);
+            e.put("tid", 0);
+            e.put("ts", TimeUnit.NANOSECONDS.toMicros(time));
+            events.add(e);
+        });
+        return new JSONObject().element("traceEvents", events).element("displayTimeUnit", "ms");
+    }
+
+    /**
+     * What happened to one task.
+     */
+    public static final class TaskRecord {
+        private final String name;
+        private final String thread;
+        private final long start;
+        private long end;
+        private final InitMilestone milestone;
+        private boolean failed;
+        private boolean critical;
+
+        TaskRecord(String name, String thread, long start, InitMilestone milestone) {
+            this.name = name;
+            this.thread = thread;
+            this.start = start;
+            this.end = start;
+            this.milestone = milestone;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        /**
+         * The last {@link InitMilestone} attained when the task started.
+         */
+        public @CheckForNull InitMilestone getMilestone() {
+            return milestone;
+        }
+
+        /**
+         * Start time, in milliseconds since the run started.
+         */
+        public long getStart() {
+            return TimeUnit.NANOSECONDS.toMillis(start);
+        }
+
+        /**
+         * Duration, in milliseconds.
+         */
+        public long getDuration() {
+            return TimeUnit.NANOSECONDS.toMillis(end - start);
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+
+        public boolean isCritical() {
+            return critical;
+        }
+    }
+}
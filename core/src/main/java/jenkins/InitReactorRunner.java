@@ -36,6 +36,8 @@ import org.kohsuke.accmod.restrictions.NoExternalUse;
  * @author Kohsuke Kawaguchi
  */
 public class InitReactorRunner {
+    private final InitReactorProfile profile = new InitReactorProfile();
+
     public void run(Reactor reactor) throws InterruptedException, ReactorException, IOException {
          reactor.addAll(InitMilestone.ordering().discoverTasks(reactor));
 
@@ -49,10 +51,20 @@ public class InitReactorRunner {
             reactor.execute(new ImpersonatingExecutorService(es, ACL.SYSTEM2), buildReactorListener());
         } finally {
             es.shutdownNow();   // upon a successful return the executor queue should be empty. Upon an exception, we want to cancel all pending tasks
+            profile.complete();
         }
 
     }
 
+    /**
+     * When the tasks of the reactor started and completed.
+     * @since TODO
+     */
+    @Restricted(NoExternalUse.class)
+    public InitReactorProfile getProfile() {
+        return profile;
+    }
+
     /**
      * Aggregates all the listeners into one and returns it.
      *
@@ -87,6 +99,7 @@ public class InitReactorRunner {
                 LOGGER.log(lv,s);
             }
         });
+        r.add(profile);
         return new ReactorListener.Aggregator(r);
     }
 
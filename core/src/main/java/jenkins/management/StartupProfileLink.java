@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.management;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.ManagementLink;
+import hudson.security.Permission;
+import jenkins.InitReactorProfile;
+import jenkins.model.Jenkins;
+import org.jenkinsci.Symbol;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.WebMethod;
+
+import java.io.IOException;
+
+/**
+ * Shows what the last startup or reload of Jenkins spent its time on, and exports its timeline.
+ *
+ * @see InitReactorProfile
+ * @since TODO
+ */
+@Extension(ordinal = Integer.MAX_VALUE - 750) @Symbol("startupProfile")
+@Restricted(NoExternalUse.class)
+public class StartupProfileLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "monitor.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.StartupProfileLink_DisplayName();
+    }
+
+    @Override
+    public String getDescription() {
+        return Messages.StartupProfileLink_Description();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "startup-profile";
+    }
+
+    @NonNull
+    @Override
+    public Permission getRequiredPermission() {
+        return Jenkins.SYSTEM_READ;
+    }
+
+    @NonNull
+    @Override
+    public Category getCategory() {
+        return Category.TROUBLESHOOTING;
+    }
+
+    public @CheckForNull InitReactorProfile getProfile() {
+        return InitReactorProfile.getLast();
+    }
+
+    /**
+     * Tasks with their start times and durations, the milestones, and the critical path, as JSON.
+     */
+    @WebMethod(name = "timeline.json")
+    public HttpResponse doTimeline() {
+        Jenkins.get().checkPermission(Jenkins.SYSTEM_READ);
+        InitReactorProfile profile = getProfile();
+        if (profile == null) {
+            return HttpResponses.notFound();
+        }
+        return (req, rsp, node) -> write(rsp, profile.toJSON().toString(), null);
+    }
+
+    /**
+     * The same timeline in the Trace Event Format, to be loaded in {@code chrome://tracing} or Perfetto.
+     */
+    @WebMethod(name = "trace.json")
+    public HttpResponse doTrace() {
+        Jenkins.get().checkPermission(Jenkins.SYSTEM_READ);
+        InitReactorProfile profile = getProfile();
+        if (profile == null) {
+            return HttpResponses.notFound();
+        }
+        return (req, rsp, node) -> write(rsp, profile.toChromeTrace().toString(), "startup-trace.json");
+    }
+
+    private static void write(StaplerResponse rsp, String json, @CheckForNull String fileName) throws IOException {
+        rsp.setContentType("application/json;charset=UTF-8");
+        if (fileName != null) {
+            rsp.setHeader("Content-Disposition", "attachment; filename=" + fileName);
+        }
+        rsp.getWriter().write(json);
+    }
+}
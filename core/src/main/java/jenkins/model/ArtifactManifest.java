@@ -0,0 +1,470 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.model;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Functions;
+import hudson.model.Run;
+import hudson.remoting.Callable;
+import jenkins.util.SystemProperties;
+import jenkins.util.VirtualFile;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Listing of the artifacts archived by {@link StandardArtifactManager}, kept in a binary file next to the archive,
+ * so that the artifacts of a build can be listed without walking the archive directory again.
+ *
+ * <p>
+ * The manifest is written the first time the artifacts of a build are listed once it is over,
+ * and deleted whenever files are {@linkplain StandardArtifactManager#archive archived},
+ * so that builds archiving many times (possibly in parallel) do not walk the archive after each time.
+ * It records the timestamp of each directory of the archive:
+ * a directory changed in any other way since is listed from the file system, along with everything below it.
+ *
+ * <p>
+ * The file is made of fixed size records, one per file or directory, in breadth-first order
+ * so that the children of each directory follow each other, sorted as {@link Run#getArtifactsUpTo} would sort them,
+ * then of the names of all these files.
+ * It is memory-mapped when read, so that only the parts of it actually listed are paged in, and none of it takes heap space.
+ *
+ * <p>
+ * Only {@link Run#getArtifactsUpTo} lists artifacts from the manifest.
+ * {@link hudson.model.DirectoryBrowserSupport} lists one directory per request, and looks at the date,
+ * size and permissions of each file of it, as well as at symlinks, so it keeps using the actual files.
+ *
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public final class ArtifactManifest {
+
+    private static final Logger LOGGER = Logger.getLogger(ArtifactManifest.class.getName());
+
+    static final String FILE_NAME = "archive.manifest";
+
+    /**
+     * Identifies the format of the file, and its version.
+     */
+    private static final int MAGIC = 0x4A414D01;
+
+    /**
+     * Magic, number of records, length of the names.
+     */
+    private static final int HEADER_SIZE = 4 + 4 + 4;
+
+    /**
+     * First child, number of children, offset and length of the name, kind, padding,
+     * then the length of a file or the timestamp of a directory.
+     */
+    private static final int RECORD_SIZE = 4 + 4 + 4 + 4 + 1 + 3 + 8;
+
+    private static final byte DIRECTORY = 1;
+    private static final byte FILE = 2;
+    private static final byte OTHER = 3;
+
+    private final ByteBuffer buffer;
+    private final int count;
+
+    private ArtifactManifest(ByteBuffer buffer, int count) {
+        this.buffer = buffer;
+        this.count = count;
+    }
+
+    /**
+     * Writes the manifest of an archive directory.
+     * Failures are logged, as the manifest can always be done without.
+     *
+     * @param archiveDir the archive directory
+     * @param manifest the manifest file to write
+     */
+    static void write(@NonNull File archiveDir, @NonNull File manifest) {
+        if (!ENABLED) {
+            return;
+        }
+        Path tmp = null;
+        try {
+            // walked breadth first, as Run.addArtifacts sees the files
+            List<VirtualFile> files = new ArrayList<>();
+            List<int[]> children = new ArrayList<>();
+            List<Byte> kinds = new ArrayList<>();
+            List<Long> values = new ArrayList<>();
+            files.add(VirtualFile.forFile(archiveDir));
+            for (int i = 0; i < files.size(); i++) {
+                VirtualFile f = files.get(i);
+                if (f.isDirectory()) {
+                    // before listing, so that a change made meanwhile is seen when reading
+                    values.add(timestamp(f));
+                    kinds.add(DIRECTORY);
+                    VirtualFile[] kids = f.list();
+                    Arrays.sort(kids);
+                    children.add(new int[] {files.size(), kids.length});
+                    files.addAll(Arrays.asList(kids));
+                } else {
+                    boolean file = f.isFile();
+                    values.add(file ? f.length() : 0);
+                    kinds.add(file ? FILE : OTHER);
+                    children.add(new int[] {0, 0});
+                }
+            }
+
+            byte[][] names = new byte[files.size()][];
+            names[0] = new byte[0];
+            int namesLength = 0;
+            for (int i = 1; i < files.size(); i++) {
+                names[i] = files.get(i).getName().getBytes(StandardCharsets.UTF_8);
+                namesLength += names[i].length;
+            }
+            // one per writer, as the artifacts of a build may be listed by several requests at once
+            tmp = Files.createTempFile(manifest.getParentFile().toPath(), FILE_NAME, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(files.size());
+                out.writeInt(namesLength);
+                int offset = 0;
+                for (int i = 0; i < files.size(); i++) {
+                    out.writeInt(children.get(i)[0]);
+                    out.writeInt(children.get(i)[1]);
+                    out.writeInt(offset);
+                    out.writeInt(names[i].length);
+                    out.writeByte(kinds.get(i));
+                    out.write(new byte[3]);
+                    out.writeLong(values.get(i));
+                    offset += names[i].length;
+                }
+                for (byte[] name : names) {
+                    out.write(name);
+                }
+            }
+            // so that nobody ever maps a half written manifest
+            Files.move(tmp, manifest.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException x) {
+            LOGGER.log(Level.WARNING, "Failed to write " + manifest, x);
+            try {
+                if (tmp != null) {
+                    Files.deleteIfExists(tmp);
+                }
+                Files.deleteIfExists(manifest.toPath());
+            } catch (IOException x2) {
+                x.addSuppressed(x2);
+            }
+        }
+    }
+
+    /**
+     * Timestamp of a directory, as precise as the file system keeps it.
+     */
+    private static long timestamp(VirtualFile dir) throws IOException {
+        return Files.getLastModifiedTime(Paths.get(dir.toURI())).to(TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Deletes the manifest, for example along with the archive.
+     */
+    static void delete(@NonNull File manifest) throws IOException {
+        Files.deleteIfExists(manifest.toPath());
+    }
+
+    /**
+     * Reads the manifest of an archive directory.
+     *
+     * @param archiveDir the archive directory
+     * @param manifest the manifest file
+     * @return null if there is no manifest, or if it is not up to date with the archive directory
+     */
+    static @CheckForNull ArtifactManifest read(@NonNull File archiveDir, @NonNull File manifest) {
+        if (!ENABLED) {
+            return null;
+        }
+        try (FileChannel ch = FileChannel.open(manifest.toPath(), StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                LOGGER.log(Level.FINE, "Ignoring {0} of unexpected size", manifest);
+                return null;
+            }
+            ByteBuffer b;
+            if (Functions.isWindows()) {
+                // a mapped file cannot be deleted before the mapping is garbage collected, which would break deleting the build
+                b = ByteBuffer.allocate((int) size);
+                while (b.hasRemaining() && ch.read(b) >= 0) {
+                    // keep reading
+                }
+                b.flip();
+            } else {
+                b = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            if (b.getInt(0) != MAGIC) {
+                LOGGER.log(Level.FINE, "Ignoring {0} written in another format", manifest);
+                return null;
+            }
+            int count = b.getInt(4);
+            int namesLength = b.getInt(8);
+            if (count < 1 || size != HEADER_SIZE + (long) count * RECORD_SIZE + namesLength) {
+                LOGGER.log(Level.FINE, "Ignoring truncated {0}", manifest);
+                return null;
+            }
+            ArtifactManifest m = new ArtifactManifest(b, count);
+            if (!m.isUpToDate(0, VirtualFile.forFile(archiveDir))) {
+                LOGGER.log(Level.FINE, "Ignoring {0} as {1} changed since", new Object[] {manifest, archiveDir});
+                return null;
+            }
+            return m;
+        } catch (NoSuchFileException x) {
+            return null;
+        } catch (IOException | RuntimeException x) {
+            LOGGER.log(Level.FINE, "Failed to read " + manifest, x);
+            return null;
+        }
+    }
+
+    private int record(int i, int field) {
+        return buffer.getInt(HEADER_SIZE + i * RECORD_SIZE + field);
+    }
+
+    private int firstChild(int i) {
+        return record(i, 0);
+    }
+
+    private int childCount(int i) {
+        return record(i, 4);
+    }
+
+    private String name(int i) {
+        byte[] b = new byte[record(i, 12)];
+        ByteBuffer d = buffer.duplicate();
+        d.position(HEADER_SIZE + count * RECORD_SIZE + record(i, 8));
+        d.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private byte kind(int i) {
+        return buffer.get(HEADER_SIZE + i * RECORD_SIZE + 16);
+    }
+
+    /**
+     * Length of a file, or timestamp of a directory.
+     */
+    private long value(int i) {
+        return buffer.getLong(HEADER_SIZE + i * RECORD_SIZE + 20);
+    }
+
+    /**
+     * Whether a directory still has the timestamp it had when the manifest was written, so that its children are as recorded.
+     */
+    private boolean isUpToDate(int i, VirtualFile dir) {
+        try {
+            return kind(i) == DIRECTORY && timestamp(dir) == value(i);
+        } catch (IOException | RuntimeException x) {
+            LOGGER.log(Level.FINE, "Cannot check " + dir, x);
+            return false;
+        }
+    }
+
+    /**
+     * The archive directory, listed from the manifest.
+     *
+     * @param archive the archive directory
+     */
+    VirtualFile root(@NonNull VirtualFile archive) {
+        return new ManifestVF(this, 0, archive);
+    }
+
+    /**
+     * A file of the archive as recorded in the manifest.
+     * Only listing the archive is served from the manifest, for directories that did not change since;
+     * anything else is left to the actual file.
+     */
+    private static final class ManifestVF extends VirtualFile {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ArtifactManifest manifest;
+        private final int index;
+        private final VirtualFile file;
+        /**
+         * Whether the children of this directory are as recorded, once checked.
+         */
+        private transient Boolean upToDate;
+
+        ManifestVF(ArtifactManifest manifest, int index, VirtualFile file) {
+            this.manifest = manifest;
+            this.index = index;
+            this.file = file;
+        }
+
+        @Override
+        public @NonNull String getName() {
+            return index == 0 ? file.getName() : manifest.name(index);
+        }
+
+        @Override
+        public @NonNull URI toURI() {
+            return file.toURI();
+        }
+
+        @Override
+        public VirtualFile getParent() {
+            return file.getParent();
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return manifest.kind(index) == DIRECTORY;
+        }
+
+        @Override
+        public boolean isFile() {
+            return manifest.kind(index) == FILE;
+        }
+
+        @Override
+        public @CheckForNull String readLink() throws IOException {
+            return file.readLink();
+        }
+
+        @Override
+        public boolean exists() throws IOException {
+            return file.exists();
+        }
+
+        private boolean isUpToDate() {
+            if (upToDate == null) {
+                upToDate = manifest.isUpToDate(index, file);
+            }
+            return upToDate;
+        }
+
+        @Override
+        public @NonNull VirtualFile[] list() throws IOException {
+            if (!isUpToDate()) {
+                return file.list();
+            }
+            int first = manifest.firstChild(index);
+            VirtualFile[] kids = new VirtualFile[manifest.childCount(index)];
+            for (int i = 0; i < kids.length; i++) {
+                kids[i] = new ManifestVF(manifest, first + i, file.child(manifest.name(first + i)));
+            }
+            return kids;
+        }
+
+        @Override
+        public @NonNull Collection<String> list(@NonNull String includes, @CheckForNull String excludes, boolean useDefaultExcludes) throws IOException {
+            return file.list(includes, excludes, useDefaultExcludes);
+        }
+
+        @Override
+        public @NonNull VirtualFile child(@NonNull String name) {
+            if (!isUpToDate()) {
+                return file.child(name);
+            }
+            int first = manifest.firstChild(index);
+            for (int i = first; i < first + manifest.childCount(index); i++) {
+                if (manifest.name(i).equals(name)) {
+                    return new ManifestVF(manifest, i, file.child(name));
+                }
+            }
+            return file.child(name);
+        }
+
+        @Override
+        public long length() throws IOException {
+            return manifest.kind(index) == FILE ? manifest.value(index) : file.length();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return file.lastModified();
+        }
+
+        @Override
+        public int mode() throws IOException {
+            return file.mode();
+        }
+
+        @Override
+        public boolean canRead() throws IOException {
+            return file.canRead();
+        }
+
+        @Override
+        public InputStream open() throws IOException {
+            return file.open();
+        }
+
+        @Override
+        public <V> V run(Callable<V, IOException> callable) throws IOException {
+            return file.run(callable);
+        }
+
+        @Override
+        public @CheckForNull URL toExternalURL() throws IOException {
+            return file.toExternalURL();
+        }
+
+        @Override
+        public boolean supportIsDescendant() {
+            return file.supportIsDescendant();
+        }
+
+        @Override
+        public boolean isDescendant(String childRelativePath) throws IOException {
+            return file.isDescendant(childRelativePath);
+        }
+
+        /**
+         * Sent as the actual file, the manifest being only readable here.
+         */
+        private Object writeReplace() {
+            return file;
+        }
+    }
+
+    /**
+     * Whether artifact manifests are written and read.
+     */
+    public static /* Script Console modifiable */ boolean ENABLED = SystemProperties.getBoolean(ArtifactManifest.class.getName() + ".enabled", true);
+}
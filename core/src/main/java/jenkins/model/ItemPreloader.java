@@ -0,0 +1,255 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.model;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.model.Item;
+import hudson.model.ItemGroupMixIn;
+import hudson.model.Items;
+import jenkins.util.SystemProperties;
+import org.jvnet.hudson.reactor.Milestone;
+import org.jvnet.hudson.reactor.Reactor;
+import org.jvnet.hudson.reactor.TaskGraphBuilder;
+import org.jvnet.hudson.reactor.TaskGraphBuilder.Handle;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static hudson.init.InitMilestone.JOB_LOADED;
+
+/**
+ * Reads the configuration of nested items (such as the jobs in folders) in parallel while items are being loaded.
+ *
+ * <p>
+ * Only top-level items are loaded by reactor tasks of their own; the children of a folder are loaded by the folder,
+ * one after the other, when it gets loaded itself (typically through {@link ItemGroupMixIn#loadChildren}).
+ * So while items are being loaded, the tree under each top-level item is discovered, and the {@code config.xml}
+ * of every nested item is read by a reactor task of its own, after the one of its parent.
+ * When a folder then loads its children, {@link Items#load} picks up what has already been read,
+ * or reads it on the spot if it has not been yet (so no one ever waits for a task that did not start).
+ *
+ * <p>
+ * How long reading and loading each item took is logged at the end.
+ */
+@Restricted(NoExternalUse.class)
+public final class ItemPreloader {
+
+    private static final Logger LOGGER = Logger.getLogger(ItemPreloader.class.getName());
+
+    /**
+     * The preloader of the items being loaded, if any.
+     */
+    private static volatile ItemPreloader current;
+
+    private final File projectsDir;
+
+    /**
+     * Configurations being read, keyed by the absolute path of the item directory.
+     */
+    private final Map<String, FutureTask<Item>> reads = new ConcurrentHashMap<>();
+
+    /**
+     * Reading and loading times of items, in nanoseconds, keyed by the path of the item directory relative to {@link #projectsDir}.
+     */
+    private final Map<String, long[]> timings = new ConcurrentHashMap<>();
+
+    private final long start = System.nanoTime();
+
+    private ItemPreloader(File projectsDir) {
+        this.projectsDir = projectsDir;
+    }
+
+    /**
+     * Starts preloading the items below the given top-level item directories.
+     *
+     * @param g where to add the tasks discovering the nested items, which attain {@link hudson.init.InitMilestone#JOB_LOADED}
+     * @param after what the tasks should wait for, namely the global configuration to be loaded
+     */
+    /*package*/ static void schedule(File projectsDir, File[] topLevel, TaskGraphBuilder g, Milestone after) {
+        ItemPreloader p = new ItemPreloader(projectsDir);
+        current = p;
+        if (!ENABLED) {
+            return;
+        }
+        for (File dir : topLevel) {
+            g.requires(after).attains(JOB_LOADED).notFatal().add("Discovering items in " + dir.getName(),
+                    session -> p.discover(session, dir));
+        }
+    }
+
+    /**
+     * Logs how long items took, and forgets what was read but never asked for.
+     */
+    /*package*/ static void finish() {
+        ItemPreloader p = current;
+        if (p == null) {
+            return;
+        }
+        current = null;
+        p.report();
+        p.reads.clear();
+    }
+
+    /**
+     * Reads the configuration of an item, or gets it if it was already read.
+     * Each item is only handed out once; asking again reads it again.
+     */
+    public static Item read(File dir) throws IOException {
+        ItemPreloader p = current;
+        if (p == null) {
+            return (Item) Items.getConfigFile(dir).read();
+        }
+        FutureTask<Item> read = p.reads.remove(dir.getAbsolutePath());
+        if (read == null) {
+            read = p.newRead(dir);
+        }
+        // does nothing if the task already started elsewhere
+        read.run();
+        try {
+            return read.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Records how long it took to load an item, once read.
+     */
+    public static void loaded(File dir, long nanos) {
+        ItemPreloader p = current;
+        if (p != null) {
+            p.timing(dir)[1] += nanos;
+        }
+    }
+
+    private FutureTask<Item> newRead(File dir) {
+        return new FutureTask<>(() -> {
+            long start = System.nanoTime();
+            try {
+                return (Item) Items.getConfigFile(dir).read();
+            } finally {
+                timing(dir)[0] += System.nanoTime() - start;
+            }
+        });
+    }
+
+    private long[] timing(File dir) {
+        return timings.computeIfAbsent(relativePath(dir), k -> new long[2]);
+    }
+
+    private String relativePath(File dir) {
+        String base = projectsDir.getAbsolutePath() + File.separator;
+        String path = dir.getAbsolutePath();
+        return path.startsWith(base) ? path.substring(base.length()) : path;
+    }
+
+    /**
+     * Finds the items nested in the given item, and adds tasks reading them, parents first.
+     */
+    private void discover(Reactor session, File itemDir) throws Exception {
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        discover(g, itemDir, null);
+        session.addAll(g.discoverTasks(session));
+    }
+
+    private void discover(TaskGraphBuilder g, File itemDir, @CheckForNull Handle parent) {
+        for (String name : CHILD_DIRECTORIES) {
+            File[] children = new File(itemDir, name).listFiles(File::isDirectory);
+            if (children == null) {
+                continue;
+            }
+            for (File child : children) {
+                if (!Items.getConfigFile(child).exists()) {
+                    continue;
+                }
+                FutureTask<Item> read = newRead(child);
+                reads.put(child.getAbsolutePath(), read);
+                TaskGraphBuilder b = parent == null ? g.notFatal() : g.requires(parent).notFatal();
+                Handle h = b.attains(JOB_LOADED).add("Reading item " + relativePath(child), session -> read.run());
+                discover(g, child, h);
+            }
+        }
+    }
+
+    private void report() {
+        long total = System.nanoTime() - start;
+        if (LOGGER.isLoggable(Level.FINE)) {
+            timings.forEach((path, t) -> LOGGER.log(Level.FINE, "{0}: read in {1}ms, loaded in {2}ms",
+                    new Object[] {path, TimeUnit.NANOSECONDS.toMillis(t[0]), TimeUnit.NANOSECONDS.toMillis(t[1])}));
+        }
+        List<Map.Entry<String, long[]>> slowest = new ArrayList<>(timings.entrySet());
+        slowest.sort((a, b) -> Long.compare(b.getValue()[0] + b.getValue()[1], a.getValue()[0] + a.getValue()[1]));
+        StringBuilder b = new StringBuilder();
+        for (Map.Entry<String, long[]> e : slowest.subList(0, Math.min(REPORTED_ITEMS, slowest.size()))) {
+            b.append("\n  ").append(e.getKey()).append(": read in ").append(TimeUnit.NANOSECONDS.toMillis(e.getValue()[0]))
+                    .append("ms, loaded in ").append(TimeUnit.NANOSECONDS.toMillis(e.getValue()[1])).append("ms");
+        }
+        LOGGER.log(Level.INFO, "Loaded {0} items in {1}ms; slowest ones (loading times include nested items):{2}",
+                new Object[] {timings.size(), TimeUnit.NANOSECONDS.toMillis(total), b});
+    }
+
+    /**
+     * Whether the configuration of nested items is read ahead.
+     */
+    private static final boolean ENABLED = SystemProperties.getBoolean(ItemPreloader.class.getName() + ".enabled", true);
+
+    /**
+     * Names of the directories that items keep their children in: {@code jobs} for folders,
+     * {@code branches} for multibranch projects, {@code modules} for Maven projects.
+     */
+    private static final Set<String> CHILD_DIRECTORIES = new HashSet<>(Arrays.asList(
+            SystemProperties.getString(ItemPreloader.class.getName() + ".childDirectories", "jobs,branches,modules").split(",")));
+
+    /**
+     * Number of the slowest items to log when done.
+     */
+    private static final int REPORTED_ITEMS = SystemProperties.getInteger(ItemPreloader.class.getName() + ".reportedItems", 10);
+}
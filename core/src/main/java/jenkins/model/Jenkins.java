@@ -122,9 +122,13 @@ import hudson.remoting.VirtualChannel;
 import hudson.scm.RepositoryBrowser;
 import hudson.scm.SCM;
 import hudson.search.CollectionSearchIndex;
+import hudson.search.ItemSearchIndex;
 import hudson.search.SearchIndexBuilder;
 import hudson.search.SearchItem;
+import hudson.search.UserSearchProperty;
 import hudson.security.ACL;
+import hudson.security.ACLBatch;
+import hudson.security.ACLDecisionCache;
 import hudson.security.ACLContext;
 import hudson.security.AccessControlled;
 import hudson.security.AuthorizationStrategy;
@@ -188,6 +192,7 @@ import java.util.TimerTask;
 import java.util.concurrent.CountDownLatch;
 import jenkins.ExtensionComponentSet;
 import jenkins.ExtensionRefreshException;
+import jenkins.InitReactorProfile;
 import jenkins.InitReactorRunner;
 import jenkins.install.InstallState;
 import jenkins.install.SetupWizard;
@@ -1149,7 +1154,7 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
             }
         };
 
-        new InitReactorRunner() {
+        InitReactorRunner runner = new InitReactorRunner() {
             @Override
             protected void onInitMilestoneAttained(InitMilestone milestone) {
                 initLevel = milestone;
@@ -1159,7 +1164,12 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
                     ExtensionList.lookup(ExtensionFinder.class).getComponents();
                 }
             }
-        }.run(reactor);
+        };
+        try {
+            runner.run(reactor);
+        } finally {
+            InitReactorProfile.setLast(runner.getProfile());
+        }
     }
 
 
@@ -1791,9 +1801,11 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
      */
     public List<TopLevelItem> getItems(Predicate<TopLevelItem> pred) {
         List<TopLevelItem> viewableItems = new ArrayList<>();
-        for (TopLevelItem item : items.values()) {
-            if (pred.test(item) && item.hasPermission(Item.READ))
-                viewableItems.add(item);
+        try (ACLBatch batch = ACLBatch.open(getAuthentication2())) {
+            for (TopLevelItem item : items.values()) {
+                if (pred.test(item) && batch.hasPermission(item, Item.READ))
+                    viewableItems.add(item);
+            }
         }
         return viewableItems;
     }
@@ -2309,6 +2321,20 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
                     protected Iterable<TopLevelItem> allAsIterable() {
                         return allItems(TopLevelItem.class);
                     }
+                    @Override
+                    public void suggest(String token, List<SearchItem> result) {
+                        // look the token up in the index, so that only the matching items need their permissions checked
+                        boolean caseInsensitive = UserSearchProperty.isCaseInsensitive();
+                        for (TopLevelItem item : ItemSearchIndex.get().suggest(token)) {
+                            if (!caseInsensitive && !item.getName().contains(token) && !item.getDisplayName().contains(token)
+                                    && !item.getFullName().contains(token)) {
+                                continue;
+                            }
+                            if (ItemSearchIndex.isReadable(item)) {
+                                result.add(item);
+                            }
+                        }
+                    }
                 })
                 .add(getPrimaryView().makeSearchIndex())
                 .add(new CollectionSearchIndex() {// for computers
@@ -2615,6 +2641,7 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
                 ? securityRealm.getUserIdStrategy() // don't trigger rekey on Jenkins load
                 : this.securityRealm.getUserIdStrategy();
         this.securityRealm = securityRealm;
+        ACLDecisionCache.invalidate();
         // reset the filters and proxies for the new SecurityRealm
         try {
             HudsonFilter filter = HudsonFilter.get(servletContext);
@@ -2647,6 +2674,7 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
             a = AuthorizationStrategy.UNSECURED;
         useSecurity = true;
         authorizationStrategy = a;
+        ACLDecisionCache.invalidate();
         saveQuietly();
     }
 
@@ -2662,6 +2690,7 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
         useSecurity = null;
         setSecurityRealm(SecurityRealm.NO_AUTHENTICATION);
         authorizationStrategy = AuthorizationStrategy.UNSECURED;
+        ACLDecisionCache.invalidate();
     }
 
     public void setProjectNamingStrategy(ProjectNamingStrategy ns) {
@@ -3282,6 +3311,8 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
                 }
             }));
         }
+        // read the items in folders in parallel too, rather than one after the other as each folder gets loaded
+        ItemPreloader.schedule(projectsDir, subdirs, g, loadJenkins);
 
         g.requires(loadJobs.toArray(new Handle[0])).attains(JOB_LOADED).add("Cleaning up obsolete items deleted from the disk", new Executable() {
             public void run(Reactor reactor) throws Exception {
@@ -3298,6 +3329,12 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
             }
         });
 
+        g.requires(JOB_LOADED).attains(JOB_CONFIG_ADAPTED).add("Reporting item loading times", new Executable() {
+            public void run(Reactor reactor) throws Exception {
+                ItemPreloader.finish();
+            }
+        });
+
         g.requires(JOB_CONFIG_ADAPTED).attains(COMPLETED).add("Finalizing set up",new Executable() {
             public void run(Reactor session) throws Exception {
                 rebuildDependencyGraph();
@@ -67,10 +67,12 @@ public class StandardArtifactManager extends ArtifactManager {
     @Override public void archive(FilePath workspace, Launcher launcher, BuildListener listener, final Map<String,String> artifacts) throws IOException, InterruptedException {
         File dir = getArtifactsDir();
         String description = "transfer of " + artifacts.size() + " files"; // TODO improve when just one file
+        ArtifactManifest.delete(getManifestFile());
         workspace.copyRecursiveTo(new FilePath.ExplicitlySpecifiedDirScanner(artifacts), new FilePath(dir), description, TAR_COMPRESSION);
     }
 
     @Override public final boolean delete() throws IOException, InterruptedException {
+        ArtifactManifest.delete(getManifestFile());
         File ad = getArtifactsDir();
         if (!ad.exists()) {
             LOG.log(Level.FINE, "no such directory {0} to delete for {1}", new Object[] {ad, build});
@@ -85,9 +87,36 @@ public class StandardArtifactManager extends ArtifactManager {
         return VirtualFile.forFile(getArtifactsDir());
     }
 
+    /**
+     * Same as {@link #root}, except that the archive is listed from its {@link ArtifactManifest} when it is up to date,
+     * rather than by walking the archive directory.
+     * The manifest is written here the first time the archive is listed once the build is over.
+     */
+    @Restricted(NoExternalUse.class)
+    public VirtualFile listingRoot() {
+        VirtualFile root = root();
+        if (!Util.isOverridden(StandardArtifactManager.class, getClass(), "root")) {
+            File dir = getArtifactsDir();
+            File manifestFile = getManifestFile();
+            ArtifactManifest manifest = ArtifactManifest.read(dir, manifestFile);
+            if (manifest == null && !build.isBuilding() && dir.isDirectory()) {
+                ArtifactManifest.write(dir, manifestFile);
+                manifest = ArtifactManifest.read(dir, manifestFile);
+            }
+            if (manifest != null) {
+                return manifest.root(root);
+            }
+        }
+        return root;
+    }
+
     @SuppressWarnings("deprecation")
     private File getArtifactsDir() {
         return build.getArtifactsDir();
     }
 
+    private File getManifestFile() {
+        return new File(build.getRootDir(), ArtifactManifest.FILE_NAME);
+    }
+
 }
@@ -354,6 +354,18 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer,R> i
         }
     }
 
+    /**
+     * Finds the number of the build #M on disk, where M is the closest number that satisfies M ≤ N, without loading it.
+     *
+     * @return 0 if there is none; the build may still fail to load
+     */
+    @Restricted(NoExternalUse.class)
+    public int floorNumberOnDisk(int n) {
+        SortedIntList numbers = numberOnDisk;
+        int idx = numbers.floor(n);
+        return numbers.isInRange(idx) ? numbers.get(idx) : 0;
+    }
+
     public R getById(String id) {
         return getByNumber(Integer.parseInt(id));
     }
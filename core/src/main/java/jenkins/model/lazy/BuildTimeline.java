@@ -0,0 +1,538 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.model.lazy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.AbstractBuild;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.listeners.SaveableListener;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time-ordered index of builds across jobs, holding just enough about each build
+ * (its number, timestamp and result, and what the build history can be searched by)
+ * to merge, filter, search and limit the builds of jobs without loading {@link Run}s that end up not being shown.
+ *
+ * <p>
+ * The builds of a job are indexed lazily, from the newest one down to the oldest one that was ever asked for,
+ * and kept up to date by listening to {@link RunListener} events from then on.
+ * So the first time the builds of a view are rendered costs the same as before,
+ * but the next times only the displayed builds get loaded again.
+ *
+ * @see hudson.util.RunList
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public final class BuildTimeline {
+
+    private static final BuildTimeline INSTANCE = new BuildTimeline();
+
+    /**
+     * Number of characters of each parameter value and of the description kept in the index,
+     * and thus searchable without loading the build.
+     */
+    static final int MAX_PARAMETER_VALUE_LENGTH = SystemProperties.getInteger(BuildTimeline.class.getName() + ".maxParameterValueLength", 256);
+
+    /**
+     * Timelines by {@linkplain Job#getFullName() full name} of their job,
+     * so that a job replaced by another object (when its parent reloads it, for example) does not stay around.
+     */
+    private final Map<String, JobTimeline> jobs = new ConcurrentHashMap<>();
+
+    public static BuildTimeline get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Builds of the given jobs, newest first.
+     * Builds are indexed as the returned {@link Iterable} is iterated.
+     */
+    public Iterable<Entry> of(Collection<? extends Job> jobs) {
+        List<JobTimeline> timelines = new ArrayList<>(jobs.size());
+        for (Job<?, ?> job : jobs) {
+            timelines.add(of(job));
+        }
+        return () -> new Merger(timelines);
+    }
+
+    private JobTimeline of(Job<?, ?> job) {
+        return jobs.compute(job.getFullName(), (name, t) -> t != null && t.job == job ? t : new JobTimeline(job));
+    }
+
+    private @CheckForNull JobTimeline existing(Job<?, ?> job) {
+        JobTimeline t = jobs.get(job.getFullName());
+        return t != null && t.job == job ? t : null;
+    }
+
+    /**
+     * Forgets the timelines of the given jobs, whatever their names are now.
+     */
+    private void forget(Collection<? extends Job> removed) {
+        jobs.values().removeIf(t -> removed.contains(t.job));
+    }
+
+    /**
+     * What the timeline knows about one build.
+     * Entries are immutable; when the build changes, its entry gets replaced.
+     */
+    public static final class Entry {
+        private final Job<?, ?> job;
+        private final int number;
+        private final long timestamp;
+        private final Result result;
+        private final long queueId;
+        private final String displayName;
+        private final String description;
+        private final List<String> parameterValues;
+        /**
+         * Whether the description or parameter values may have been cut, in which case the build needs to be loaded to search them.
+         */
+        private final boolean abbreviated;
+
+        Entry(Run<?, ?> r) {
+            this.job = r.getParent();
+            this.number = r.getNumber();
+            this.timestamp = r.getTimeInMillis();
+            this.result = r.isBuilding() ? null : r.getResult();
+            this.queueId = r.getQueueId();
+            this.displayName = r.getDisplayName();
+            this.description = abbreviate(r.getDescription());
+            this.parameterValues = parameterValuesOf(r);
+            this.abbreviated = isAbbreviated(r.getDescription(), parameterValues);
+        }
+
+        Entry(Job<?, ?> job, RunHeader h) {
+            this.job = job;
+            this.number = h.getNumber();
+            this.timestamp = h.getTimeInMillis();
+            this.result = h.getResult();
+            this.queueId = h.getQueueId();
+            this.displayName = h.getDisplayName();
+            this.description = abbreviate(h.getDescription());
+            this.parameterValues = h.getParameterValues();
+            this.abbreviated = isAbbreviated(h.getDescription(), parameterValues);
+        }
+
+        private static boolean isAbbreviated(@CheckForNull String description, List<String> parameterValues) {
+            if (description != null && description.length() > MAX_PARAMETER_VALUE_LENGTH) {
+                return true;
+            }
+            for (String v : parameterValues) {
+                // already cut when they come from a RunHeader
+                if (v.length() >= MAX_PARAMETER_VALUE_LENGTH) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        static List<String> parameterValuesOf(Run<?, ?> r) {
+            List<String> values = new ArrayList<>();
+            if (r instanceof AbstractBuild) {
+                AbstractBuild<?, ?> b = (AbstractBuild<?, ?>) r;
+                Set<String> sensitive = b.getSensitiveBuildVariables();
+                // these end up in RunHeader too, which must not hold secrets
+                b.getBuildVariables().forEach((name, value) -> {
+                    if (!sensitive.contains(name)) {
+                        values.add(abbreviate(value));
+                    }
+                });
+            }
+            ParametersAction pa = r.getAction(ParametersAction.class);
+            if (pa != null) {
+                for (ParameterValue p : pa.getParameters()) {
+                    if (!p.isSensitive() && p.getValue() != null) {
+                        values.add(abbreviate(p.getValue()));
+                    }
+                }
+            }
+            return values.isEmpty() ? Collections.emptyList() : values;
+        }
+
+        /**
+         * Values are kept as strings, and only their beginning, so that the index does not hold on to
+         * whatever objects parameters have as values (such as builds or uploaded files), nor to large texts.
+         */
+        private static String abbreviate(Object value) {
+            String s = String.valueOf(value);
+            return s.length() > MAX_PARAMETER_VALUE_LENGTH ? s.substring(0, MAX_PARAMETER_VALUE_LENGTH) : s;
+        }
+
+        private static @CheckForNull String abbreviate(@CheckForNull String description) {
+            return description == null ? null : abbreviate((Object) description);
+        }
+
+        public Job<?, ?> getJob() {
+            return job;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        /**
+         * @see Run#getTimeInMillis()
+         */
+        public long getTimeInMillis() {
+            return timestamp;
+        }
+
+        /**
+         * Result of a completed build, or null if the build was still running when last seen.
+         */
+        public @CheckForNull Result getResult() {
+            return result;
+        }
+
+        /**
+         * @see Run#getQueueId()
+         */
+        public long getQueueId() {
+            return queueId;
+        }
+
+        /**
+         * @see Run#getDisplayName()
+         */
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        /**
+         * {@link Run#getDescription()}, cut after {@link #MAX_PARAMETER_VALUE_LENGTH} characters.
+         */
+        public @CheckForNull String getDescription() {
+            return description;
+        }
+
+        /**
+         * String values of the build variables (of an {@link AbstractBuild}) and of the parameters, except sensitive ones,
+         * cut after {@link #MAX_PARAMETER_VALUE_LENGTH} characters.
+         */
+        public List<String> getParameterValues() {
+            return parameterValues;
+        }
+
+        /**
+         * Whether {@link #getDescription} or {@link #getParameterValues} may be missing the end of what the build has.
+         */
+        public boolean isAbbreviated() {
+            return abbreviated;
+        }
+
+        /**
+         * Loads the build.
+         *
+         * @return null if it has been deleted in the meantime
+         */
+        public @CheckForNull Run<?, ?> getRun() {
+            return job.getBuildByNumber(number);
+        }
+
+        @Override
+        public String toString() {
+            return job.getFullName() + " #" + number;
+        }
+    }
+
+    /**
+     * Indexed builds of one job.
+     */
+    private static final class JobTimeline {
+        private final Job<?, ?> job;
+        /**
+         * Newest first.
+         */
+        private final TreeMap<Integer, Entry> entries = new TreeMap<>(Collections.reverseOrder());
+        /**
+         * Every existing build with a number at least this is in {@link #entries}.
+         */
+        private int oldest = Integer.MAX_VALUE;
+        private boolean seeded;
+        /**
+         * Whether {@link #entries} has all the builds of the job.
+         */
+        private boolean complete;
+
+        JobTimeline(Job<?, ?> job) {
+            this.job = job;
+        }
+
+        /**
+         * Gets the build just before the given one, indexing it if needed.
+         * Builds are loaded without holding the lock, so that other readers and {@link RunListener} events do not wait for the disk.
+         *
+         * @param prev null to get the newest build
+         * @return null if there are no more builds
+         */
+        @CheckForNull Entry next(@CheckForNull Entry prev) {
+            while (true) {
+                boolean seed;
+                int below;
+                synchronized (this) {
+                    seed = !seeded;
+                    if (!seed) {
+                        Map.Entry<Integer, Entry> e = prev == null ? entries.firstEntry() : entries.higherEntry(prev.number);
+                        if (e != null) {
+                            return e.getValue();
+                        }
+                        if (complete) {
+                            return null;
+                        }
+                    }
+                    below = oldest - 1;
+                }
+
+                if (seed) {
+                    Run<?, ?> r = job.getLastBuild();
+                    Entry newest = r == null ? null : new Entry(r);
+                    synchronized (this) {
+                        if (!seeded) {
+                            seeded = true;
+                            if (newest == null) {
+                                complete = true;
+                            } else {
+                                put(newest);
+                            }
+                        }
+                    }
+                } else {
+                    Entry older = below > 0 ? older(below) : null;
+                    synchronized (this) {
+                        if (older != null) {
+                            // keep what a listener may have put in the meantime
+                            entries.putIfAbsent(older.number, older);
+                            oldest = Math.min(oldest, older.number);
+                        } else if (oldest - 1 == below) {
+                            complete = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Reads the newest build numbered at most {@code n}.
+         * The builds of lazy loading jobs are read from their {@link RunHeader} when it is up to date and they are completed,
+         * and only loaded otherwise.
+         */
+        private @CheckForNull Entry older(int n) {
+            if (job instanceof LazyBuildMixIn.LazyLoadingJob) {
+                AbstractLazyLoadRunMap<?> runs = ((LazyBuildMixIn.LazyLoadingJob<?, ?>) job).getLazyBuildMixIn()._getRuns();
+                for (int m = runs.floorNumberOnDisk(n); m > 0; m = runs.floorNumberOnDisk(m - 1)) {
+                    RunHeader h = RunHeader.read(new File(job.getBuildDir(), String.valueOf(m)));
+                    if (h != null && h.getNumber() == m && !h.isBuilding()) {
+                        return new Entry(job, h);
+                    }
+                    Run<?, ?> r = job.getBuildByNumber(m);
+                    if (r != null) {
+                        return new Entry(r);
+                    }
+                }
+                return null;
+            }
+            Run<?, ?> r = job.getNearestOldBuild(n);
+            return r == null ? null : new Entry(r);
+        }
+
+        private Entry put(Run<?, ?> r) {
+            return put(new Entry(r));
+        }
+
+        private Entry put(Entry e) {
+            entries.put(e.number, e);
+            oldest = Math.min(oldest, e.number);
+            return e;
+        }
+
+        synchronized void update(Run<?, ?> r) {
+            if (!seeded) {
+                return;
+            }
+            // older builds are indexed when they are asked for; adding one now would leave a gap,
+            // unless all the builds are known, such as when the job had none yet
+            if (r.getNumber() < oldest && !(complete && entries.isEmpty())) {
+                return;
+            }
+            put(r);
+        }
+
+        synchronized void remove(Run<?, ?> r) {
+            entries.remove(r.getNumber());
+        }
+    }
+
+    /**
+     * Merges the timelines of jobs, newest builds first.
+     */
+    private static final class Merger implements Iterator<Entry> {
+        private final PriorityQueue<Head> heads;
+
+        Merger(List<JobTimeline> timelines) {
+            heads = new PriorityQueue<>(Math.max(timelines.size(), 1));
+            for (JobTimeline t : timelines) {
+                Entry e = t.next(null);
+                if (e != null) {
+                    heads.add(new Head(t, e));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Entry next() {
+            Head h = heads.poll();
+            if (h == null) {
+                throw new NoSuchElementException();
+            }
+            Entry e = h.entry;
+            Entry n = h.timeline.next(e);
+            if (n != null) {
+                heads.add(new Head(h.timeline, n));
+            }
+            return e;
+        }
+    }
+
+    private static final class Head implements Comparable<Head> {
+        final JobTimeline timeline;
+        final Entry entry;
+
+        Head(JobTimeline timeline, Entry entry) {
+            this.timeline = timeline;
+            this.entry = entry;
+        }
+
+        @Override
+        public int compareTo(Head that) {
+            return Long.compare(that.entry.timestamp, this.entry.timestamp);
+        }
+    }
+
+    @Extension
+    public static final class RunListenerImpl extends RunListener<Run<?, ?>> {
+        @Override
+        public void onInitialize(Run<?, ?> r) {
+            update(r);
+        }
+
+        @Override
+        public void onStarted(Run<?, ?> r, TaskListener listener) {
+            update(r);
+        }
+
+        @Override
+        public void onCompleted(Run<?, ?> r, @NonNull TaskListener listener) {
+            update(r);
+        }
+
+        @Override
+        public void onFinalized(Run<?, ?> r) {
+            update(r);
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> r) {
+            JobTimeline t = INSTANCE.existing(r.getParent());
+            if (t != null) {
+                t.remove(r);
+            }
+        }
+
+        private void update(Run<?, ?> r) {
+            JobTimeline t = INSTANCE.existing(r.getParent());
+            if (t != null) {
+                t.update(r);
+            }
+        }
+    }
+
+    /**
+     * Catches changes of display names and descriptions.
+     */
+    @Extension
+    public static final class SaveableListenerImpl extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Run) {
+                Run<?, ?> r = (Run<?, ?>) o;
+                JobTimeline t = INSTANCE.existing(r.getParent());
+                if (t != null) {
+                    t.update(r);
+                }
+            }
+        }
+    }
+
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+        @Override
+        public void onDeleted(Item item) {
+            INSTANCE.forget(item.getAllJobs());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            // entries of the moved jobs are indexed again under their new names if asked for
+            INSTANCE.forget(item.getAllJobs());
+        }
+
+        @Override
+        public void onLoaded() {
+            // after a reload all the jobs are new objects
+            INSTANCE.jobs.clear();
+        }
+    }
+}
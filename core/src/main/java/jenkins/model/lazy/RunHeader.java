@@ -0,0 +1,347 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.model.lazy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Result;
+import hudson.model.Run;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * The most frequently needed fields of a {@link Run}, kept in a small binary file next to its {@code build.xml},
+ * so that they can be read without parsing the whole build record, actions and all.
+ *
+ * <p>
+ * The header is written once the run is completed, and again whenever a completed run is {@linkplain Run#save() saved}.
+ * Nothing is written while the run is building, so the many saves of a running build cost nothing more.
+ * The header records the size, timestamp and checksum of the {@code build.xml} it was written with.
+ * If {@code build.xml} was changed in any other way since
+ * (by an older version of Jenkins, by hand, or because writing the header failed), the header is ignored,
+ * and callers are expected to load the run instead.
+ *
+ * @see BuildTimeline
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public final class RunHeader {
+
+    private static final Logger LOGGER = Logger.getLogger(RunHeader.class.getName());
+
+    static final String FILE_NAME = "build.header";
+
+    /**
+     * Identifies the format of the file, and its version.
+     */
+    private static final int MAGIC = 0x4A524802;
+
+    private final int number;
+    private final long queueId;
+    private final long timestamp;
+    private final long startTime;
+    private final long duration;
+    private final @CheckForNull Result result;
+    private final String displayName;
+    private final @CheckForNull String description;
+    private final List<String> parameterValues;
+
+    private RunHeader(int number, long queueId, long timestamp, long startTime, long duration, @CheckForNull Result result,
+                      String displayName, @CheckForNull String description, List<String> parameterValues) {
+        this.number = number;
+        this.queueId = queueId;
+        this.timestamp = timestamp;
+        this.startTime = startTime;
+        this.duration = duration;
+        this.result = result;
+        this.displayName = displayName;
+        this.description = description;
+        this.parameterValues = parameterValues;
+    }
+
+    /**
+     * Writes the header of a completed run, after its {@code build.xml} was written.
+     * Failures are logged, as the header can always be done without.
+     */
+    public static void write(@NonNull Run<?, ?> r) {
+        if (!ENABLED || r.isLogUpdated()) {
+            return;
+        }
+        File dir = r.getRootDir();
+        File header = new File(dir, FILE_NAME);
+        Path xml = new File(dir, "build.xml").toPath();
+        if (!Files.exists(xml)) {
+            return;
+        }
+        try {
+            // parameters do not change once the run is completed, and computing them may call into plugins
+            RunHeader previous = readIgnoringStamp(header.toPath());
+            List<String> values = previous != null && previous.number == r.getNumber()
+                    ? previous.parameterValues : BuildTimeline.Entry.parameterValuesOf(r);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(header.toPath())))) {
+                out.writeInt(MAGIC);
+                writeStamp(out, xml);
+                write(out, r, values);
+            }
+        } catch (IOException | RuntimeException x) {
+            LOGGER.log(Level.WARNING, "Failed to write " + header, x);
+            try {
+                Files.deleteIfExists(header.toPath());
+            } catch (IOException x2) {
+                x.addSuppressed(x2);
+            }
+        }
+    }
+
+    private static void write(DataOutputStream out, Run<?, ?> r, List<String> values) throws IOException {
+        out.writeInt(r.getNumber());
+        out.writeLong(r.getQueueId());
+        out.writeLong(r.getTimeInMillis());
+        out.writeLong(r.getStartTimeInMillis());
+        out.writeLong(r.getDuration());
+        Result result = r.getResult();
+        writeString(out, result == null ? null : result.toString());
+        writeString(out, r.getDisplayName());
+        writeString(out, r.getDescription());
+        out.writeInt(values.size());
+        for (String v : values) {
+            writeString(out, v);
+        }
+    }
+
+    /**
+     * Records which {@code build.xml} the header goes with: its size, its timestamp to the finest precision the file system keeps,
+     * and a checksum of its contents.
+     */
+    private static void writeStamp(DataOutputStream out, Path xml) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(xml, BasicFileAttributes.class);
+        out.writeLong(attrs.size());
+        out.writeLong(attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+        out.writeLong(checksum(xml));
+    }
+
+    private static boolean matchesStamp(DataInputStream in, Path xml) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(xml, BasicFileAttributes.class);
+        if (in.readLong() != attrs.size() || in.readLong() != attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS)) {
+            return false;
+        }
+        // reading the file is still much cheaper than unmarshalling it
+        return in.readLong() == checksum(xml);
+    }
+
+    private static long checksum(Path xml) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buf = new byte[8192];
+        try (InputStream in = Files.newInputStream(xml)) {
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                crc.update(buf, 0, n);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Reads the header of a run.
+     *
+     * @param dir the {@linkplain Run#getRootDir() directory} of the run
+     * @return null if there is no header, or if it is not up to date with {@code build.xml}
+     */
+    public static @CheckForNull RunHeader read(@NonNull File dir) {
+        if (!ENABLED) {
+            return null;
+        }
+        Path header = new File(dir, FILE_NAME).toPath();
+        Path xml = new File(dir, "build.xml").toPath();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(header)))) {
+            if (in.readInt() != MAGIC) {
+                LOGGER.log(Level.FINE, "Ignoring {0} written in another format", header);
+                return null;
+            }
+            if (!matchesStamp(in, xml)) {
+                LOGGER.log(Level.FINE, "Ignoring {0} as build.xml changed since", header);
+                return null;
+            }
+            return read(in);
+        } catch (NoSuchFileException x) {
+            return null;
+        } catch (IOException | RuntimeException x) {
+            LOGGER.log(Level.FINE, "Failed to read " + header, x);
+            return null;
+        }
+    }
+
+    /**
+     * Reads a header whether or not it is up to date with {@code build.xml}.
+     */
+    private static @CheckForNull RunHeader readIgnoringStamp(Path header) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(header)))) {
+            if (in.readInt() != MAGIC) {
+                return null;
+            }
+            // skip the stamp
+            in.readLong();
+            in.readLong();
+            in.readLong();
+            return read(in);
+        } catch (NoSuchFileException x) {
+            return null;
+        } catch (IOException | RuntimeException x) {
+            LOGGER.log(Level.FINE, "Failed to read " + header, x);
+            return null;
+        }
+    }
+
+    private static RunHeader read(DataInputStream in) throws IOException {
+        int number = in.readInt();
+        long queueId = in.readLong();
+        long timestamp = in.readLong();
+        long startTime = in.readLong();
+        long duration = in.readLong();
+        String result = readString(in);
+        String displayName = readString(in);
+        String description = readString(in);
+        int n = in.readInt();
+        List<String> values = n == 0 ? Collections.emptyList() : new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            values.add(readString(in));
+        }
+        return new RunHeader(number, queueId, timestamp, startTime, duration, result == null ? null : Result.fromString(result),
+                displayName, description, values);
+    }
+
+    private static void writeString(DataOutputStream out, @CheckForNull String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            // not writeUTF, which is limited to 64Kb
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(b.length);
+            out.write(b);
+        }
+    }
+
+    private static @CheckForNull String readString(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        if (n < 0) {
+            return null;
+        }
+        byte[] b = new byte[n];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @see Run#getNumber()
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * @see Run#getQueueId()
+     */
+    public long getQueueId() {
+        return queueId;
+    }
+
+    /**
+     * @see Run#getTimeInMillis()
+     */
+    public long getTimeInMillis() {
+        return timestamp;
+    }
+
+    /**
+     * @see Run#getStartTimeInMillis()
+     */
+    public long getStartTimeInMillis() {
+        return startTime;
+    }
+
+    /**
+     * @see Run#getDuration()
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Result of the run, or null if it was still running when last saved.
+     */
+    public @CheckForNull Result getResult() {
+        return result;
+    }
+
+    public boolean isBuilding() {
+        return result == null;
+    }
+
+    /**
+     * @see Run#getDisplayName()
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @see Run#getDescription()
+     */
+    public @CheckForNull String getDescription() {
+        return description;
+    }
+
+    /**
+     * String values of what {@link BuildTimeline.Entry#getParameterValues} would be for the run.
+     */
+    public List<String> getParameterValues() {
+        return parameterValues;
+    }
+
+    /**
+     * Whether run headers are written and read.
+     */
+    public static /* Script Console modifiable */ boolean ENABLED = SystemProperties.getBoolean(RunHeader.class.getName() + ".enabled", true);
+}
@@ -25,6 +25,7 @@ package jenkins.widgets;
 
 import hudson.model.Queue;
 import hudson.model.Run;
+import jenkins.model.lazy.BuildTimeline;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 
@@ -60,6 +61,8 @@ public class HistoryPageEntry<T> {
         } else if (entry instanceof Run) {
             Run run = (Run) entry;
             return (Long.MIN_VALUE + run.getNumber());
+        } else if (entry instanceof BuildTimeline.Entry) {
+            return (Long.MIN_VALUE + ((BuildTimeline.Entry) entry).getNumber());
         } else if (entry instanceof Number) {
             // Used for testing purposes because of JENKINS-30899 and JENKINS-30909
             return (Long.MIN_VALUE + ((Number) entry).longValue());
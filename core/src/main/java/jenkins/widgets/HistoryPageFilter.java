@@ -33,6 +33,7 @@ import hudson.model.Run;
 import hudson.search.UserSearchProperty;
 import hudson.util.Iterators;
 import hudson.widgets.HistoryWidget;
+import jenkins.model.lazy.BuildTimeline;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.util.ArrayList;
@@ -253,6 +254,8 @@ public class HistoryPageFilter<T> {
             }
         } else if (entry instanceof Run) {
             return ((Run) entry).getParent().getNextBuildNumber();
+        } else if (entry instanceof BuildTimeline.Entry) {
+            return ((BuildTimeline.Entry) entry).getJob().getNextBuildNumber();
         }
 
         // TODO maybe this should be an error?
@@ -299,6 +302,22 @@ public class HistoryPageFilter<T> {
             }
             addRun(run);
             return true;
+        } else if (entry instanceof BuildTimeline.Entry) {
+            BuildTimeline.Entry e = (BuildTimeline.Entry) entry;
+            boolean fits = searchString == null || fitsSearchParams(e);
+            if (!fits && !e.isAbbreviated()) {
+                return false;
+            }
+            // only now load the run, as it is going to be shown, or its full description and parameters need to be searched
+            Run run = e.getRun();
+            if (run == null) {
+                return false; // deleted in the meantime
+            }
+            if (!fits && !fitsSearchParams(run)) {
+                return false;
+            }
+            addRun(run);
+            return true;
         }
         return false;
     }
@@ -354,6 +373,36 @@ public class HistoryPageFilter<T> {
         return false;
     }
 
+    /**
+     * Same as {@link #fitsSearchParams(Run)}, but without loading the run.
+     */
+    private boolean fitsSearchParams(@NonNull BuildTimeline.Entry entry) {
+        if (searchString == null) {
+            return true;
+        }
+
+        if (fitsSearchString(entry.getDisplayName())) {
+            return true;
+        } else if (fitsSearchString(entry.getDescription())) {
+            return true;
+        } else if (fitsSearchString(entry.getNumber())) {
+            return true;
+        } else if (fitsSearchString(entry.getQueueId())) {
+            return true;
+        } else if (fitsSearchString(entry.getResult())) {
+            return true;
+        } else {
+            for (String value : entry.getParameterValues()) {
+                if (fitsSearchString(value)) {
+                    return true;
+                }
+            }
+        }
+
+        // Non of the fuzzy matches "liked" the search term.
+        return false;
+    }
+
     private boolean fitsSearchString(Object data) {
         if (searchString == null) {
             return true;
@@ -33,6 +33,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -487,6 +488,15 @@ public class FingerprintTest {
         assertThat(RangeSet.fromString("1-3,2-3", true).toString(), equalTo("[1,4),[2,4)"));
         assertThat(RangeSet.fromString("1-5,2-3", true).toString(), equalTo("[1,6),[2,4)"));
     }
+    @Test public void jobNamesAreShared() {
+        Fingerprint.BuildPtr original = new Fingerprint.BuildPtr(new String("folder/job"), 1);
+        Fingerprint f = new Fingerprint(null, "foo.jar", new byte[16]);
+        f.addWithoutSaving(new String("folder/job"), 2);
+        f.addWithoutSaving(new String("folder/job"), 3);
+        assertSame(original.getName(), f.getUsages().keySet().iterator().next());
+        assertEquals("[2,4)", f.getRangeSet("folder/job").toString());
+    }
+
     private boolean expectIAE(final String expr, final String msg) {
         try {
             RangeSet.fromString(expr, false);
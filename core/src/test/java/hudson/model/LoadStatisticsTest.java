@@ -36,9 +36,13 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  * @author Kohsuke Kawaguchi
@@ -101,6 +105,34 @@ public class LoadStatisticsTest {
         assertThat(LoadStatistics.isModern(LoadStatistics.class), is(false));
     }
 
+    @Test
+    public void snapshotsOfDisjointNodesAddUp() {
+        Computer online = mock(Computer.class);
+        when(online.isOffline()).thenReturn(false);
+        when(online.isAcceptingTasks()).thenReturn(true);
+        when(online.getExecutors()).thenReturn(Arrays.asList(mock(Executor.class), mock(Executor.class)));
+        Computer disabled = mock(Computer.class);
+        when(disabled.isOffline()).thenReturn(false);
+        when(disabled.getExecutors()).thenReturn(Collections.singletonList(mock(Executor.class)));
+        Computer connecting = mock(Computer.class);
+        when(connecting.isOffline()).thenReturn(true);
+        when(connecting.isConnecting()).thenReturn(true);
+        when(connecting.getNumExecutors()).thenReturn(3);
+
+        LoadStatistics.LoadStatisticsSnapshot a = LoadStatistics.LoadStatisticsSnapshot.builder().with(online).withQueueLength(7).build();
+        LoadStatistics.LoadStatisticsSnapshot b = LoadStatistics.LoadStatisticsSnapshot.builder().with(connecting).with(disabled).build();
+
+        LoadStatistics.LoadStatisticsSnapshot sum = LoadStatistics.LoadStatisticsSnapshot.builder().add(a).add(b).withQueueLength(2).build();
+        LoadStatistics.LoadStatisticsSnapshot expected = LoadStatistics.LoadStatisticsSnapshot.builder()
+                .with(online).with(connecting).with(disabled).withQueueLength(2).build();
+        assertThat(sum, is(expected));
+        assertThat(sum.getDefinedExecutors(), is(6));
+        assertThat(sum.getOnlineExecutors(), is(3));
+        assertThat(sum.getConnectingExecutors(), is(3));
+        assertThat(sum.getIdleExecutors(), is(3));
+        assertThat(sum.getAvailableExecutors(), is(2));
+    }
+
     private static class Modern extends LoadStatistics {
 
         protected Modern(int initialOnlineExecutors, int initialBusyExecutors) {
@@ -0,0 +1,53 @@
+package hudson.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class RingBufferTimeSeriesTest {
+
+    @Test
+    public void wrapsAround() {
+        RingBufferTimeSeries ts = new RingBufferTimeSeries(1000, 3);
+        assertEquals(0, ts.size());
+        assertEquals(0f, ts.getLatest(), 0f);
+        assertEquals(0, ts.getHistory().length);
+
+        ts.update(1);
+        ts.update(2);
+        assertArrayEquals(new float[] {2, 1}, ts.getHistory(), 0f);
+
+        ts.update(3);
+        ts.update(4);
+        ts.update(5);
+        assertEquals(3, ts.size());
+        assertEquals(5f, ts.getLatest(), 0f);
+        assertArrayEquals(new float[] {5, 4, 3}, ts.getHistory(), 0f);
+    }
+
+    @Test
+    public void summary() {
+        RingBufferTimeSeries ts = new RingBufferTimeSeries(1000, 200);
+        for (int i = 100; i >= 1; i--) {
+            ts.update(i);
+        }
+        RingBufferTimeSeries.Summary s = ts.getSummary();
+        assertEquals(100, s.getCount());
+        assertEquals(1f, s.getMin(), 0f);
+        assertEquals(100f, s.getMax(), 0f);
+        assertEquals(50.5f, s.getMean(), 0.001f);
+        assertEquals(50f, s.getP50(), 0f);
+        assertEquals(90f, s.getP90(), 0f);
+        assertEquals(99f, s.getP99(), 0f);
+        assertEquals(100f, ts.percentile(100), 0f);
+        assertEquals(1f, ts.percentile(0), 0f);
+        // the buffer itself is left in insertion order
+        assertEquals(1f, ts.getLatest(), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyCapacity() {
+        new RingBufferTimeSeries(1000, 0);
+    }
+}
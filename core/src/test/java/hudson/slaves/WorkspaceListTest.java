@@ -0,0 +1,104 @@
+package hudson.slaves;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import hudson.FilePath;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class WorkspaceListTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void allocateAddsSuffixWhileInUse() throws Exception {
+        WorkspaceList l = new WorkspaceList();
+        FilePath ws = new FilePath(tmp.getRoot()).child("ws");
+
+        WorkspaceList.Lease first = l.allocate(ws);
+        assertEquals(ws, first.path);
+        assertTrue(l.isInUse(ws));
+
+        WorkspaceList.Lease second = l.allocate(ws);
+        assertEquals(ws.withSuffix(WorkspaceList.COMBINATOR + "2"), second.path);
+
+        first.release();
+        assertFalse(l.isInUse(ws));
+        try (WorkspaceList.Lease third = l.allocate(ws)) {
+            assertEquals(ws, third.path);
+        }
+        second.release();
+        assertFalse(l.isInUse(second.path));
+    }
+
+    @Test
+    public void sharedContextReacquires() throws Exception {
+        WorkspaceList l = new WorkspaceList();
+        FilePath ws = new FilePath(tmp.getRoot()).child("ws");
+        Object context = new Object();
+
+        WorkspaceList.Lease a = l.allocate(ws, context);
+        WorkspaceList.Lease b = l.allocate(ws, context);
+        assertEquals(a.path, b.path);
+        a.release();
+        assertTrue(l.isInUse(ws));
+        b.release();
+        assertFalse(l.isInUse(ws));
+    }
+
+    @Test
+    public void acquireWaitsForRelease() throws Exception {
+        WorkspaceList l = new WorkspaceList();
+        FilePath ws = new FilePath(tmp.getRoot()).child("ws");
+        FilePath other = new FilePath(tmp.getRoot()).child("other");
+
+        WorkspaceList.Lease held = l.acquire(ws);
+        ExecutorService es = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            Future<WorkspaceList.Lease> waiting = es.submit(() -> {
+                started.countDown();
+                return l.acquire(ws);
+            });
+            started.await();
+
+            // unrelated workspaces are not held up
+            es.submit(() -> l.acquire(other)).get(10, TimeUnit.SECONDS).release();
+
+            Thread.sleep(100);
+            assertFalse(waiting.isDone());
+
+            held.release();
+            WorkspaceList.Lease acquired = waiting.get(10, TimeUnit.SECONDS);
+            assertEquals(ws, acquired.path);
+            acquired.release();
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    @Test
+    public void allocationPointNotCapturedByDefault() throws Exception {
+        WorkspaceList l = new WorkspaceList();
+        FilePath ws = new FilePath(tmp.getRoot()).child("ws");
+        try (WorkspaceList.Lease lease = l.record(ws)) {
+            l.record(ws);
+            fail("recorded the same workspace twice");
+        } catch (AssertionError e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("already owned"));
+            assertTrue(e.getMessage(), e.getMessage().contains("Allocation Point (not recorded"));
+            assertFalse(e.getMessage(), e.getMessage().contains("\tat "));
+        }
+    }
+}
@@ -128,6 +128,45 @@ public class ConsistentHashTest {
         }
     }
 
+    /**
+     * Changing nodes one at a time should end up with the same ring as building it from scratch.
+     */
+    @Test
+    public void incrementalUpdate() {
+        ConsistentHash<String> incremental = new ConsistentHash<>();
+        for (int i = 0; i < 10; i++) {
+            incremental.add("node" + i, 100);
+        }
+        incremental.add("node3", 20);
+        incremental.add("node5", 300);
+        incremental.remove("node7");
+        incremental.add("node7", 50);
+        incremental.remove("node8");
+
+        Map<String, Integer> data = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            data.put("node" + i, 100);
+        }
+        data.put("node3", 20);
+        data.put("node5", 300);
+        data.put("node7", 50);
+        data.remove("node8");
+        ConsistentHash<String> rebuilt = new ConsistentHash<>();
+        rebuilt.addAll(data);
+
+        assertEquals(rebuilt.countAllPoints(), incremental.countAllPoints());
+        Random r = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            int q = r.nextInt();
+            Iterator<String> a = rebuilt.list(q).iterator();
+            Iterator<String> b = incremental.list(q).iterator();
+            while (a.hasNext()) {
+                assertEquals(a.next(), b.next());
+            }
+            assertFalse(b.hasNext());
+        }
+    }
+
     @Test
     public void emptyBehavior() {
         ConsistentHash<String> hash = new ConsistentHash<>();
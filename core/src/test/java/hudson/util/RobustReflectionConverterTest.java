@@ -24,17 +24,20 @@
 package hudson.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.converters.ConversionException;
+import com.thoughtworks.xstream.converters.basic.IntConverter;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import jenkins.util.xstream.CriticalXStreamException;
 import org.junit.Test;
 
 /**
@@ -69,6 +72,39 @@ public class RobustReflectionConverterTest {
         }
     }
 
+    @Test
+    public void localConverterRegisteredAfterUnmarshalling() {
+        XStream2 xs = new XStream2();
+        assertEquals(1, read(xs).x);
+        xs.registerLocalConverter(Point.class, "x", new IntConverter() {
+            @Override public Object fromString(String str) {
+                return 10 * (Integer) super.fromString(str);
+            }
+        });
+        assertEquals(10, read(xs).x);
+        assertEquals(2, read(xs).y);
+    }
+
+    @Test
+    public void criticalFieldAddedAfterUnmarshalling() {
+        XStream2 xs = new XStream2();
+        String clsName = Holder.class.getName().replace("$", "_-");
+        String xml = "<" + clsName + "><point class='no.such.Point'/></" + clsName + '>';
+        Holder h = (Holder) xs.fromXML(xml);
+        assertNull(h.point);
+        xs.addCriticalField(Holder.class, "point");
+        try {
+            xs.fromXML(xml);
+            fail();
+        } catch (CriticalXStreamException e) {
+            // expected
+        }
+    }
+
+    public static class Holder {
+        Point point;
+    }
+
     @Test
     public void classOwnership() throws Exception {
         XStream xs = new XStream2(new XStream2.ClassOwnership() {
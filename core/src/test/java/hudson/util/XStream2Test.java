@@ -26,6 +26,8 @@ package hudson.util;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -39,6 +41,7 @@ import com.thoughtworks.xstream.mapper.CannotResolveClassException;
 import hudson.model.Result;
 import hudson.model.Run;
 import java.io.StringReader;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -84,6 +87,62 @@ public class XStream2Test {
         assertEquals("foo", b.s);
     }
 
+    @Test
+    public void equalStringsAreShared() {
+        XStream2 xs = new XStream2();
+        String label = new String("linux && docker");
+        Bar b1 = (Bar) xs.fromXML("<hudson.util.XStream2Test-Bar><s>" + label + "</s></hudson.util.XStream2Test-Bar>");
+        Bar b2 = (Bar) new XStream2().fromXML("<hudson.util.XStream2Test-Bar><s>" + label + "</s></hudson.util.XStream2Test-Bar>");
+        assertEquals(label, b1.s);
+        assertSame(b1.s, b2.s);
+    }
+
+    @Test
+    public void sharedStringsAreNotKeptAlive() throws Exception {
+        Bar b = (Bar) new XStream2().fromXML("<hudson.util.XStream2Test-Bar><s>label-" + System.nanoTime() + "</s></hudson.util.XStream2Test-Bar>");
+        WeakReference<String> ref = new WeakReference<>(b.s);
+        b = null;
+        for (int i = 0; i < 10 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        assertNull(ref.get());
+    }
+
+    @Test
+    public void longStringsAreNotShared() {
+        int maxLength = InterningStringConverter.MAX_LENGTH;
+        InterningStringConverter.MAX_LENGTH = 10;
+        try {
+            XStream2 xs = new XStream2();
+            String xml = "<hudson.util.XStream2Test-Bar><s>some longer description</s></hudson.util.XStream2Test-Bar>";
+            Bar b1 = (Bar) xs.fromXML(xml);
+            Bar b2 = (Bar) xs.fromXML(xml);
+            assertEquals(b1.s, b2.s);
+            assertNotSame(b1.s, b2.s);
+        } finally {
+            InterningStringConverter.MAX_LENGTH = maxLength;
+        }
+    }
+
+    @Test
+    public void stockStringConverterWhenInterningIsOff() {
+        int maxLength = InterningStringConverter.MAX_LENGTH;
+        InterningStringConverter.MAX_LENGTH = 0;
+        try {
+            XStream2 xs = new XStream2();
+            String xml = "<hudson.util.XStream2Test-Bar><s>linux</s></hudson.util.XStream2Test-Bar>";
+            Bar b1 = (Bar) xs.fromXML(xml);
+            Bar b2 = (Bar) xs.fromXML(xml);
+            Bar b3 = (Bar) new XStream2().fromXML(xml);
+            assertSame(b1.s, b2.s);
+            assertEquals(b1.s, b3.s);
+            assertNotSame(b1.s, b3.s);
+        } finally {
+            InterningStringConverter.MAX_LENGTH = maxLength;
+        }
+    }
+
     public static final class __Foo_Bar$Class {
         String under_1 = "1", under__2 = "2",
                _leadUnder1 = "L1", __leadUnder2 = "L2",
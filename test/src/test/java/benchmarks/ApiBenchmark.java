@@ -0,0 +1,69 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package benchmarks;
+
+import hudson.model.FreeStyleProject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Serving a simple XPath over the XML API of an instance with 10000 jobs,
+ * where the XPath is applied while exporting, compared to one with a predicate, where the whole tree is exported first.
+ * Run with {@code -prof gc} to compare the allocation rates.
+ */
+@JmhBenchmark
+public class ApiBenchmark {
+
+    public static class MyState extends JmhBenchmarkState {
+        @Override
+        public void setup() throws Exception {
+            for (int i = 0; i < 10000; i++) {
+                getJenkins().createProject(FreeStyleProject.class, "job" + i);
+            }
+        }
+
+        long get(String path) throws IOException {
+            try (InputStream in = new URL(getJenkins().getRootUrl() + path).openStream()) {
+                return IOUtils.copyLarge(in, NullOutputStream.NULL_OUTPUT_STREAM);
+            }
+        }
+    }
+
+    @Benchmark
+    public void pruned(MyState state, Blackhole blackhole) throws IOException {
+        blackhole.consume(state.get("api/xml?depth=1&wrapper=r&xpath=/hudson/job/name"));
+    }
+
+    @Benchmark
+    public void unpruned(MyState state, Blackhole blackhole) throws IOException {
+        blackhole.consume(state.get("api/xml?depth=1&wrapper=r&xpath=/hudson/job[name]/name"));
+    }
+}
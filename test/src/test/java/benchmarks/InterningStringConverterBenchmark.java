@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package benchmarks;
+
+import hudson.XmlFile;
+import hudson.model.Cause;
+import hudson.model.CauseAction;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Items;
+import hudson.model.ParametersAction;
+import hudson.model.ParametersDefinitionProperty;
+import hudson.model.Run;
+import hudson.model.StringParameterDefinition;
+import hudson.model.StringParameterValue;
+import hudson.util.InterningStringConverter;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reading the {@code config.xml} of a parameterized project and the {@code build.xml} of one of its builds,
+ * with strings read by {@link InterningStringConverter} or, when {@code maxLength} is 0, by the stock converter.
+ * {@link #retained} reports how much heap many loaded copies of those files keep, as the {@code retainedBytes} counter.
+ */
+@JmhBenchmark
+public class InterningStringConverterBenchmark {
+
+    /**
+     * Number of copies of the project and of the build loaded by {@link #retained}.
+     */
+    private static final int COPIES = 2000;
+
+    public static class MyState extends JmhBenchmarkState {
+        @Param({"0", "128"})
+        public int maxLength;
+
+        String projectXml, buildXml;
+
+        @Override
+        public void setup() throws Exception {
+            FreeStyleProject p = getJenkins().createProject(FreeStyleProject.class, "p");
+            p.setAssignedLabel(getJenkins().getLabel("linux && docker"));
+            p.addProperty(new ParametersDefinitionProperty(new StringParameterDefinition("BRANCH", "master", "The branch to build")));
+            FreeStyleBuild b = p.scheduleBuild2(0, new Cause.UserIdCause(),
+                    new ParametersAction(new StringParameterValue("BRANCH", "master", "The branch to build")),
+                    new CauseAction(new Cause.RemoteCause("ci.example.com", "nightly"))).get();
+            projectXml = p.getConfigFile().asString();
+            buildXml = new XmlFile(Run.XSTREAM, new File(b.getRootDir(), "build.xml")).asString();
+            InterningStringConverter.MAX_LENGTH = maxLength;
+        }
+
+        @Override
+        public void tearDown() {
+            InterningStringConverter.MAX_LENGTH = 128;
+        }
+    }
+
+    @Benchmark
+    public void project(MyState state, Blackhole blackhole) {
+        blackhole.consume(Items.XSTREAM2.fromXML(state.projectXml));
+    }
+
+    @Benchmark
+    public void build(MyState state, Blackhole blackhole) {
+        blackhole.consume(Run.XSTREAM2.fromXML(state.buildXml));
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap {
+        /**
+         * Heap still used after a full collection, while the loaded copies are reachable.
+         */
+        public long retainedBytes;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public List<Object> retained(MyState state, Heap heap) {
+        long before = usedHeap();
+        List<Object> loaded = new ArrayList<>(2 * COPIES);
+        for (int i = 0; i < COPIES; i++) {
+            loaded.add(Items.XSTREAM2.fromXML(state.projectXml));
+            loaded.add(Run.XSTREAM2.fromXML(state.buildXml));
+        }
+        heap.retainedBytes = usedHeap() - before;
+        return loaded;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
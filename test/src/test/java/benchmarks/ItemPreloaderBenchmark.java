@@ -0,0 +1,56 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package benchmarks;
+
+import hudson.model.FreeStyleProject;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import jenkins.model.ItemPreloader;
+import org.jvnet.hudson.test.MockFolder;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Reloading 10000 jobs spread across 20 folders, read by {@link ItemPreloader} unless turned off
+ * with {@code -Djenkins.model.ItemPreloader.enabled=false}.
+ */
+@JmhBenchmark
+public class ItemPreloaderBenchmark {
+
+    public static class MyState extends JmhBenchmarkState {
+        @Override
+        public void setup() throws Exception {
+            for (int i = 0; i < 20; i++) {
+                MockFolder f = getJenkins().createProject(MockFolder.class, "folder" + i);
+                for (int j = 0; j < 500; j++) {
+                    f.createProject(FreeStyleProject.class, "job" + j);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void reload(MyState state) throws Exception {
+        state.getJenkins().reload();
+    }
+}
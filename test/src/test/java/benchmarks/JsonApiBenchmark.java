@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package benchmarks;
+
+import hudson.model.Api;
+import hudson.model.FreeStyleProject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Exporting {@link jenkins.model.Jenkins} as JSON with 1000 or 10000 jobs, streamed or through Stapler
+ * ({@link Api#STREAMING}): time to the first byte and to the last one.
+ * Run with {@code -prof gc} to compare the allocation rates.
+ */
+@JmhBenchmark
+public class JsonApiBenchmark {
+
+    public static class MyState extends JmhBenchmarkState {
+        @Param({"1000", "10000"})
+        public int jobs;
+
+        @Param({"true", "false"})
+        public boolean streaming;
+
+        @Override
+        public void setup() throws Exception {
+            for (int i = 0; i < jobs; i++) {
+                getJenkins().createProject(FreeStyleProject.class, "job" + i);
+            }
+            Api.STREAMING = streaming;
+        }
+
+        @Override
+        public void tearDown() {
+            Api.STREAMING = true;
+        }
+
+        InputStream open() throws IOException {
+            return new URL(getJenkins().getRootUrl() + "api/json?depth=1").openStream();
+        }
+    }
+
+    @Benchmark
+    public void firstByte(MyState state, Blackhole blackhole) throws IOException {
+        try (InputStream in = state.open()) {
+            blackhole.consume(in.read());
+        }
+    }
+
+    @Benchmark
+    public void lastByte(MyState state, Blackhole blackhole) throws IOException {
+        try (InputStream in = state.open()) {
+            blackhole.consume(IOUtils.copyLarge(in, NullOutputStream.NULL_OUTPUT_STREAM));
+        }
+    }
+}
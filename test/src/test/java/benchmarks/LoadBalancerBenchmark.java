@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package benchmarks;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import hudson.model.Computer;
+import hudson.model.Executor;
+import hudson.model.LoadBalancer;
+import hudson.model.Node;
+import hudson.model.Queue.BuildableItem;
+import hudson.model.Queue.JobOffer;
+import hudson.model.Queue.Task;
+import hudson.model.Queue.WaitingItem;
+import hudson.model.ScoringLoadBalancer;
+import hudson.model.queue.MappingWorksheet;
+import hudson.security.ACL;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Time (and, with {@code -prof gc}, allocation) of a {@link LoadBalancer#map} call over 1000 executors on 250 nodes,
+ * where a couple of nodes are busier from one call to the next.
+ */
+@JmhBenchmark
+public class LoadBalancerBenchmark {
+
+    public static class MyState extends JmhBenchmarkState {
+        final List<List<JobOffer>> nodes = new ArrayList<>();
+        final Random random = new Random(0);
+        final ScoringLoadBalancer scoring = new ScoringLoadBalancer();
+        int round;
+
+        @Override
+        public void setup() throws Exception {
+            for (int i = 0; i < 250; i++) {
+                nodes.add(offersOf(createMockComputer("node" + i, 4, i % 4)));
+            }
+        }
+
+        /**
+         * The worksheet of the next task to map.
+         */
+        MappingWorksheet next(Task t) {
+            List<JobOffer> offers = new ArrayList<>();
+            for (List<JobOffer> n : nodes) {
+                offers.addAll(random.nextInt(100) == 0 ? n.subList(0, n.size() / 2) : n);
+            }
+            return new MappingWorksheet(new BuildableItem(new WaitingItem(new GregorianCalendar(), t, new ArrayList<>())),
+                    offers, Collections.emptyList());
+        }
+
+        Task task() {
+            Task t = mock(Task.class);
+            when(t.getSubTasks()).thenReturn((Collection) Collections.singletonList(t));
+            when(t.getAffinityKey()).thenReturn("job" + round++);
+            return t;
+        }
+    }
+
+    @Benchmark
+    public void consistentHash(MyState state, Blackhole blackhole) {
+        Task t = state.task();
+        blackhole.consume(LoadBalancer.CONSISTENT_HASH.map(t, state.next(t)));
+    }
+
+    @Benchmark
+    public void scoring(MyState state, Blackhole blackhole) {
+        Task t = state.task();
+        blackhole.consume(state.scoring.map(t, state.next(t)));
+    }
+
+    private static List<JobOffer> offersOf(Computer c) {
+        List<JobOffer> r = new ArrayList<>();
+        for (Executor e : c.getExecutors()) {
+            if (e.isIdle()) {
+                JobOffer o = mock(JobOffer.class);
+                when(o.getExecutor()).thenReturn(e);
+                r.add(o);
+            }
+        }
+        return r;
+    }
+
+    private static Computer createMockComputer(String name, int nExecutors, int nBusy) throws Exception {
+        Node n = mock(Node.class);
+        when(n.getNodeName()).thenReturn(name);
+        when(n.getACL()).thenReturn(ACL.lambda2((a, p) -> true));
+        Computer c = mock(Computer.class);
+        when(c.getNode()).thenReturn(n);
+        when(c.getName()).thenReturn(name);
+
+        List<Executor> executors = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < nExecutors; i++) {
+            Executor e = mock(Executor.class);
+            boolean busy = i < nBusy;
+            when(e.isIdle()).thenReturn(!busy);
+            when(e.getEstimatedRemainingTimeMillis()).thenReturn(busy ? 60_000L * (i + 1) : -1L);
+            when(e.getOwner()).thenReturn(c);
+            executors.add(e);
+        }
+
+        Field f = Computer.class.getDeclaredField("executors");
+        f.setAccessible(true);
+        f.set(c, executors);
+
+        when(c.getExecutors()).thenReturn(executors);
+        when(c.countIdle()).thenReturn(nExecutors - nBusy);
+        return c;
+    }
+}
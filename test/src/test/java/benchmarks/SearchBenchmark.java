@@ -0,0 +1,80 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package benchmarks;
+
+import hudson.model.FreeStyleProject;
+import hudson.search.SearchIndex;
+import hudson.search.SearchItem;
+import java.util.ArrayList;
+import java.util.List;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Search box suggestions among 10000 jobs, for a query matching a prefix, one matching in the middle of names,
+ * a misspelled one, and one matching nothing.
+ */
+@JmhBenchmark
+public class SearchBenchmark {
+
+    public static class MyState extends JmhBenchmarkState {
+        SearchIndex index;
+
+        @Override
+        public void setup() throws Exception {
+            for (int i = 0; i < 10000; i++) {
+                getJenkins().createProject(FreeStyleProject.class, "job-" + i);
+            }
+            index = getJenkins().getSearchIndex();
+        }
+
+        List<SearchItem> suggest(String query) {
+            List<SearchItem> result = new ArrayList<>();
+            index.suggest(query, result);
+            return result;
+        }
+    }
+
+    @Benchmark
+    public void prefix(MyState state, Blackhole blackhole) {
+        blackhole.consume(state.suggest("job-1234"));
+    }
+
+    @Benchmark
+    public void substring(MyState state, Blackhole blackhole) {
+        blackhole.consume(state.suggest("1234"));
+    }
+
+    @Benchmark
+    public void misspelled(MyState state, Blackhole blackhole) {
+        blackhole.consume(state.suggest("jbo-1234"));
+    }
+
+    @Benchmark
+    public void nothing(MyState state, Blackhole blackhole) {
+        blackhole.consume(state.suggest("nothing"));
+    }
+}
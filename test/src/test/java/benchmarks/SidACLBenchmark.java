@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package benchmarks;
+
+import hudson.model.Item;
+import hudson.model.User;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.security.ACLDecisionCache;
+import hudson.security.SparseACL;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.acegisecurity.acls.sid.GrantedAuthoritySid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Permission checks on a {@link SparseACL} with 50 groups, asked directly, and through {@link ACLDecisionCache}
+ * with decisions kept across requests.
+ */
+@JmhBenchmark
+public class SidACLBenchmark {
+
+    public static class MyState extends JmhBenchmarkState {
+        final SparseACL acl = new SparseACL(null);
+        Authentication alice;
+        int round;
+
+        @Override
+        public void setup() throws Exception {
+            for (int i = 0; i < 50; i++) {
+                acl.add(new GrantedAuthoritySid("group" + i), Item.CONFIGURE, true);
+            }
+            acl.add(new GrantedAuthoritySid("authenticated"), Item.READ, true);
+            alice = User.getById("alice", true).impersonate2();
+            ACLDecisionCache.TTL = 60 * 1000L;
+        }
+
+        @Override
+        public void tearDown() {
+            ACLDecisionCache.TTL = 0;
+        }
+    }
+
+    @Benchmark
+    public void uncached(MyState state, Blackhole blackhole) {
+        blackhole.consume(state.acl.hasPermission2(state.alice, state.round++ % 2 == 0 ? Item.READ : Item.CONFIGURE));
+    }
+
+    @Benchmark
+    public void cached(MyState state, Blackhole blackhole) {
+        try (ACLContext ctx = ACL.as2(state.alice)) {
+            blackhole.consume(state.acl.hasPermission(state.round++ % 2 == 0 ? Item.READ : Item.CONFIGURE));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package benchmarks;
+
+import hudson.PluginManager;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Class lookups through {@link PluginManager#uberClassLoader} with a few plugins installed,
+ * for a class of a plugin and for classes that do not exist, with and without {@link PluginManager#PACKAGE_INDEX}.
+ */
+@JmhBenchmark
+public class UberClassLoaderBenchmark {
+
+    public static class MyState extends JmhBenchmarkState {
+        @Param({"true", "false"})
+        public boolean packageIndex;
+
+        ClassLoader uber;
+        int round;
+
+        @Override
+        public void setup() throws Exception {
+            PluginManager pm = getJenkins().getPluginManager();
+            // dependencies first
+            for (String plugin : new String[] {"credentials.hpi", "icon-shim.hpi", "token-macro.hpi", "variant.hpi", "htmlpublisher.jpi"}) {
+                File f = new File(pm.rootDir, plugin);
+                try (InputStream in = UberClassLoaderBenchmark.class.getResourceAsStream("/plugins/" + plugin)) {
+                    Files.copy(in, f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                pm.dynamicLoad(f);
+            }
+            uber = pm.uberClassLoader;
+            PluginManager.PACKAGE_INDEX = packageIndex;
+        }
+
+        @Override
+        public void tearDown() {
+            PluginManager.PACKAGE_INDEX = true;
+        }
+    }
+
+    @Benchmark
+    public void hit(MyState state, Blackhole blackhole) throws ClassNotFoundException {
+        blackhole.consume(state.uber.loadClass("htmlpublisher.HtmlPublisher"));
+    }
+
+    @Benchmark
+    public void miss(MyState state, Blackhole blackhole) {
+        try {
+            blackhole.consume(state.uber.loadClass("htmlpublisher.Missing" + state.round++));
+        } catch (ClassNotFoundException e) {
+            blackhole.consume(e);
+        }
+    }
+}
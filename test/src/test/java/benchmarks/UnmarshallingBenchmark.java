@@ -0,0 +1,79 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package benchmarks;
+
+import hudson.XmlFile;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Items;
+import hudson.model.Run;
+import hudson.tasks.Shell;
+import hudson.util.RobustReflectionConverter;
+import java.io.File;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reading the {@code config.xml} of a freestyle project and the {@code build.xml} of one of its builds,
+ * with and without {@link RobustReflectionConverter#CACHE_PLANS}.
+ */
+@JmhBenchmark
+public class UnmarshallingBenchmark {
+
+    public static class MyState extends JmhBenchmarkState {
+        @Param({"true", "false"})
+        public boolean cachePlans;
+
+        String projectXml, buildXml;
+
+        @Override
+        public void setup() throws Exception {
+            FreeStyleProject p = getJenkins().createProject(FreeStyleProject.class, "p");
+            p.setDescription("some project");
+            p.getBuildersList().add(new Shell("echo hello"));
+            FreeStyleBuild b = p.scheduleBuild2(0).get();
+            projectXml = p.getConfigFile().asString();
+            buildXml = new XmlFile(Run.XSTREAM, new File(b.getRootDir(), "build.xml")).asString();
+            RobustReflectionConverter.CACHE_PLANS = cachePlans;
+        }
+
+        @Override
+        public void tearDown() {
+            RobustReflectionConverter.CACHE_PLANS = true;
+        }
+    }
+
+    @Benchmark
+    public void project(MyState state, Blackhole blackhole) {
+        blackhole.consume(Items.XSTREAM2.fromXML(state.projectXml));
+    }
+
+    @Benchmark
+    public void build(MyState state, Blackhole blackhole) {
+        blackhole.consume(Run.XSTREAM2.fromXML(state.buildXml));
+    }
+}
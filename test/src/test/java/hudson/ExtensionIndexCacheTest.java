@@ -0,0 +1,83 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import hudson.model.FreeStyleProject;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.LoggerRule;
+import org.jvnet.hudson.test.RestartableJenkinsRule;
+
+public class ExtensionIndexCacheTest {
+
+    @Rule public RestartableJenkinsRule rr = new RestartableJenkinsRule();
+
+    @Rule public LoggerRule logging = new LoggerRule().record(ExtensionIndexCache.class, Level.INFO).capture(10);
+
+    private static final Pattern SUMMARY = Pattern.compile("Bound (\\S+) extensions in \\d+ms, (\\S+) of them already known to be safe.*", Pattern.DOTALL);
+
+    @Test
+    public void skipsKnownExtensionsOnRestart() throws Exception {
+        rr.then(r -> {
+            File file = new File(r.jenkins.getRootDir(), "caches/extension-index.txt");
+            assertTrue(file.isFile());
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            assertThat(lines.get(0), startsWith("# fingerprint "));
+            assertThat(lines, hasItem("hudson.Extension " + FreeStyleProject.DescriptorImpl.class.getName() + "#null"));
+            Matcher m = lastSummary();
+            assertEquals("0", m.group(2));
+        });
+        rr.then(r -> {
+            Matcher m = lastSummary();
+            assertEquals(m.group(1), m.group(2));
+            assertNotNull(r.jenkins.getDescriptorByType(FreeStyleProject.DescriptorImpl.class));
+        });
+    }
+
+    private Matcher lastSummary() {
+        Matcher last = null;
+        for (String message : logging.getMessages()) {
+            Matcher m = SUMMARY.matcher(message);
+            if (m.matches()) {
+                last = m;
+            }
+        }
+        assertNotNull(last);
+        return last;
+    }
+}
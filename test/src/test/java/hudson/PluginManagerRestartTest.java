@@ -0,0 +1,52 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.util.Collections;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.RestartableJenkinsRule;
+
+public class PluginManagerRestartTest {
+
+    @Rule public RestartableJenkinsRule rr = new RestartableJenkinsRule();
+
+    @Test public void sameArchiveWithBothExtensions() {
+        rr.then(r -> {
+            File plugins = r.jenkins.getPluginManager().rootDir;
+            // both are exploded into plugins/tasks/
+            FileUtils.copyURLToFile(getClass().getClassLoader().getResource("plugins/tasks.jpi"), new File(plugins, "tasks.jpi"));
+            FileUtils.copyURLToFile(getClass().getClassLoader().getResource("plugins/tasks.jpi"), new File(plugins, "tasks.hpi"));
+        });
+        rr.then(r -> {
+            assertNotNull(r.jenkins.getPlugin("tasks"));
+            assertEquals(Collections.emptyList(), r.jenkins.getPluginManager().getFailedPlugins());
+        });
+    }
+}
@@ -40,9 +40,13 @@ import java.io.IOException;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.Future;
 
 import jenkins.ClassLoaderReflectionToolkit;
@@ -54,10 +58,13 @@ import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 import org.apache.commons.io.FileUtils;
 import org.apache.tools.ant.filters.StringInputStream;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeFalse;
@@ -223,6 +230,32 @@ public class PluginManagerTest {
         assertNotNull(r.jenkins.getDescriptorByType(c));
     }
 
+    @WithPlugin("htmlpublisher.jpi")
+    @Test public void uberClassLoaderOnlyAsksPluginsWithThePackage() throws Exception {
+        PluginWrapper htmlpublisher = r.jenkins.getPluginManager().getPlugin("htmlpublisher");
+        assertNotNull(htmlpublisher);
+        Set<String> packages = PluginPackages.of(htmlpublisher.classLoader);
+        assertNotNull(packages);
+        assertTrue(packages.contains("htmlpublisher"));
+        assertFalse(packages.contains("hudson.model"));
+
+        ClassLoader uber = r.jenkins.getPluginManager().uberClassLoader;
+        assertEquals(htmlpublisher.classLoader, uber.loadClass("htmlpublisher.HtmlPublisher").getClassLoader());
+        assertThrows(ClassNotFoundException.class, () -> uber.loadClass("htmlpublisher.NoSuchClass"));
+        assertThrows(ClassNotFoundException.class, () -> uber.loadClass("no.such.pkg.HtmlPublisher"));
+    }
+
+    @WithPlugin({"htmlpublisher.jpi", "tasks.jpi"})
+    @Test public void startupTimings() throws Exception {
+        List<String> names = new ArrayList<>();
+        for (PluginManager.StartupTiming t : r.jenkins.getPluginManager().getStartupTimings()) {
+            names.add(t.getShortName());
+            assertTrue(t.getTotal() >= t.getStart());
+        }
+        assertTrue(names.containsAll(Arrays.asList("htmlpublisher", "tasks")));
+        r.createWebClient().goTo("pluginManager/advanced");
+    }
+
     @Test public void prevalidateConfig() throws Exception {
         assumeFalse("TODO: Implement this test on Windows", Functions.isWindows());
         PersistedList<UpdateSite> sites = r.jenkins.getUpdateCenter().getSites();
@@ -471,6 +504,30 @@ public class PluginManagerTest {
         assertEquals("should not have tried to delete & unpack", lastMod, timestamp.lastModified());
     }
 
+    @WithPlugin("tasks.jpi")
+    @Test public void notExplodedAgainWhenContentIsTheSame() throws Exception {
+        PluginManager pm = r.jenkins.getPluginManager();
+        assertEquals(PluginManager.StartupTiming.Unpacking.EXPLODED, pm.getStartupTimings().stream().filter(t -> t.getShortName().equals("tasks")).findFirst().get().getUnpacking());
+        File jpi = new File(r.jenkins.getRootDir(), "plugins/tasks.jpi");
+        File timestamp = new File(r.jenkins.getRootDir(), "plugins/tasks/.timestamp2");
+        assertThat(FileUtils.readFileToString(timestamp, StandardCharsets.US_ASCII), startsWith("sha256:"));
+        File sentinel = new File(r.jenkins.getRootDir(), "plugins/tasks/sentinel");
+        FileUtils.touch(sentinel);
+
+        assertTrue(jpi.setLastModified(jpi.lastModified() + 10000));
+        pm.getPluginStrategy().createPluginWrapper(jpi);
+        assertTrue("should not have deleted & unpacked", sentinel.exists());
+        assertEquals(jpi.lastModified(), timestamp.lastModified());
+
+        // the marker written by older versions, without a digest
+        FileUtils.write(timestamp, "", StandardCharsets.US_ASCII);
+        assertTrue(jpi.setLastModified(jpi.lastModified() + 10000));
+        pm.getPluginStrategy().createPluginWrapper(jpi);
+        assertFalse("should have deleted & unpacked", sentinel.exists());
+        assertTrue(new File(r.jenkins.getRootDir(), "plugins/tasks/META-INF/MANIFEST.MF").isFile());
+        assertThat(FileUtils.readFileToString(timestamp, StandardCharsets.US_ASCII), startsWith("sha256:"));
+    }
+
     @WithPlugin("tasks.jpi")
     @Test public void pluginListJSONApi() throws IOException {
         JSONObject response = r.getJSON("pluginManager/plugins").getJSONObject();
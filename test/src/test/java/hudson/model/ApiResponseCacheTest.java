@@ -0,0 +1,151 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import jenkins.model.Jenkins;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+public class ApiResponseCacheTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Before
+    public void enable() {
+        ApiResponseCache.ENABLED = true;
+        ApiResponseCache.clear();
+    }
+
+    @After
+    public void disable() {
+        ApiResponseCache.ENABLED = false;
+    }
+
+    @Test
+    public void notModified() throws Exception {
+        j.createFreeStyleProject("a");
+        JenkinsRule.WebClient wc = j.createWebClient();
+
+        WebResponse first = get(wc, "api/json?tree=jobs[name]", null);
+        assertThat(first.getStatusCode(), is(HttpURLConnection.HTTP_OK));
+        assertThat(first.getContentAsString(), containsString("\"a\""));
+        String etag = first.getResponseHeaderValue("ETag");
+        assertThat(etag, notNullValue());
+
+        WebResponse second = get(wc, "api/json?tree=jobs[name]", etag);
+        assertThat(second.getStatusCode(), is(HttpURLConnection.HTTP_NOT_MODIFIED));
+
+        // other parameters, other response
+        WebResponse xml = get(wc, "api/xml?tree=jobs[name]", etag);
+        assertThat(xml.getStatusCode(), is(HttpURLConnection.HTTP_OK));
+        assertThat(xml.getContentAsString(), containsString("<name>a</name>"));
+    }
+
+    @Test
+    public void invalidatedByItemChanges() throws Exception {
+        j.createFreeStyleProject("a");
+        JenkinsRule.WebClient wc = j.createWebClient();
+
+        WebResponse first = get(wc, "api/json?tree=jobs[name]", null);
+        String etag = first.getResponseHeaderValue("ETag");
+
+        j.createFreeStyleProject("b");
+        WebResponse second = get(wc, "api/json?tree=jobs[name]", etag);
+        assertThat(second.getStatusCode(), is(HttpURLConnection.HTTP_OK));
+        assertThat(second.getContentAsString(), containsString("\"b\""));
+        assertThat(second.getResponseHeaderValue("ETag"), not(etag));
+    }
+
+    @Test
+    public void invalidatedByBuilds() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("a");
+        JenkinsRule.WebClient wc = j.createWebClient();
+
+        assertThat(get(wc, "api/json?tree=jobs[lastBuild[number]]", null).getContentAsString(), containsString("\"lastBuild\":null"));
+        j.buildAndAssertSuccess(p);
+        assertThat(get(wc, "api/json?tree=jobs[lastBuild[number]]", null).getContentAsString(), containsString("\"number\":1"));
+    }
+
+    @Test
+    public void separatedByUser() throws Exception {
+        j.jenkins.setSecurityRealm(j.createDummySecurityRealm());
+        j.createFreeStyleProject("secret");
+        j.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy()
+                .grant(Jenkins.READ).everywhere().toEveryone()
+                .grant(Item.READ).everywhere().to("alice"));
+
+        assertThat(get(j.createWebClient().login("alice"), "api/json?tree=jobs[name]", null).getContentAsString(), containsString("secret"));
+        assertThat(get(j.createWebClient().login("bob"), "api/json?tree=jobs[name]", null).getContentAsString(), not(containsString("secret")));
+    }
+
+    @Test
+    public void separatedByLocale() throws Exception {
+        JenkinsRule.WebClient wc = j.createWebClient();
+        wc.addRequestHeader("Accept-Language", "en");
+        get(wc, "api/json?tree=description", null);
+        assertThat(ApiResponseCache.size(), is(1));
+
+        wc.addRequestHeader("Accept-Language", "fr");
+        get(wc, "api/json?tree=description", null);
+        assertThat(ApiResponseCache.size(), is(2));
+    }
+
+    @Test
+    public void boundedByBytes() throws Exception {
+        long max = ApiResponseCache.MAX_BYTES;
+        ApiResponseCache.MAX_BYTES = 1;
+        try {
+            JenkinsRule.WebClient wc = j.createWebClient();
+            assertThat(get(wc, "api/json?tree=jobs[name]", null).getStatusCode(), is(HttpURLConnection.HTTP_OK));
+            assertThat(ApiResponseCache.size(), is(0));
+        } finally {
+            ApiResponseCache.MAX_BYTES = max;
+        }
+    }
+
+    private WebResponse get(JenkinsRule.WebClient wc, String path, String etag) throws Exception {
+        WebRequest req = new WebRequest(new URL(j.getURL(), path), HttpMethod.GET);
+        if (etag != null) {
+            req.setAdditionalHeader("If-None-Match", etag);
+        }
+        return wc.withThrowExceptionOnFailingStatusCode(false).getPage(req).getWebResponse();
+    }
+}
@@ -26,6 +26,7 @@ package hudson.model;
 import com.gargoylesoftware.htmlunit.Page;
 import com.gargoylesoftware.htmlunit.WebResponse;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
+import jenkins.security.SecureRequester;
 import net.sf.json.JSONObject;
 import org.junit.Ignore;
 import org.junit.Rule;
@@ -33,6 +34,7 @@ import org.junit.Test;
 import org.jvnet.hudson.test.Issue;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.TestExtension;
+import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.export.ExportedBean;
 import org.xml.sax.SAXException;
 
@@ -43,6 +45,7 @@ import java.net.HttpURLConnection;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertEquals;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -116,6 +119,39 @@ public class ApiTest {
         assertEquals("<root><name>test0</name><name>test1</name></root>", page.getWebResponse().getContentAsString());
     }
 
+    @Test
+    public void simpleExcludesPrunedWhileExporting() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("p");
+        j.buildAndAssertSuccess(p);
+        JenkinsRule.WebClient wc = j.createWebClient();
+
+        String s = wc.goTo("api/xml?depth=2&exclude=/hudson/job", "application/xml").getWebResponse().getContentAsString();
+        assertThat(s, not(containsString("<job")));
+        assertThat(s, containsString("<view"));
+
+        s = wc.goTo(p.getUrl() + "api/xml?exclude=//action&exclude=/freeStyleProject/build/url", "application/xml").getWebResponse().getContentAsString();
+        assertThat(s, not(containsString("<action")));
+        assertThat(s, containsString("<build _class=\"hudson.model.FreeStyleBuild\"><number>1</number></build>"));
+        assertThat(s, containsString("<url>" + j.getURL() + "job/p/</url>"));
+    }
+
+    @Test
+    public void simpleXPathPrunedWhileExporting() throws Exception {
+        j.createFreeStyleProject();
+        j.createFreeStyleProject();
+        JenkinsRule.WebClient wc = j.createWebClient();
+        assertEquals("<root><name>test0</name><name>test1</name></root>",
+                wc.goTo("api/xml?depth=3&wrapper=root&xpath=/hudson/job/name", "application/xml").getWebResponse().getContentAsString());
+        assertEquals("<root><name>test0</name><name>test1</name></root>",
+                wc.goTo("api/xml?depth=3&wrapper=root&xpath=/*/*/name&exclude=/hudson/view", "application/xml").getWebResponse().getContentAsString());
+        // the root does not match, so nothing is selected
+        assertEquals("<root/>",
+                wc.goTo("api/xml?wrapper=root&xpath=/freeStyleProject/name", "application/xml").getWebResponse().getContentAsString());
+        // not a simple path; evaluated on the whole document as before
+        assertEquals("<name>test1</name>",
+                wc.goTo("api/xml?xpath=/hudson/job[2]/name", "application/xml").getWebResponse().getContentAsString());
+    }
+
     @Test
     public void unwrappedZeroItems() throws Exception {
         j.createWebClient().assertFails("api/xml?xpath=/hudson/nonexistent", HttpURLConnection.HTTP_NOT_FOUND);
@@ -191,6 +227,37 @@ public class ApiTest {
         ensurePythonIsNotExposedToIFrame("custom/");
     }
 
+    @Test
+    public void streamedJson() throws Exception {
+        int threshold = Api.FLUSH_THRESHOLD;
+        Api.FLUSH_THRESHOLD = 16;
+        try {
+            for (int i = 0; i < 20; i++) {
+                j.createFreeStyleProject();
+            }
+            // the web client asks for gzip
+            JenkinsRule.WebClient wc = j.createWebClient();
+            String streamed = wc.goTo("api/json?depth=1", "application/json").getWebResponse().getContentAsString();
+            Api.STREAMING = false;
+            String buffered;
+            try {
+                buffered = wc.goTo("api/json?depth=1", "application/json").getWebResponse().getContentAsString();
+            } finally {
+                Api.STREAMING = true;
+            }
+            assertEquals(JSONObject.fromObject(buffered), JSONObject.fromObject(streamed));
+            assertEquals(20, JSONObject.fromObject(streamed).getJSONArray("jobs").size());
+
+            FreeStyleProject p = j.jenkins.getItemByFullName("test0", FreeStyleProject.class);
+            String s = wc.goTo(p.getUrl() + "api/json?tree=name&jsonp=wrap", "application/javascript").getWebResponse().getContentAsString();
+            assertTrue(s.startsWith("wrap({"));
+            assertTrue(s.endsWith("})"));
+            assertThat(s, containsString("\"name\":\"test0\""));
+        } finally {
+            Api.FLUSH_THRESHOLD = threshold;
+        }
+    }
+
     /**
      * Test the wrapper parameter for the api/xml urls to avoid XSS.
      * @throws Exception See {@link #checkWrapperParam(String, Integer, String)}
@@ -272,6 +339,14 @@ public class ApiTest {
         assertThat(response.getResponseHeaderValue("X-Frame-Options"), equalTo("deny"));
     }
 
+    @TestExtension("streamedJson")
+    public static class AnyRequester implements SecureRequester {
+        @Override
+        public boolean permit(StaplerRequest req, Object bean) {
+            return true;
+        }
+    }
+
     @TestExtension("custom_notExposedToIFrame")
     public static class CustomObject implements RootAction {
         @Override
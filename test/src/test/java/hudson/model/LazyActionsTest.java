@@ -0,0 +1,165 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import hudson.XmlFile;
+import hudson.diagnosis.OldDataMonitor;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class LazyActionsTest {
+
+    @Rule
+    public JenkinsRule r = new JenkinsRule();
+
+    @Before
+    public void enable() {
+        LazyActions.ENABLED = true;
+    }
+
+    @After
+    public void disable() {
+        LazyActions.ENABLED = false;
+    }
+
+    @Test
+    public void typedLookupOnlyLoadsMatchingActions() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject();
+        FreeStyleBuild b = r.buildAndAssertSuccess(p);
+        b.addAction(new Marker("one"));
+        b.addAction(new Other());
+        b.save();
+        p._getRuns().purgeCache();
+
+        b = p.getBuildByNumber(1);
+        assertThat(b.getLoadedActions(), not(hasItem(instanceOf(Marker.class))));
+        assertEquals("one", b.getAction(Marker.class).value);
+        assertThat(b.getLoadedActions(), hasItem(instanceOf(Marker.class)));
+        assertThat(b.getLoadedActions(), not(hasItem(instanceOf(Other.class))));
+        assertThat(b.getAllActions(), hasItem(instanceOf(Other.class)));
+    }
+
+    @Test
+    public void unloadedActionsAreSavedAsTheyWereRead() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject();
+        FreeStyleBuild b = r.buildAndAssertSuccess(p);
+        b.addAction(new Marker("one"));
+        b.save();
+        XmlFile f = new XmlFile(new File(b.getRootDir(), "build.xml"));
+        String before = f.asString();
+        p._getRuns().purgeCache();
+
+        b = p.getBuildByNumber(1);
+        b.save();
+        assertEquals(before, f.asString());
+        assertEquals("one", b.getAction(Marker.class).value);
+    }
+
+    @Test
+    public void onLoadCalledWhenActionIsLoaded() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject();
+        FreeStyleBuild b = r.buildAndAssertSuccess(p);
+        b.addAction(new Attached());
+        b.save();
+        p._getRuns().purgeCache();
+
+        b = p.getBuildByNumber(1);
+        Attached a = b.getAction(Attached.class);
+        assertNotNull(a);
+        assertSame(b, a.run);
+    }
+
+    @Test
+    public void disabled() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject();
+        FreeStyleBuild b = r.buildAndAssertSuccess(p);
+        b.addAction(new Marker("one"));
+        b.save();
+        p._getRuns().purgeCache();
+
+        LazyActions.ENABLED = false;
+        b = p.getBuildByNumber(1);
+        assertThat(b.getLoadedActions(), hasItem(instanceOf(Marker.class)));
+    }
+
+    @Test
+    public void unreadableActionsAreReportedAndKept() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject();
+        FreeStyleBuild b = r.buildAndAssertSuccess(p);
+        b.addAction(new Marker("one"));
+        b.save();
+        File xml = new File(b.getRootDir(), "build.xml");
+        String before = new String(Files.readAllBytes(xml.toPath()), StandardCharsets.UTF_8);
+        Files.write(xml.toPath(), before.replace("<actions>", "<actions><com.example.Missing/>").getBytes(StandardCharsets.UTF_8));
+        p._getRuns().purgeCache();
+
+        b = p.getBuildByNumber(1);
+        assertEquals("one", b.getAction(Marker.class).value);
+        assertThat(b.getActions(), hasItem(instanceOf(Marker.class)));
+        assertTrue(OldDataMonitor.get(r.jenkins).getData().containsKey(b));
+        b.save();
+        assertThat(new XmlFile(xml).asString(), containsString("<com.example.Missing/>"));
+    }
+
+    public static class Marker extends InvisibleAction {
+        final String value;
+
+        Marker(String value) {
+            this.value = value;
+        }
+    }
+
+    public static class Other extends InvisibleAction {
+    }
+
+    public static class Attached extends InvisibleAction implements RunAction2 {
+        transient Run<?, ?> run;
+
+        @Override
+        public void onAttached(Run<?, ?> r) {
+            run = r;
+        }
+
+        @Override
+        public void onLoad(Run<?, ?> r) {
+            run = r;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import hudson.model.Queue.BuildableItem;
+import hudson.model.Queue.JobOffer;
+import hudson.model.Queue.Task;
+import hudson.model.Queue.WaitingItem;
+import hudson.model.queue.MappingWorksheet;
+import hudson.model.queue.MappingWorksheet.ExecutorChunk;
+import hudson.model.queue.MappingWorksheet.Mapping;
+import hudson.security.ACL;
+import hudson.util.ConsistentHash;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MemoryAssert;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class LoadBalancerTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    /**
+     * The cached hash rings of {@link LoadBalancer#CONSISTENT_HASH} should pick the same executors
+     * as a ring built from scratch, even as nodes come and go between calls.
+     */
+    @Test
+    public void consistentHashMatchesFreshRing() throws Exception {
+        Random r = new Random(0);
+        List<List<JobOffer>> nodes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            nodes.add(offersOf(createMockComputer("node" + i, 1 + r.nextInt(4))));
+        }
+
+        for (int round = 0; round < 100; round++) {
+            List<JobOffer> offers = new ArrayList<>();
+            for (List<JobOffer> n : nodes) {
+                if (r.nextInt(10) != 0) {   // some nodes go offline or busy now and then
+                    offers.addAll(n.subList(0, 1 + r.nextInt(n.size())));
+                }
+            }
+            Task t = task("job" + round);
+            MappingWorksheet ws = worksheet(t, offers);
+
+            Mapping m = LoadBalancer.CONSISTENT_HASH.map(t, ws);
+            assertThat(m, notNullValue());
+            assertThat(m.assigned(0), is(firstOfFreshRing(ws, "job" + round)));
+        }
+    }
+
+    @Test
+    public void cachedRingsDoNotHoldOnToWorksheets() throws Exception {
+        List<JobOffer> offers = offersOf(createMockComputer("node", 2));
+        Task t = task("job");
+        MappingWorksheet ws = worksheet(t, offers);
+        assertThat(LoadBalancer.CONSISTENT_HASH.map(t, ws), notNullValue());
+        WeakReference<MappingWorksheet> ref = new WeakReference<>(ws);
+        ws = null;
+        MemoryAssert.assertGC(ref, false);
+    }
+
+    private static ExecutorChunk firstOfFreshRing(MappingWorksheet ws, String key) {
+        ConsistentHash<ExecutorChunk> hash = new ConsistentHash<>(ExecutorChunk::getName);
+        for (ExecutorChunk ec : ws.works(0).applicableExecutorChunks()) {
+            hash.add(ec, ec.size() * 100);
+        }
+        return hash.list(key).iterator().next();
+    }
+
+    private MappingWorksheet worksheet(Task t, List<JobOffer> offers) {
+        return new MappingWorksheet(new BuildableItem(new WaitingItem(new GregorianCalendar(), t, new ArrayList<>())),
+                offers, Collections.emptyList());
+    }
+
+    private Task task(String affinityKey) {
+        Task t = mock(Task.class);
+        when(t.getSubTasks()).thenReturn((Collection) Collections.singletonList(t));
+        when(t.getAffinityKey()).thenReturn(affinityKey);
+        return t;
+    }
+
+    private List<JobOffer> offersOf(Computer c) {
+        List<JobOffer> r = new ArrayList<>();
+        for (Executor e : c.getExecutors()) {
+            JobOffer o = mock(JobOffer.class);
+            when(o.getExecutor()).thenReturn(e);
+            r.add(o);
+        }
+        return r;
+    }
+
+    private Computer createMockComputer(String name, int nExecutors) throws Exception {
+        Node n = mock(Node.class);
+        when(n.getNodeName()).thenReturn(name);
+        when(n.getACL()).thenReturn(ACL.lambda2((a, p) -> true));
+        Computer c = mock(Computer.class);
+        when(c.getNode()).thenReturn(n);
+
+        List<Executor> executors = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < nExecutors; i++) {
+            Executor e = mock(Executor.class);
+            when(e.isIdle()).thenReturn(true);
+            when(e.getOwner()).thenReturn(c);
+            executors.add(e);
+        }
+
+        Field f = Computer.class.getDeclaredField("executors");
+        f.setAccessible(true);
+        f.set(c, executors);
+
+        when(c.getExecutors()).thenReturn(executors);
+
+        return c;
+    }
+}
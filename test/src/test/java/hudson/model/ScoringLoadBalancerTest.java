@@ -0,0 +1,215 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import hudson.model.Queue.BuildableItem;
+import hudson.model.Queue.JobOffer;
+import hudson.model.Queue.Task;
+import hudson.model.Queue.WaitingItem;
+import hudson.model.queue.MappingWorksheet;
+import hudson.model.queue.MappingWorksheet.Mapping;
+import hudson.security.ACL;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class ScoringLoadBalancerTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void prefersIdleNodes() throws Exception {
+        Computer busy = createMockComputer("busy", 4, 3, TimeUnit.MINUTES.toMillis(30));
+        Computer idle = createMockComputer("idle", 4, 0, 0);
+        Computer half = createMockComputer("half", 4, 2, TimeUnit.MINUTES.toMillis(1));
+
+        List<JobOffer> offers = new ArrayList<>();
+        offers.addAll(offersOf(busy));
+        offers.addAll(offersOf(idle));
+        offers.addAll(offersOf(half));
+
+        Task t = task();
+        Mapping m = new ScoringLoadBalancer().map(t, worksheet(t, offers));
+        assertThat(m, notNullValue());
+        assertThat(m.assigned(0).computer, is(idle));
+    }
+
+    @Test
+    public void prefersLastBuiltOnWhenEquallyLoaded() throws Exception {
+        Computer a = createMockComputer("a", 2, 1, TimeUnit.MINUTES.toMillis(5));
+        Computer b = createMockComputer("b", 2, 0, 0);
+
+        List<JobOffer> offers = new ArrayList<>();
+        offers.addAll(offersOf(a));
+        offers.addAll(offersOf(b));
+
+        Task t = task();
+        when(t.getLastBuiltOn()).thenReturn(a.getNode());
+        Mapping m = new ScoringLoadBalancer().map(t, worksheet(t, offers));
+        assertThat(m.assigned(0).computer, is(a));
+    }
+
+    /**
+     * 1000 executors spread over 250 nodes with random load.
+     */
+    @Test
+    public void picksIdleNodeAmongMany() throws Exception {
+        Random r = new Random(0);
+        List<JobOffer> offers = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            int busy = r.nextInt(4);
+            Computer c = createMockComputer("node" + i, 4, busy, busy * TimeUnit.MINUTES.toMillis(r.nextInt(60)));
+            offers.addAll(offersOf(c));
+        }
+        assertThat(offers.size() > 250, is(true));
+
+        ScoringLoadBalancer scoring = new ScoringLoadBalancer();
+        for (int i = 0; i < 200; i++) {
+            Task t = task();
+            when(t.getAffinityKey()).thenReturn("job" + i);
+            Mapping m = scoring.map(t, worksheet(t, offers));
+            // always one of the fully idle nodes
+            assertThat(m.assigned(0).computer.countIdle(), is(4));
+        }
+    }
+
+    @Test
+    public void rescoresChangedNodes() throws Exception {
+        Computer a = createMockComputer("a", 2, 0, 0);
+        Computer b = createMockComputer("b", 2, 1, TimeUnit.MINUTES.toMillis(5));
+
+        List<JobOffer> offers = new ArrayList<>();
+        offers.addAll(offersOf(a));
+        offers.addAll(offersOf(b));
+
+        ScoringLoadBalancer scoring = new ScoringLoadBalancer();
+        Task t = task();
+        assertThat(scoring.map(t, worksheet(t, offers)).assigned(0).computer, is(a));
+
+        // both executors of 'a' are now busy with long builds, but it still has an offer
+        for (Executor e : a.getExecutors()) {
+            when(e.isIdle()).thenReturn(false);
+            when(e.getEstimatedRemainingTimeMillis()).thenReturn(TimeUnit.HOURS.toMillis(1));
+        }
+        ScoringLoadBalancer.changed(a);
+        assertThat(scoring.map(t, worksheet(t, offers)).assigned(0).computer, is(b));
+    }
+
+    /**
+     * Tasks mapped one after the other, as in one queue maintenance, before any listener heard of them.
+     */
+    @Test
+    public void spreadsTasksAssignedTogether() throws Exception {
+        Computer a = createMockComputer("a", 2, 0, 0);
+        Computer b = createMockComputer("b", 2, 0, 0);
+        ScoringLoadBalancer scoring = new ScoringLoadBalancer();
+
+        List<Computer> assigned = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            List<JobOffer> offers = new ArrayList<>();
+            offers.addAll(offersOf(a));
+            offers.addAll(offersOf(b));
+            Task t = task();
+            when(t.getAffinityKey()).thenReturn("job");
+            Computer c = scoring.map(t, worksheet(t, offers)).assigned(0).computer;
+            assigned.add(c);
+            // the executor taking the task, whatever it is to run
+            for (Executor e : c.getExecutors()) {
+                if (e.isIdle()) {
+                    when(e.isIdle()).thenReturn(false);
+                    break;
+                }
+            }
+        }
+        assertThat(assigned.contains(a) && assigned.contains(b), is(true));
+    }
+
+    private MappingWorksheet worksheet(Task t, List<JobOffer> offers) {
+        return new MappingWorksheet(new BuildableItem(new WaitingItem(new GregorianCalendar(), t, new ArrayList<>())),
+                offers, Collections.emptyList());
+    }
+
+    private Task task() {
+        Task t = mock(Task.class);
+        when(t.getSubTasks()).thenReturn((Collection) Collections.singletonList(t));
+        return t;
+    }
+
+    private List<JobOffer> offersOf(Computer c) {
+        List<JobOffer> r = new ArrayList<>();
+        for (Executor e : c.getExecutors()) {
+            if (e.isIdle()) {
+                JobOffer o = mock(JobOffer.class);
+                when(o.getExecutor()).thenReturn(e);
+                r.add(o);
+            }
+        }
+        return r;
+    }
+
+    private Computer createMockComputer(String name, int nExecutors, int nBusy, long remaining) throws Exception {
+        Node n = mock(Node.class);
+        when(n.getNodeName()).thenReturn(name);
+        when(n.getACL()).thenReturn(ACL.lambda2((a, p) -> true));
+        Computer c = mock(Computer.class);
+        when(c.getNode()).thenReturn(n);
+        when(c.getName()).thenReturn(name);
+
+        List<Executor> executors = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < nExecutors; i++) {
+            Executor e = mock(Executor.class);
+            boolean busy = i < nBusy;
+            when(e.isIdle()).thenReturn(!busy);
+            when(e.getEstimatedRemainingTimeMillis()).thenReturn(busy ? remaining / nBusy : -1L);
+            when(e.getOwner()).thenReturn(c);
+            executors.add(e);
+        }
+
+        Field f = Computer.class.getDeclaredField("executors");
+        f.setAccessible(true);
+        f.set(c, executors);
+
+        when(c.getExecutors()).thenReturn(executors);
+        when(c.countIdle()).thenReturn(nExecutors - nBusy);
+
+        return c;
+    }
+}
@@ -30,6 +30,8 @@ import static org.junit.Assert.assertNotNull;
 
 import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+import hudson.model.TopLevelItem;
 import hudson.model.ListView;
 
 import java.io.IOException;
@@ -484,4 +486,65 @@ public class SearchTest {
         URL resultUrl = searchResult.getUrl();
         assertEquals(j.getInstance().getRootUrl() + freeStyleProject.getUrl(), resultUrl.toString());
     }
+
+    @Test
+    public void suggestionsFromItemIndex() throws Exception {
+        FreeStyleProject core = j.createFreeStyleProject("jenkins-core-pr");
+        FreeStyleProject plugin = j.createFreeStyleProject("plugin-build");
+        plugin.setDisplayName("Plugin Release");
+        MockFolder folder = j.createFolder("team");
+        FreeStyleProject nested = folder.createProject(FreeStyleProject.class, "deploy");
+
+        ItemSearchIndex index = ItemSearchIndex.get();
+        assertEquals(Collections.singletonList(core), index.prefix("Jenkins"));
+        // words of the name, display name and full name
+        assertEquals(Collections.singletonList(core), index.prefix("core"));
+        assertEquals(Collections.singletonList(plugin), index.prefix("release"));
+        assertEquals(Collections.singletonList(nested), index.prefix("team/dep"));
+        assertEquals(Collections.singletonList(plugin), index.substring("gin-bu"));
+        assertEquals(Collections.singletonList(nested), index.fuzzy("deplyo", 2));
+        assertTrue(index.suggest("nothing-like-it").isEmpty());
+
+        // typos are forgiven
+        List<SearchItem> result = suggest(j.jenkins.getSearchIndex(), "deplox");
+        assertTrue(result.contains(nested));
+
+        // renames are picked up
+        core.renameTo("jenkins-core-master");
+        assertEquals(Collections.singletonList(core), index.substring("core-master"));
+        assertTrue(index.substring("core-pr").isEmpty());
+    }
+
+    @Test
+    public void suggestionsPickUpDisplayNamesSetFromCode() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("pr-1234");
+        ItemSearchIndex index = ItemSearchIndex.get();
+        assertEquals(Collections.singletonList(p), index.prefix("pr"));
+        assertTrue(index.prefix("Fix").isEmpty());
+
+        // as branch sources do, without any ItemListener event
+        p.setDisplayName("Fix the build");
+        assertEquals(Collections.singletonList(p), index.prefix("Fix"));
+    }
+
+    @Test
+    public void suggestionsFromItemIndexAreFilteredByPermission() throws Exception {
+        j.jenkins.setSecurityRealm(j.createDummySecurityRealm());
+        MockFolder secret = j.createFolder("secret");
+        FreeStyleProject hidden = secret.createProject(FreeStyleProject.class, "job-hidden");
+        FreeStyleProject shown = j.createFreeStyleProject("job-shown");
+        j.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy()
+                .grant(Jenkins.READ).everywhere().toEveryone()
+                .grant(Item.READ).onItems(shown, hidden).to("alice"));
+
+        try (ACLContext ctx = ACL.as(User.getById("alice", true))) {
+            List<SearchItem> result = suggest(j.jenkins.getSearchIndex(), "job");
+            assertTrue(result.contains(shown));
+            // not visible without access to the folder
+            assertFalse(result.contains(hidden));
+            assertFalse(ItemSearchIndex.isReadable(hidden));
+        }
+        // the index itself is not filtered
+        assertEquals(2, ItemSearchIndex.get().prefix("job").size());
+    }
 }
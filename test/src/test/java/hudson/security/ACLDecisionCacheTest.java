@@ -0,0 +1,171 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Item;
+import hudson.model.UnprotectedRootAction;
+import hudson.model.User;
+import jenkins.model.Jenkins;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
+import org.kohsuke.stapler.StaplerResponse;
+import org.springframework.security.core.Authentication;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ACLDecisionCacheTest {
+
+    @Rule
+    public JenkinsRule r = new JenkinsRule();
+
+    @After
+    public void resetTtl() {
+        ACLDecisionCache.TTL = 0;
+    }
+
+    @Test
+    public void rememberedWithinRequest() throws Exception {
+        r.jenkins.setSecurityRealm(r.createDummySecurityRealm());
+        CountingStrategy strategy = new CountingStrategy(true);
+        r.jenkins.setAuthorizationStrategy(strategy);
+
+        JenkinsRule.WebClient wc = r.createWebClient().login("alice");
+        strategy.checks.set(0);
+        assertEquals("true", wc.goTo("checkTenTimes", "text/plain").getWebResponse().getContentAsString());
+        assertEquals(1, strategy.checks.get());
+        // not across requests by default
+        wc.goTo("checkTenTimes", "text/plain");
+        assertEquals(2, strategy.checks.get());
+    }
+
+    @Test
+    public void rememberedAcrossRequestsUntilStrategyChanges() throws Exception {
+        ACLDecisionCache.TTL = 60 * 1000L;
+        r.jenkins.setSecurityRealm(r.createDummySecurityRealm());
+        CountingStrategy strategy = new CountingStrategy(true);
+        r.jenkins.setAuthorizationStrategy(strategy);
+
+        Authentication alice = User.getById("alice", true).impersonate2();
+        try (ACLContext ctx = ACL.as2(alice)) {
+            assertTrue(r.jenkins.hasPermission(Item.CONFIGURE));
+            // only kept once asked for again
+            assertTrue(r.jenkins.hasPermission(Item.CONFIGURE));
+            assertTrue(r.jenkins.hasPermission(Item.CONFIGURE));
+            assertEquals(2, strategy.checks.get());
+        }
+
+        CountingStrategy denying = new CountingStrategy(false);
+        r.jenkins.setAuthorizationStrategy(denying);
+        try (ACLContext ctx = ACL.as2(alice)) {
+            assertFalse(r.jenkins.hasPermission(Item.CONFIGURE));
+            assertEquals(1, denying.checks.get());
+        }
+    }
+
+    @Test
+    public void forgottenWhenConfigurationIsSaved() throws Exception {
+        ACLDecisionCache.TTL = 60 * 1000L;
+        r.jenkins.setSecurityRealm(r.createDummySecurityRealm());
+        CountingStrategy strategy = new CountingStrategy(true);
+        r.jenkins.setAuthorizationStrategy(strategy);
+
+        Authentication alice = User.getById("alice", true).impersonate2();
+        try (ACLContext ctx = ACL.as2(alice)) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(r.jenkins.hasPermission(Item.CONFIGURE));
+            }
+            assertEquals(2, strategy.checks.get());
+            r.jenkins.save();
+            assertTrue(r.jenkins.hasPermission(Item.CONFIGURE));
+            assertEquals(3, strategy.checks.get());
+        }
+    }
+
+    /**
+     * Grants or denies everything with the same {@link ACL}, counting how many times it is asked for {@link Item#CONFIGURE}.
+     */
+    private static class CountingStrategy extends AuthorizationStrategy {
+        final AtomicInteger checks = new AtomicInteger();
+        private final ACL acl;
+
+        CountingStrategy(boolean grant) {
+            acl = ACL.lambda2((a, permission) -> {
+                if (permission == Item.CONFIGURE) {
+                    checks.incrementAndGet();
+                }
+                return grant;
+            });
+        }
+
+        @NonNull
+        @Override
+        public ACL getRootACL() {
+            return acl;
+        }
+
+        @NonNull
+        @Override
+        public Collection<String> getGroups() {
+            return Collections.emptySet();
+        }
+    }
+
+    @TestExtension("rememberedWithinRequest")
+    public static class CheckTenTimes implements UnprotectedRootAction {
+        @Override
+        public String getIconFileName() {
+            return null;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return null;
+        }
+
+        @Override
+        public String getUrlName() {
+            return "checkTenTimes";
+        }
+
+        public void doIndex(StaplerResponse rsp) throws IOException {
+            boolean b = true;
+            for (int i = 0; i < 10; i++) {
+                b &= Jenkins.get().hasPermission(Item.CONFIGURE);
+            }
+            rsp.setContentType("text/plain");
+            rsp.getWriter().print(b);
+        }
+    }
+}
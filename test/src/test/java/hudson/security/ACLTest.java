@@ -31,8 +31,12 @@ import hudson.model.FreeStyleProject;
 import hudson.model.Item;
 import hudson.model.UnprotectedRootAction;
 import hudson.model.User;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import jenkins.model.Jenkins;
 import org.junit.Assert;
 import org.junit.Test;
@@ -43,6 +47,7 @@ import org.junit.Rule;
 import org.jvnet.hudson.test.Issue;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.MockAuthorizationStrategy;
+import org.jvnet.hudson.test.MockFolder;
 import org.jvnet.hudson.test.TestExtension;
 
 import edu.umd.cs.findbugs.annotations.CheckForNull;
@@ -182,6 +187,98 @@ public class ACLTest {
         wc.goTo("either"); // expected to work
     }
 
+    @Test
+    public void filterMatchesHasPermission() throws Exception {
+        r.jenkins.setSecurityRealm(r.createDummySecurityRealm());
+        MockFolder d = r.createFolder("d");
+        FreeStyleProject visible = r.createFreeStyleProject("visible");
+        FreeStyleProject hidden = r.createFreeStyleProject("hidden");
+        FreeStyleProject nested = d.createProject(FreeStyleProject.class, "nested");
+        r.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy()
+                .grant(Jenkins.READ).everywhere().toEveryone()
+                .grant(Item.READ).onItems(visible, d, nested).to("alice"));
+
+        Authentication alice = User.getById("alice", true).impersonate2();
+        assertEquals(Arrays.asList(visible, nested), ACL.filter2(alice, Item.READ, Arrays.asList(visible, hidden, nested)));
+        assertEquals(Collections.emptyList(), ACL.filter2(alice, Item.CONFIGURE, Arrays.asList(visible, hidden, nested)));
+        try (ACLContext ctx = ACL.as2(alice)) {
+            assertEquals(Arrays.asList(d, nested, visible), r.jenkins.getAllItems());
+            assertEquals(Arrays.asList(d, visible), r.jenkins.getItems());
+        }
+    }
+
+    @Test
+    public void filterChecksEachACLOnce() throws Exception {
+        r.jenkins.setSecurityRealm(r.createDummySecurityRealm());
+        CountingStrategy strategy = new CountingStrategy();
+        r.jenkins.setAuthorizationStrategy(strategy);
+        List<FreeStyleProject> projects = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            projects.add(r.createFreeStyleProject());
+        }
+
+        Authentication alice = User.getById("alice", true).impersonate2();
+        strategy.checks.set(0);
+        assertEquals(projects, ACL.filter2(alice, Item.READ, projects));
+        assertEquals(1, strategy.checks.get());
+
+        strategy.checks.set(0);
+        try (ACLContext ctx = ACL.as2(alice)) {
+            assertEquals(10, r.jenkins.getAllItems(FreeStyleProject.class).size());
+        }
+        assertEquals(1, strategy.checks.get());
+    }
+
+    @Test
+    public void filterAsksObjectsDecidingByThemselves() throws Exception {
+        r.jenkins.setSecurityRealm(r.createDummySecurityRealm());
+        r.jenkins.setAuthorizationStrategy(new CountingStrategy());
+        FreeStyleProject p = r.createFreeStyleProject();
+        Vetoing vetoing = new Vetoing();
+
+        Authentication alice = User.getById("alice", true).impersonate2();
+        assertEquals(Collections.singletonList(p), ACL.filter2(alice, Item.READ, Arrays.asList(p, vetoing)));
+    }
+
+    /**
+     * Has an {@link ACL} granting everything, but denies everything anyway.
+     */
+    private static class Vetoing implements AccessControlled {
+        @NonNull
+        @Override
+        public ACL getACL() {
+            return ACL.lambda2((a, permission) -> true);
+        }
+
+        @Override
+        public boolean hasPermission(@NonNull Permission permission) {
+            return false;
+        }
+    }
+
+    /**
+     * Lets everyone read anything, with the same {@link ACL} for everything, and counts how many times it is asked.
+     */
+    private static class CountingStrategy extends AuthorizationStrategy {
+        final AtomicInteger checks = new AtomicInteger();
+        private final ACL acl = ACL.lambda2((a, permission) -> {
+            checks.incrementAndGet();
+            return true;
+        });
+
+        @NonNull
+        @Override
+        public ACL getRootACL() {
+            return acl;
+        }
+
+        @NonNull
+        @Override
+        public Collection<String> getGroups() {
+            return Collections.emptySet();
+        }
+    }
+
     private static class DoNotBotherMe extends AuthorizationStrategy {
 
         @NonNull
@@ -0,0 +1,88 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.management;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import com.gargoylesoftware.htmlunit.Page;
+import hudson.model.User;
+import java.util.ArrayList;
+import java.util.List;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+
+public class StartupProfileLinkTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void timeline() throws Exception {
+        JSONObject timeline = j.getJSON("startup-profile/timeline.json").getJSONObject();
+        List<String> names = new ArrayList<>();
+        for (Object task : timeline.getJSONArray("tasks")) {
+            names.add(((JSONObject) task).getString("name"));
+        }
+        assertThat(names, hasItem("Loading global config"));
+        assertThat(timeline.getJSONArray("criticalPath"), not(empty()));
+        List<String> milestones = new ArrayList<>();
+        for (Object milestone : timeline.getJSONArray("milestones")) {
+            milestones.add(((JSONObject) milestone).getString("name"));
+        }
+        assertThat(milestones, hasItem("Completed initialization"));
+
+        JSONArray events = j.getJSON("startup-profile/trace.json").getJSONObject().getJSONArray("traceEvents");
+        List<String> phases = new ArrayList<>();
+        for (Object event : events) {
+            phases.add(((JSONObject) event).getString("ph"));
+        }
+        assertThat(phases, hasItem("X"));
+        assertThat(phases, hasItem("M"));
+
+        j.createWebClient().goTo("startup-profile");
+    }
+
+    @Test
+    public void requiresSystemRead() throws Exception {
+        j.jenkins.setSecurityRealm(j.createDummySecurityRealm());
+        j.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy()
+                .grant(Jenkins.READ).everywhere().to("reader"));
+        User.getById("reader", true);
+
+        JenkinsRule.WebClient wc = j.createWebClient().withThrowExceptionOnFailingStatusCode(false).login("reader");
+        Page page = wc.goTo("startup-profile/timeline.json", null);
+        assertThat(page.getWebResponse().getStatusCode(), is(403));
+        page = wc.goTo("startup-profile/trace.json", null);
+        assertThat(page.getWebResponse().getStatusCode(), is(403));
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Run;
+import hudson.model.StreamBuildListener;
+import hudson.tasks.ArtifactArchiver;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+import jenkins.util.VirtualFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+
+public class ArtifactManifestTest {
+
+    @Rule public JenkinsRule r = new JenkinsRule();
+
+    @Test
+    public void sameListingAsArchive() throws Exception {
+        FreeStyleBuild b = buildWithArtifacts();
+        assertFalse(new File(b.getRootDir(), ArtifactManifest.FILE_NAME).exists());
+        describe(b);
+        assertTrue(new File(b.getRootDir(), ArtifactManifest.FILE_NAME).isFile());
+        String fromManifest = describe(b);
+        ArtifactManifest.ENABLED = false;
+        try {
+            assertEquals(describe(b), fromManifest);
+        } finally {
+            ArtifactManifest.ENABLED = true;
+        }
+        assertThat(fromManifest, containsString("dir/sub/c.txt"));
+    }
+
+    @Test
+    public void ignoredWhenArchiveChanged() throws Exception {
+        FreeStyleBuild b = buildWithArtifacts();
+        describe(b);
+        @SuppressWarnings("deprecation")
+        File archive = b.getArtifactsDir();
+        Files.write(new File(archive, "added.txt").toPath(), "x".getBytes(StandardCharsets.UTF_8));
+        // in case the file system only keeps timestamps to the second
+        assertTrue(archive.setLastModified(archive.lastModified() + 2000));
+        assertThat(describe(b), containsString("added.txt"));
+    }
+
+    @Test
+    public void subdirectoryListedWhenChanged() throws Exception {
+        FreeStyleBuild b = buildWithArtifacts();
+        describe(b);
+        @SuppressWarnings("deprecation")
+        File sub = new File(b.getArtifactsDir(), "dir/sub");
+        Files.write(new File(sub, "added.txt").toPath(), "x".getBytes(StandardCharsets.UTF_8));
+        assertTrue(sub.setLastModified(sub.lastModified() + 2000));
+        assertThat(describe(b), containsString("dir/sub/added.txt"));
+    }
+
+    @Test
+    public void deletedWhenArchiving() throws Exception {
+        FreeStyleBuild b = buildWithArtifacts();
+        describe(b);
+        File manifest = new File(b.getRootDir(), ArtifactManifest.FILE_NAME);
+        assertTrue(manifest.isFile());
+        FilePath ws = new FilePath(new File(r.jenkins.getRootDir(), "ws"));
+        ws.child("later.txt").write("later", "UTF-8");
+        BuildListener listener = new StreamBuildListener(System.out, StandardCharsets.UTF_8);
+        b.getArtifactManager().archive(ws, new Launcher.LocalLauncher(listener), listener, Collections.singletonMap("later.txt", "later.txt"));
+        assertFalse(manifest.exists());
+        assertThat(describe(b), containsString("later.txt"));
+        assertTrue(manifest.isFile());
+    }
+
+    @Test
+    public void missingFilesDoNotExist() throws Exception {
+        FreeStyleBuild b = buildWithArtifacts();
+        describe(b);
+        VirtualFile a = ((StandardArtifactManager) b.getArtifactManager()).listingRoot().child("a.txt");
+        assertTrue(a.exists());
+        @SuppressWarnings("deprecation")
+        File archive = b.getArtifactsDir();
+        Files.delete(new File(archive, "a.txt").toPath());
+        assertFalse(a.exists());
+    }
+
+    @Test
+    public void deletedWithArtifacts() throws Exception {
+        FreeStyleBuild b = buildWithArtifacts();
+        b.deleteArtifacts();
+        assertFalse(new File(b.getRootDir(), ArtifactManifest.FILE_NAME).exists());
+        assertEquals(0, b.getArtifacts().size());
+    }
+
+    private FreeStyleBuild buildWithArtifacts() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject();
+        p.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+                FilePath ws = build.getWorkspace();
+                ws.child("a.txt").write("a", "UTF-8");
+                ws.child("Z.txt").write("z", "UTF-8");
+                ws.child("dir/b.txt").write("bb", "UTF-8");
+                ws.child("dir/sub/c.txt").write("ccc", "UTF-8");
+                ws.child("dir/sub/d e.txt").write("dddd", "UTF-8");
+                ws.child("single/only/e.txt").write("eeeee", "UTF-8");
+                return true;
+            }
+        });
+        p.getPublishersList().add(new ArtifactArchiver("**"));
+        return r.buildAndAssertSuccess(p);
+    }
+
+    /**
+     * Everything the artifacts page shows about the artifacts of a build.
+     */
+    private static String describe(FreeStyleBuild b) {
+        StringBuilder s = new StringBuilder();
+        Run<FreeStyleProject, FreeStyleBuild>.ArtifactList artifacts = (Run<FreeStyleProject, FreeStyleBuild>.ArtifactList) b.getArtifacts();
+        for (Run<FreeStyleProject, FreeStyleBuild>.Artifact a : artifacts) {
+            s.append(a.relativePath).append(' ').append(a.getDisplayPath()).append(' ').append(a.getHref()).append(' ').append(a.getLength()).append('\n');
+        }
+        for (Map.Entry<Run<FreeStyleProject, FreeStyleBuild>.Artifact, String> e : artifacts.getTree().entrySet()) {
+            s.append(e.getKey().getTreeNodeId()).append(' ').append(e.getKey().getFileName()).append(' ').append(e.getKey().getHref()).append(" < ").append(e.getValue()).append('\n');
+        }
+        return s.toString();
+    }
+}
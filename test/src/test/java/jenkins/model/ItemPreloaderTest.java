@@ -0,0 +1,68 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import hudson.model.FreeStyleProject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.LoggerRule;
+import org.jvnet.hudson.test.MockFolder;
+
+import java.util.logging.Level;
+
+public class ItemPreloaderTest {
+
+    @Rule public JenkinsRule r = new JenkinsRule();
+
+    @Rule public LoggerRule logging = new LoggerRule().record(ItemPreloader.class, Level.FINE).capture(100);
+
+    @Test
+    public void nestedItemsReloaded() throws Exception {
+        MockFolder top = r.createFolder("top");
+        MockFolder middle = top.createProject(MockFolder.class, "middle");
+        FreeStyleProject leaf = middle.createProject(FreeStyleProject.class, "leaf");
+        leaf.setDescription("deep down");
+        top.createProject(FreeStyleProject.class, "sibling");
+        r.createFreeStyleProject("alone");
+
+        r.jenkins.reload();
+
+        FreeStyleProject reloaded = r.jenkins.getItemByFullName("top/middle/leaf", FreeStyleProject.class);
+        assertNotNull(reloaded);
+        assertEquals("deep down", reloaded.getDescription());
+        assertEquals(r.jenkins.getItemByFullName("top/middle"), reloaded.getParent());
+        assertNotNull(r.jenkins.getItemByFullName("top/sibling"));
+        assertNotNull(r.jenkins.getItemByFullName("alone"));
+
+        assertThat(logging.getMessages(), hasItem(containsString("top/jobs/middle/jobs/leaf: read in ")));
+        assertThat(logging.getMessages().toString(), containsString("Loaded 5 items in "));
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.model.lazy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import hudson.Util;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.ParametersAction;
+import hudson.model.ParametersDefinitionProperty;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.StringParameterDefinition;
+import hudson.model.StringParameterValue;
+import hudson.util.RunList;
+import jenkins.widgets.HistoryPageEntry;
+import jenkins.widgets.HistoryPageFilter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FailureBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class BuildTimelineTest {
+
+    @Rule public JenkinsRule r = new JenkinsRule();
+
+    @Test public void viewBuildsInTimestampOrder() throws Exception {
+        FreeStyleProject a = r.createFreeStyleProject("a");
+        FreeStyleProject b = r.createFreeStyleProject("b");
+        FreeStyleBuild a1 = r.buildAndAssertSuccess(a);
+        FreeStyleBuild b1 = r.buildAndAssertSuccess(b);
+        FreeStyleBuild a2 = r.buildAndAssertSuccess(a);
+        b.getBuildersList().add(new FailureBuilder());
+        FreeStyleBuild b2 = r.assertBuildStatus(Result.FAILURE, b.scheduleBuild2(0));
+
+        assertEquals(Arrays.asList(b2, a2, b1, a1), list(r.jenkins.getPrimaryView().getBuilds()));
+        assertEquals(Arrays.asList(b2, a2), list(r.jenkins.getPrimaryView().getBuilds().limit(2)));
+        assertEquals(Arrays.asList(b2), list(r.jenkins.getPrimaryView().getBuilds().failureOnly()));
+        assertEquals(Arrays.asList(a2, b1),
+                list(r.jenkins.getPrimaryView().getBuilds().byTimestamp(b1.getTimeInMillis(), b2.getTimeInMillis())));
+        // filtering after the index falls back to the runs themselves
+        assertEquals(Arrays.asList(b2, a2, b1),
+                list(r.jenkins.getPrimaryView().getBuilds().completedOnly().limit(3)));
+    }
+
+    @Test public void keptUpToDate() throws Exception {
+        FreeStyleProject a = r.createFreeStyleProject("a");
+        FreeStyleProject b = r.createFreeStyleProject("b");
+        FreeStyleBuild a1 = r.buildAndAssertSuccess(a);
+        FreeStyleBuild b1 = r.buildAndAssertSuccess(b);
+        // index everything
+        assertEquals(Arrays.asList(b1, a1), list(RunList.fromJobs(Arrays.asList(a, b))));
+
+        FreeStyleBuild a2 = r.buildAndAssertSuccess(a);
+        b.getBuildersList().add(new FailureBuilder());
+        FreeStyleBuild b2 = r.assertBuildStatus(Result.FAILURE, b.scheduleBuild2(0));
+        assertEquals(Arrays.asList(b2, a2, b1, a1), list(RunList.fromJobs(Arrays.asList(a, b))));
+        assertEquals(Arrays.asList(b2), list(RunList.fromJobs(Arrays.asList(a, b)).failureOnly()));
+
+        a2.delete();
+        assertEquals(Arrays.asList(b2, b1, a1), list(RunList.fromJobs(Arrays.asList(a, b))));
+
+        b.delete();
+        assertEquals(Arrays.asList(a1), list(r.jenkins.getPrimaryView().getBuilds()));
+    }
+
+    @Test public void limitCountsBuildsThatCanBeLoaded() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject("p");
+        FreeStyleBuild b1 = r.buildAndAssertSuccess(p);
+        FreeStyleBuild b2 = r.buildAndAssertSuccess(p);
+        FreeStyleBuild b3 = r.buildAndAssertSuccess(p);
+        // index everything
+        assertEquals(Arrays.asList(b3, b2, b1), list(RunList.fromJobs(Collections.singleton(p))));
+
+        // gone behind our back
+        Util.deleteRecursive(b3.getRootDir());
+        p._getRuns().purgeCache();
+        assertEquals(2, list(RunList.fromJobs(Collections.singleton(p)).limit(2)).size());
+    }
+
+    @Test public void historyPageSearchesEntries() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject("p");
+        p.addProperty(new ParametersDefinitionProperty(new StringParameterDefinition("COLOR", "red")));
+        for (int i = 1; i <= 6; i++) {
+            r.assertBuildStatusSuccess(p.scheduleBuild2(0, new ParametersAction(new StringParameterValue("COLOR", i % 2 == 0 ? "blue" : "green"))));
+        }
+        // index first, so that the description is picked up as a change
+        assertEquals(6, list(RunList.fromJobs(Collections.singleton(p))).size());
+        p.getBuildByNumber(5).setDescription("the blue one");
+
+        HistoryPageFilter<Object> filter = new HistoryPageFilter<>(2);
+        filter.setSearchString("blue");
+        filter.add((Iterable) BuildTimeline.get().of(Collections.singleton(p)));
+        assertEquals(Arrays.asList(6, 5), numbers(filter));
+        assertTrue(filter.hasDownPage);
+
+        filter = new HistoryPageFilter<>(2);
+        filter.setSearchString("blue");
+        filter.setOlderThan(Long.MIN_VALUE + 5);
+        filter.add((Iterable) BuildTimeline.get().of(Collections.singleton(p)));
+        assertEquals(Arrays.asList(4, 2), numbers(filter));
+        assertTrue(filter.hasUpPage);
+    }
+
+    @Test public void buildsOfJobIndexedWithoutBuilds() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject("p");
+        assertEquals(Collections.emptyList(), list(RunList.fromJobs(Collections.singleton(p))));
+        FreeStyleBuild b1 = r.buildAndAssertSuccess(p);
+        FreeStyleBuild b2 = r.buildAndAssertSuccess(p);
+        assertEquals(Arrays.asList(b2, b1), list(RunList.fromJobs(Collections.singleton(p))));
+    }
+
+    @Test public void historyPageSearchesEndOfLongDescriptions() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject("p");
+        FreeStyleBuild b1 = r.buildAndAssertSuccess(p);
+        r.buildAndAssertSuccess(p);
+        b1.setDescription(String.join("", Collections.nCopies(BuildTimeline.MAX_PARAMETER_VALUE_LENGTH, "x")) + " the blue one");
+
+        HistoryPageFilter<Object> filter = new HistoryPageFilter<>(2);
+        filter.setSearchString("blue");
+        filter.add((Iterable) BuildTimeline.get().of(Collections.singleton(p)));
+        assertEquals(Collections.singletonList(1), numbers(filter));
+    }
+
+    @Test public void olderBuildsIndexedFromHeaders() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject("p");
+        r.buildAndAssertSuccess(p);
+        p.getBuildersList().add(new FailureBuilder());
+        r.assertBuildStatus(Result.FAILURE, p.scheduleBuild2(0));
+        r.assertBuildStatus(Result.FAILURE, p.scheduleBuild2(0));
+        p._getRuns().purgeCache();
+
+        List<Integer> numbers = new ArrayList<>();
+        List<Result> results = new ArrayList<>();
+        for (BuildTimeline.Entry e : BuildTimeline.get().of(Collections.singleton(p))) {
+            numbers.add(e.getNumber());
+            results.add(e.getResult());
+        }
+        assertEquals(Arrays.asList(3, 2, 1), numbers);
+        assertEquals(Arrays.asList(Result.FAILURE, Result.FAILURE, Result.SUCCESS), results);
+        // only the newest build was loaded
+        assertEquals(Collections.singleton(3), p._getRuns().getLoadedBuilds().keySet());
+    }
+
+    private static List<Integer> numbers(HistoryPageFilter<?> filter) {
+        List<Integer> r = new ArrayList<>();
+        for (HistoryPageEntry<Run> e : filter.runs) {
+            r.add(e.getEntry().getNumber());
+        }
+        return r;
+    }
+
+    private static List<Run> list(Iterable<? extends Run> runs) {
+        List<Run> r = new ArrayList<>();
+        for (Run run : runs) {
+            r.add(run);
+        }
+        return r;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.model.lazy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+
+public class RunHeaderTest {
+
+    @Rule public JenkinsRule r = new JenkinsRule();
+
+    @Test public void writtenOnceCompleted() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject("p");
+        p.getBuildersList().add(new TestBuilder() {
+            @Override public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+                build.save();
+                assertFalse(new File(build.getRootDir(), RunHeader.FILE_NAME).exists());
+                return true;
+            }
+        });
+        FreeStyleBuild b = r.buildAndAssertSuccess(p);
+        RunHeader h = RunHeader.read(b.getRootDir());
+        assertNotNull(h);
+        assertEquals(1, h.getNumber());
+        assertEquals(Result.SUCCESS, h.getResult());
+
+        b.setDescription("later");
+        h = RunHeader.read(b.getRootDir());
+        assertNotNull(h);
+        assertEquals("later", h.getDescription());
+    }
+
+    @Test public void ignoredWhenBuildXmlChangedBehindOurBack() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject("p");
+        FreeStyleBuild b = r.buildAndAssertSuccess(p);
+        assertNotNull(RunHeader.read(b.getRootDir()));
+
+        // same size and timestamp, different contents
+        Path xml = new File(b.getRootDir(), "build.xml").toPath();
+        FileTime modified = Files.getLastModifiedTime(xml);
+        String contents = new String(Files.readAllBytes(xml), StandardCharsets.UTF_8);
+        Files.write(xml, contents.replace("<result>SUCCESS</result>", "<result>FAILURE</result>").getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(xml, modified);
+        assertNull(RunHeader.read(b.getRootDir()));
+    }
+}